@@ -5,11 +5,14 @@ import java.util.Map;
 import java.util.Set;
 
 import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.craftbukkit.v1_15_R1.CraftWorld;
 import org.bukkit.craftbukkit.v1_15_R1.entity.CraftAbstractVillager;
 import org.bukkit.craftbukkit.v1_15_R1.entity.CraftEntity;
 import org.bukkit.craftbukkit.v1_15_R1.entity.CraftLivingEntity;
 import org.bukkit.craftbukkit.v1_15_R1.entity.CraftPlayer;
 import org.bukkit.craftbukkit.v1_15_R1.entity.CraftVillager;
+import org.bukkit.craftbukkit.v1_15_R1.inventory.CraftInventory;
 import org.bukkit.craftbukkit.v1_15_R1.inventory.CraftItemStack;
 import org.bukkit.craftbukkit.v1_15_R1.inventory.CraftMerchant;
 import org.bukkit.craftbukkit.v1_15_R1.util.CraftMagicNumbers;
@@ -23,24 +26,35 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Merchant;
 import org.bukkit.inventory.MerchantInventory;
 
+import com.nisovin.shopkeepers.compat.api.ItemMatcher;
 import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
 import com.nisovin.shopkeepers.util.ItemUtils;
 
+import net.minecraft.server.v1_15_R1.BlockPosition;
 import net.minecraft.server.v1_15_R1.Entity;
 import net.minecraft.server.v1_15_R1.EntityHuman;
 import net.minecraft.server.v1_15_R1.EntityInsentient;
 import net.minecraft.server.v1_15_R1.EntityLiving;
 import net.minecraft.server.v1_15_R1.EntityPlayer;
 import net.minecraft.server.v1_15_R1.GameProfileSerializer;
+import net.minecraft.server.v1_15_R1.IInventory;
 import net.minecraft.server.v1_15_R1.IMerchant;
 import net.minecraft.server.v1_15_R1.MerchantRecipeList;
 import net.minecraft.server.v1_15_R1.NBTTagCompound;
 import net.minecraft.server.v1_15_R1.PathfinderGoalFloat;
 import net.minecraft.server.v1_15_R1.PathfinderGoalLookAtPlayer;
 import net.minecraft.server.v1_15_R1.PathfinderGoalSelector;
+import net.minecraft.server.v1_15_R1.TileEntity;
 
 public final class NMSHandler implements NMSCallProvider {
 
+	private final Field craftItemStackHandleField;
+
+	public NMSHandler() throws Exception {
+		craftItemStackHandleField = CraftItemStack.class.getDeclaredField("handle");
+		craftItemStackHandleField.setAccessible(true);
+	}
+
 	@Override
 	public String getVersionId() {
 		return "1_15_R1";
@@ -140,6 +154,40 @@ public final class NMSHandler implements NMSCallProvider {
 		return GameProfileSerializer.a(requiredTag, providedTag, false); // compare tags
 	}
 
+	@Override
+	public ItemMatcher createItemMatcher(ItemStack required) {
+		// if the required item is empty, then the provided item has to be empty as well:
+		if (ItemUtils.isEmpty(required)) return ItemUtils::isEmpty;
+		Material requiredType = required.getType();
+		NBTTagCompound requiredTag = CraftItemStack.asNMSCopy(required).getTag(); // can be null
+		if (requiredTag == null) {
+			// any provided item of the same type matches:
+			return (provided) -> !ItemUtils.isEmpty(provided) && provided.getType() == requiredType;
+		}
+		int requiredTagSize = requiredTag.getKeys().size();
+		return (provided) -> {
+			if (ItemUtils.isEmpty(provided)) return false;
+			if (provided.getType() != requiredType) return false;
+			NBTTagCompound providedTag = this.getTag(provided);
+			// cheap pre-check: the provided tag has to contain at least all entries of the required tag:
+			if (providedTag == null || providedTag.getKeys().size() < requiredTagSize) return false;
+			return GameProfileSerializer.a(requiredTag, providedTag, false); // compare tags
+		};
+	}
+
+	// does not copy the item if it is a CraftItemStack:
+	private NBTTagCompound getTag(ItemStack itemStack) {
+		if (itemStack instanceof CraftItemStack) {
+			try {
+				net.minecraft.server.v1_15_R1.ItemStack nmsItem = (net.minecraft.server.v1_15_R1.ItemStack) craftItemStackHandleField.get(itemStack);
+				return (nmsItem != null) ? nmsItem.getTag() : null;
+			} catch (Exception e) {
+				// fall back to copying the item
+			}
+		}
+		return CraftItemStack.asNMSCopy(itemStack).getTag();
+	}
+
 	@Override
 	public void updateTrades(Player player) {
 		Inventory openInventory = player.getOpenInventory().getTopInventory();
@@ -181,6 +229,14 @@ public final class NMSHandler implements NMSCallProvider {
 		nmsPlayer.openTrade(nmsPlayer.activeContainer.windowId, merchantRecipeList, merchantLevel, merchantExperience, regularVillager, canRestock);
 	}
 
+	@Override
+	public Inventory getContainerInventory(Block containerBlock) {
+		// directly wraps the tile entity, instead of creating a snapshot of it like the block state does:
+		TileEntity tileEntity = ((CraftWorld) containerBlock.getWorld()).getHandle().getTileEntity(new BlockPosition(containerBlock.getX(), containerBlock.getY(), containerBlock.getZ()));
+		if (!(tileEntity instanceof IInventory)) return null;
+		return new CraftInventory((IInventory) tileEntity);
+	}
+
 	@Override
 	public String getItemSNBT(ItemStack itemStack) {
 		if (itemStack == null) return null;
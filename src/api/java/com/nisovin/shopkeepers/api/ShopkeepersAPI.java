@@ -16,6 +16,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.TradingOffer;
 import com.nisovin.shopkeepers.api.shopobjects.DefaultShopObjectTypes;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObjectTypesRegistry;
+import com.nisovin.shopkeepers.api.statistics.TradeStatistics;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.ui.UIRegistry;
@@ -121,6 +122,17 @@ public final class ShopkeepersAPI {
 		return getPlugin().getShopkeeperStorage();
 	}
 
+	// STATISTICS
+
+	/**
+	 * Gets the {@link TradeStatistics}.
+	 * 
+	 * @return the trade statistics
+	 */
+	public static TradeStatistics getTradeStatistics() {
+		return getPlugin().getTradeStatistics();
+	}
+
 	//
 
 	/**
@@ -15,6 +15,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.TradingOffer;
 import com.nisovin.shopkeepers.api.shopobjects.DefaultShopObjectTypes;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObjectTypesRegistry;
+import com.nisovin.shopkeepers.api.statistics.TradeStatistics;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
 import com.nisovin.shopkeepers.api.ui.UIRegistry;
@@ -36,6 +37,9 @@ public interface ShopkeepersPlugin extends Plugin {
 	public static final String LIST_OTHERS_PERMISSION = "shopkeeper.list.others";
 	public static final String LIST_ADMIN_PERMISSION = "shopkeeper.list.admin";
 
+	public static final String TRADES_PERMISSION = "shopkeeper.trades";
+	public static final String TOP_PERMISSION = "shopkeeper.top";
+
 	public static final String REMOVE_OWN_PERMISSION = "shopkeeper.remove.own";
 	public static final String REMOVE_OTHERS_PERMISSION = "shopkeeper.remove.others";
 	public static final String REMOVE_ALL_PERMISSION = "shopkeeper.remove.all";
@@ -103,6 +107,15 @@ public interface ShopkeepersPlugin extends Plugin {
 	 */
 	public ShopkeeperStorage getShopkeeperStorage();
 
+	// STATISTICS
+
+	/**
+	 * Gets the {@link TradeStatistics}.
+	 * 
+	 * @return the trade statistics
+	 */
+	public TradeStatistics getTradeStatistics();
+
 	//
 
 	/**
@@ -0,0 +1,105 @@
+package com.nisovin.shopkeepers.api.statistics;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+
+/**
+ * Keeps track of the recent trades of shopkeepers and shop owners.
+ * <p>
+ * The trades are aggregated into hourly and daily buckets. The statistics are only tracked if trade statistics are
+ * enabled inside the config. Otherwise all statistics are <code>0</code>.
+ */
+public interface TradeStatistics {
+
+	/**
+	 * The tracked statistics.
+	 */
+	public enum Statistic {
+		/**
+		 * The number of trades.
+		 */
+		TRADES,
+		/**
+		 * The number of traded items, excluding currency items.
+		 * <p>
+		 * This only counts the goods of the trades: The items given away by the shop, or the items received by the
+		 * shop in the case of buying shops.
+		 */
+		ITEMS,
+		/**
+		 * The value of the traded currency items, in units of the low currency.
+		 * <p>
+		 * This only counts the payment of the trades: The currency received by the shop, or the currency paid by the
+		 * shop in the case of buying shops.
+		 */
+		CURRENCY;
+	}
+
+	/**
+	 * The time periods for which statistics can be queried.
+	 */
+	public enum Period {
+		/**
+		 * Since the start of the current hour.
+		 */
+		CURRENT_HOUR,
+		/**
+		 * The current hour and the previous 23 hours.
+		 */
+		LAST_24_HOURS,
+		/**
+		 * The current day and the previous 6 days.
+		 */
+		LAST_7_DAYS,
+		/**
+		 * The current day and the previous 29 days.
+		 */
+		LAST_30_DAYS;
+	}
+
+	/**
+	 * Gets the specified statistic of the given shopkeeper.
+	 * 
+	 * @param shopkeeper
+	 *            the shopkeeper
+	 * @param statistic
+	 *            the statistic
+	 * @param period
+	 *            the time period
+	 * @return the statistic's value
+	 */
+	public long getShopkeeperStatistic(Shopkeeper shopkeeper, Statistic statistic, Period period);
+
+	/**
+	 * Gets the specified statistic of all shopkeepers of the specified owner.
+	 * <p>
+	 * This also includes the trades of shopkeepers that were owned by the owner at the time of the trade, but have
+	 * been removed or transferred since then.
+	 * 
+	 * @param ownerUUID
+	 *            the owner's unique id
+	 * @param statistic
+	 *            the statistic
+	 * @param period
+	 *            the time period
+	 * @return the statistic's value
+	 */
+	public long getOwnerStatistic(UUID ownerUUID, Statistic statistic, Period period);
+
+	/**
+	 * Gets the shopkeepers with the highest value for the specified statistic.
+	 * <p>
+	 * Shopkeepers without any trades during the specified time period are not included.
+	 * 
+	 * @param statistic
+	 *            the statistic
+	 * @param period
+	 *            the time period
+	 * @param limit
+	 *            the max number of returned shopkeepers
+	 * @return the shopkeepers, ordered by their statistic value in descending order
+	 */
+	public List<Shopkeeper> getTopShopkeepers(Statistic statistic, Period period, int limit);
+}
@@ -1,8 +1,11 @@
 package com.nisovin.shopkeepers;
 
 import java.io.File;
+import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -16,6 +19,7 @@ import com.nisovin.shopkeepers.config.annotation.WithValueTypeProvider;
 import com.nisovin.shopkeepers.config.value.ValueLoadException;
 import com.nisovin.shopkeepers.config.value.types.ColoredStringListValue;
 import com.nisovin.shopkeepers.config.value.types.ColoredStringValue;
+import com.nisovin.shopkeepers.text.MessageTemplate;
 import com.nisovin.shopkeepers.text.Text;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.TextUtils;
@@ -259,9 +263,22 @@ public class Messages extends Config {
 	public static Text listPlayerShopsHeader = Text.parse("&9Player '&e{player}&9' has &e{shopsCount} &9shops: &e(Page {page} of {maxPage})");
 	public static Text listShopsEntry = Text.parse("  &e{shopId}) &7{shopName}&r&8at &7({location})&8, type: &7{shopType}&8, object: &7{objectType}");
 
+	public static Text tradesShopHeader = Text.parse("&9Shop &e{shop}&9 has &e{tradesCount} &9logged trades since &e{since}&9:");
+	public static Text tradesPlayerHeader = Text.parse("&9Player '&e{player}&9' has &e{tradesCount} &9logged trades since &e{since}&9:");
+	public static Text tradesEntry = Text.parse("  &7{time} &e{player} &8at &7{shopId}&8: &7{resultAmount}x {resultItem} &8for &7{item1Amount}x {item1}{item2}");
+	public static Text tradesMore = Text.parse("&7  ... (only the latest &e{entriesCount} &7trades are shown)");
+	public static Text tradesReadError = Text.parse("&cCould not read the trade logs! Check the server log for details.");
+
+	public static Text topShopsHeader = Text.parse("&9Top shops by &e{statistic} &9({period}):");
+	public static Text topShopsOfPlayerHeader = Text.parse("&9Top shops of &e{player} &9by &e{statistic} &9({period}), total: &e{total}");
+	public static Text topShopsEntry = Text.parse("  &e{rank}) &7{shopName}&r&8(&7{shopId}&8) at &7({location})&8: &e{value}");
+	public static Text topShopsNone = Text.parse("&7There have been no trades during this period.");
+	public static Text tradeStatisticsDisabled = Text.parse("&cTrade statistics are disabled.");
+
 	public static Text removedAdminShops = Text.parse("&e{shopsCount} &aadmin shops were removed.");
 	public static Text removedShopsOfPlayer = Text.parse("&e{shopsCount} &ashops of player '&e{player}&a' were removed.");
 	public static Text removedPlayerShops = Text.parse("&e{shopsCount} &aplayer shops were removed.");
+	public static Text bulkOperationProgress = Text.parse("&7Processed &e{processedCount} &7of &e{shopsCount} &7shops ...");
 
 	public static Text confirmRemoveAllAdminShops = Text.parse("&cYou are about to irrevocable remove all admin shops (&6{shopsCount}&c)!");
 	public static Text confirmRemoveAllOwnShops = Text.parse("&cYou are about to irrevocable remove all your shops (&6{shopsCount}&c)!");
@@ -300,7 +317,9 @@ public class Messages extends Config {
 	public static Text commandDescriptionReload = Text.parse("Reloads this plugin.");
 	public static Text commandDescriptionDebug = Text.parse("Toggles debug mode on and off.");
 	public static Text commandDescriptionList = Text.parse("Lists all shops for the specified player, or all admin shops.");
-	public static Text commandDescriptionRemove = Text.parse("Removes all shops for the specified player, all players, or all admin shops.");
+	public static Text commandDescriptionTrades = Text.parse("Shows the logged trades of the specified shop or player.");
+	public static Text commandDescriptionTop = Text.parse("Shows the shops with the most trades, traded items or traded currency.");
+	public static Text commandDescriptionRemove = Text.parse("Removes all shops for the specified player, all players, or all admin shops. Optionally only removes the shops in a given world or region, and of a given shop type.");
 	public static Text commandDescriptionGive = Text.parse("Gives shop creation item(s) to the specified player.");
 	public static Text commandDescriptionGiveCurrency = Text.parse("Gives currency item(s) to the specified player.");
 	public static Text commandDescriptionConvertItems = Text.parse("Converts the held (or all) items to conform to Spigot's data format.");
@@ -380,6 +399,27 @@ public class Messages extends Config {
 				Log.warning("Could not load language file '" + languageFile.getName() + "'!", e);
 			}
 		}
+
+		// Compile the message templates of the loaded (or default) messages:
+		INSTANCE.compileTemplates();
+	}
+
+	// MESSAGE TEMPLATES
+
+	// The compiled templates are registered with MessageTemplate, so that sending these messages uses them.
+	private void compileTemplates() {
+		Map<Text, MessageTemplate> compiledTemplates = new IdentityHashMap<>();
+		for (Field field : this.getSettings()) {
+			if (field.getType() != Text.class) continue;
+			try {
+				Text message = (Text) field.get(null);
+				if (message == null) continue;
+				compiledTemplates.put(message, MessageTemplate.compile(message));
+			} catch (IllegalAccessException e) {
+				Log.warning(this.getLogPrefix() + "Could not compile message template for message '" + field.getName() + "'!", e);
+			}
+		}
+		MessageTemplate.setRegisteredTemplates(compiledTemplates);
 	}
 
 	/////
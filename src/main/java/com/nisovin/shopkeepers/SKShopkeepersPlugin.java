@@ -1,11 +1,13 @@
 package com.nisovin.shopkeepers;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.bstats.bukkit.Metrics;
 import org.bukkit.Bukkit;
@@ -23,7 +25,6 @@ import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.ShopkeepersStartupEvent;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
-import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.BookOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
@@ -33,11 +34,13 @@ import com.nisovin.shopkeepers.commands.Commands;
 import com.nisovin.shopkeepers.compat.MC_1_16_Utils;
 import com.nisovin.shopkeepers.compat.NMSManager;
 import com.nisovin.shopkeepers.config.ConfigLoadException;
+import com.nisovin.shopkeepers.container.ShopContainerChangeListener;
 import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
 import com.nisovin.shopkeepers.container.protection.RemoveShopOnContainerBreak;
 import com.nisovin.shopkeepers.debug.Debug;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.debug.events.DebugListener;
+import com.nisovin.shopkeepers.debug.timings.TimingsExporter;
 import com.nisovin.shopkeepers.debug.trades.TradingCountListener;
 import com.nisovin.shopkeepers.itemconversion.ItemConversions;
 import com.nisovin.shopkeepers.metrics.CitizensChart;
@@ -50,25 +53,31 @@ import com.nisovin.shopkeepers.metrics.VaultEconomyChart;
 import com.nisovin.shopkeepers.metrics.WorldGuardChart;
 import com.nisovin.shopkeepers.metrics.WorldsChart;
 import com.nisovin.shopkeepers.naming.ShopkeeperNaming;
+import com.nisovin.shopkeepers.owners.ShopOwnerTable;
 import com.nisovin.shopkeepers.pluginhandlers.CitizensHandler;
 import com.nisovin.shopkeepers.pluginhandlers.WorldGuardHandler;
 import com.nisovin.shopkeepers.shopcreation.ShopkeeperCreation;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.BulkShopkeeperOperation;
 import com.nisovin.shopkeepers.shopkeeper.SKDefaultShopTypes;
 import com.nisovin.shopkeepers.shopkeeper.SKShopTypesRegistry;
 import com.nisovin.shopkeepers.shopkeeper.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopkeeper.SKTradingRecipe;
+import com.nisovin.shopkeepers.shopkeeper.ShopkeeperSelector;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKBookOffer;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKPriceOffer;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKTradingOffer;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
 import com.nisovin.shopkeepers.shopobjects.SKDefaultShopObjectTypes;
 import com.nisovin.shopkeepers.shopobjects.SKShopObjectTypesRegistry;
 import com.nisovin.shopkeepers.shopobjects.citizens.CitizensShops;
 import com.nisovin.shopkeepers.shopobjects.living.LivingShops;
 import com.nisovin.shopkeepers.shopobjects.sign.SignShops;
 import com.nisovin.shopkeepers.spigot.SpigotFeatures;
+import com.nisovin.shopkeepers.statistics.SKTradeStatistics;
 import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
+import com.nisovin.shopkeepers.tradelogging.StructuredTradeLogger;
 import com.nisovin.shopkeepers.tradelogging.TradeFileLogger;
 import com.nisovin.shopkeepers.ui.SKUIRegistry;
 import com.nisovin.shopkeepers.ui.defaults.SKDefaultUITypes;
@@ -119,10 +128,17 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 
 	private final ProtectedContainers protectedContainers = new ProtectedContainers(this);
 	private final RemoveShopOnContainerBreak removeShopOnContainerBreak = new RemoveShopOnContainerBreak(this, protectedContainers);
+	private final ShopContainerChangeListener shopContainerChangeListener = new ShopContainerChangeListener(this, protectedContainers);
 	private final LivingShops livingShops = new LivingShops(this);
 	private final SignShops signShops = new SignShops(this);
 	private final CitizensShops citizensShops = new CitizensShops(this);
 
+	private final TradeFileLogger tradeFileLogger = new TradeFileLogger(this);
+	private final StructuredTradeLogger structuredTradeLogger = new StructuredTradeLogger(this);
+	private final SKTradeStatistics tradeStatistics = new SKTradeStatistics(this);
+	private final ShopOwnerTable shopOwnerTable = new ShopOwnerTable(this);
+	private final TimingsExporter timingsExporter = new TimingsExporter(this);
+
 	private boolean outdatedServer = false;
 	private boolean incompatibleServer = false;
 	private ConfigLoadException configLoadError = null; // null on success
@@ -305,12 +321,14 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		// Enable container protection:
 		protectedContainers.enable();
 		removeShopOnContainerBreak.onEnable();
+		shopContainerChangeListener.onEnable();
 
 		// Register events:
 		PluginManager pm = Bukkit.getPluginManager();
 		pm.registerEvents(new PlayerJoinQuitListener(this), this);
 		pm.registerEvents(new TradingCountListener(this), this);
-		pm.registerEvents(new TradeFileLogger(this.getSKDataFolder()), this);
+		tradeFileLogger.onEnable();
+		structuredTradeLogger.onEnable();
 
 		// DEFAULT SHOP OBJECT TYPES
 
@@ -366,6 +384,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		// Activate (spawn) shopkeepers in loaded chunks of all loaded worlds:
 		shopkeeperRegistry.activateShopkeepersInAllWorlds();
 
+		// Enable the shop owner table (tracks the activity of shop owners):
+		shopOwnerTable.onEnable();
+
 		Bukkit.getScheduler().runTaskLater(this, () -> {
 			// Remove inactive player shopkeepers:
 			this.removeInactivePlayerShops();
@@ -382,6 +403,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 			shopkeeperStorage.saveNow();
 		}
 
+		// Enable trade statistics (requires the shopkeepers to be loaded):
+		tradeStatistics.onEnable();
+
 		// Setup metrics:
 		if (Settings.enableMetrics) {
 			this.setupMetrics();
@@ -398,6 +422,11 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 					DebugListener.register(logAllEvent, printListeners);
 				}
 			}, 10L);
+
+			// Export timings:
+			if (Debug.isDebugging(DebugOptions.exportTimings)) {
+				timingsExporter.onEnable();
+			}
 		}
 	}
 
@@ -409,6 +438,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		// Inform UI registry about disable:
 		uiRegistry.onDisable();
 
+		// Complete any running bulk operations (prior to despawning, saving and unloading the shopkeepers):
+		BulkShopkeeperOperation.completeRunningOperations();
+
 		// Despawn all shopkeepers (prior to saving shopkeepers data and before unloading all shopkeepers):
 		shopkeeperRegistry.deactivateShopkeepersInAllWorlds();
 
@@ -424,9 +456,13 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		// Save shopkeepers:
 		shopkeeperStorage.saveImmediateIfDirty();
 
+		// Save the shop owner table (requires the shopkeepers to still be loaded):
+		shopOwnerTable.onDisable();
+
 		// Disable protected containers:
 		protectedContainers.disable();
 		removeShopOnContainerBreak.onDisable();
+		shopContainerChangeListener.onDisable();
 
 		// Disable shopkeeper registry: unloads all shopkeepers
 		shopkeeperRegistry.onDisable();
@@ -446,6 +482,13 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		shopkeeperNaming.onDisable();
 		shopkeeperCreation.onDisable();
 
+		// Write any remaining trade logs:
+		tradeFileLogger.onDisable();
+		structuredTradeLogger.onDisable();
+		tradeStatistics.onDisable();
+
+		timingsExporter.onDisable();
+
 		// Clear all types of registers:
 		shopTypesRegistry.clearAll();
 		shopObjectTypesRegistry.clearAll();
@@ -486,6 +529,7 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 	// PLAYER JOINING AND QUITTING
 
 	void onPlayerJoin(Player player) {
+		shopOwnerTable.onPlayerJoin(player);
 		this.updateShopkeepersForPlayer(player.getUniqueId(), player.getName());
 	}
 
@@ -498,6 +542,8 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		shopkeeperNaming.onPlayerQuit(player);
 		shopkeeperCreation.onPlayerQuit(player);
 		commands.onPlayerQuit(player);
+
+		shopOwnerTable.onPlayerQuit(player);
 	}
 
 	// FOLDER STRUCTURE
@@ -529,6 +575,25 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		return shopkeeperStorage;
 	}
 
+	// TRADE STATISTICS
+
+	@Override
+	public SKTradeStatistics getTradeStatistics() {
+		return tradeStatistics;
+	}
+
+	// ITEM CONVERSIONS
+
+	public ItemConversions getItemConversions() {
+		return itemConversions;
+	}
+
+	// SHOP OWNERS
+
+	public ShopOwnerTable getShopOwnerTable() {
+		return shopOwnerTable;
+	}
+
 	// COMMANDS
 
 	public Commands getCommands() {
@@ -613,6 +678,12 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		return shopkeeperCreation;
 	}
 
+	// TRADE LOGGING
+
+	public StructuredTradeLogger getStructuredTradeLogger() {
+		return structuredTradeLogger;
+	}
+
 	@Override
 	public boolean hasCreatePermission(Player player) {
 		if (player == null) return false;
@@ -634,105 +705,99 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 
 	private void removeInactivePlayerShops() {
 		if (Settings.playerShopkeeperInactiveDays <= 0) return;
-
-		Set<UUID> playerUUIDs = new HashSet<>();
-		for (Shopkeeper shopkeeper : shopkeeperRegistry.getAllShopkeepers()) {
-			if (shopkeeper instanceof PlayerShopkeeper) {
-				PlayerShopkeeper playerShop = (PlayerShopkeeper) shopkeeper;
-				playerUUIDs.add(playerShop.getOwnerUUID());
+		int inactiveDays = Settings.playerShopkeeperInactiveDays;
+
+		// The activity of shop owners is tracked by the shop owner table. Only the owners that are not yet known to the
+		// table need to be looked up:
+		Set<UUID> unknownOwners = new HashSet<>();
+		for (UUID ownerUUID : shopkeeperRegistry.getPlayerShopOwners()) {
+			if (!shopOwnerTable.isKnown(ownerUUID)) {
+				unknownOwners.add(ownerUUID);
 			}
 		}
-		if (playerUUIDs.isEmpty()) {
-			// No player shops found:
+		if (unknownOwners.isEmpty()) {
+			this.removeInactivePlayerShops(inactiveDays);
 			return;
 		}
 
 		// Fetch OfflinePlayers async:
-		int playerShopkeeperInactiveDays = Settings.playerShopkeeperInactiveDays;
 		Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
-			List<OfflinePlayer> inactivePlayers = new ArrayList<>();
-			long now = System.currentTimeMillis();
-			for (UUID uuid : playerUUIDs) {
+			Map<UUID, Long> lastPlayed = new HashMap<>();
+			for (UUID uuid : unknownOwners) {
 				OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
+				// Owners that have never played on this server remain unknown (they are not considered inactive):
 				if (!offlinePlayer.hasPlayedBefore()) continue;
-
-				long lastPlayed = offlinePlayer.getLastPlayed();
-				if ((lastPlayed > 0) && ((now - lastPlayed) / 86400000 > playerShopkeeperInactiveDays)) {
-					inactivePlayers.add(offlinePlayer);
+				long playerLastPlayed = offlinePlayer.getLastPlayed();
+				if (playerLastPlayed > 0) {
+					lastPlayed.put(uuid, playerLastPlayed);
 				}
 			}
 
-			if (inactivePlayers.isEmpty()) {
-				// No inactive players found:
-				return;
-			}
-
 			// Continue in main thread:
 			SchedulerUtils.runTaskOrOmit(SKShopkeepersPlugin.this, () -> {
-				List<PlayerShopkeeper> forRemoval = new ArrayList<>();
-				for (OfflinePlayer inactivePlayer : inactivePlayers) {
-					// Remove all shops of this inactive player:
-					UUID playerUUID = inactivePlayer.getUniqueId();
-
-					for (Shopkeeper shopkeeper : shopkeeperRegistry.getAllShopkeepers()) {
-						if (shopkeeper instanceof PlayerShopkeeper) {
-							PlayerShopkeeper playerShop = (PlayerShopkeeper) shopkeeper;
-							UUID ownerUUID = playerShop.getOwnerUUID();
-							if (ownerUUID.equals(playerUUID)) {
-								forRemoval.add(playerShop);
-							}
-						}
-					}
-				}
-
-				// Remove those shopkeepers:
-				if (!forRemoval.isEmpty()) {
-					for (PlayerShopkeeper shopkeeper : forRemoval) {
-						shopkeeper.delete();
-						Log.info("Shopkeeper " + shopkeeper.getIdString() + " at " + shopkeeper.getPositionString()
-								+ " owned by " + shopkeeper.getOwnerString() + " has been removed for owner inactivity.");
-					}
-
-					// save:
-					shopkeeperStorage.save();
-				}
+				lastPlayed.forEach(shopOwnerTable::addUnknownPlayer);
+				this.removeInactivePlayerShops(inactiveDays);
 			});
 		});
 	}
 
+	private void removeInactivePlayerShops(int inactiveDays) {
+		long inactiveSince = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(inactiveDays);
+		// Uses the owner index to find the shops of inactive owners:
+		List<AbstractShopkeeper> inactiveShops = new ShopkeeperSelector().ownerInactiveSince(inactiveSince).select();
+		if (inactiveShops.isEmpty()) {
+			// No shops of inactive players found:
+			return;
+		}
+
+		// Remove those shopkeepers (spread across ticks, with a single save at the end):
+		new BulkShopkeeperOperation(this, null, inactiveShops, (shopkeeper) -> {
+			PlayerShopkeeper playerShop = (PlayerShopkeeper) shopkeeper;
+			playerShop.delete();
+			Log.info("Shopkeeper " + playerShop.getIdString() + " at " + playerShop.getPositionString()
+					+ " owned by " + playerShop.getOwnerString() + " has been removed for owner inactivity.");
+			return true;
+		}, (removedCount) -> {
+			Log.info("Removed " + removedCount + " shopkeepers of inactive players.");
+		}).start();
+	}
+
 	// HANDLING PLAYER NAME CHANGES:
 
 	// Updates owner names for the shopkeepers of the specified player:
 	private void updateShopkeepersForPlayer(UUID playerUUID, String playerName) {
+		// Cheap check against the last known name of the player:
+		boolean nameChanged = shopOwnerTable.updateName(playerUUID, playerName);
+		List<? extends AbstractPlayerShopkeeper> ownedShops = shopkeeperRegistry.getPlayerShopkeepersByOwner(playerUUID);
+		if (ownedShops.isEmpty()) return;
+		if (!nameChanged) {
+			// The stored owner names of the shops might still be outdated, eg. if the shops were not saved after the last
+			// known name got updated. Since all shops of a player store the same owner name, checking the first shop
+			// suffices to detect this:
+			if (ownedShops.get(0).getOwnerName().equals(playerName)) {
+				Log.debug(DebugOptions.ownerNameUpdates,
+						() -> "The last known name of " + TextUtils.getPlayerString(playerName, playerUUID)
+								+ " matches the current player name. Skipping checking of shops."
+				);
+				return;
+			}
+		}
+
+		// The player's name is unknown or has changed: Check the shops owned by the player.
 		Log.debug(DebugOptions.ownerNameUpdates,
 				() -> "Updating shopkeepers for: " + TextUtils.getPlayerString(playerName, playerUUID)
 		);
 		boolean dirty = false;
-		for (Shopkeeper shopkeeper : shopkeeperRegistry.getAllShopkeepers()) {
-			if (shopkeeper instanceof PlayerShopkeeper) {
-				PlayerShopkeeper playerShop = (PlayerShopkeeper) shopkeeper;
-				UUID ownerUUID = playerShop.getOwnerUUID();
-				String ownerName = playerShop.getOwnerName();
-
-				if (ownerUUID.equals(playerUUID)) {
-					if (!ownerName.equals(playerName)) {
-						// Update the stored name, because the player must have changed it:
-						Log.debug(DebugOptions.ownerNameUpdates,
-								() -> "  Updating owner name ('" + ownerName + "') of shopkeeper " + shopkeeper.getId() + "."
-						);
-						playerShop.setOwner(playerUUID, playerName);
-						dirty = true;
-					} else {
-						// The stored owner name matches the player's current name.
-						// Assumption: The stored owner names among all shops are consistent.
-						// We can therefore abort checking the other shops here.
-						Log.debug(DebugOptions.ownerNameUpdates,
-								() -> "  The stored owner name of shopkeeper " + shopkeeper.getId()
-										+ " matches the current player name. Skipping checking of further shops."
-						);
-						return;
-					}
-				}
+		// Note: Updating the owner name does not affect the owner index.
+		for (AbstractPlayerShopkeeper playerShop : ownedShops) {
+			String ownerName = playerShop.getOwnerName();
+			if (!ownerName.equals(playerName)) {
+				// Update the stored name, because the player must have changed it:
+				Log.debug(DebugOptions.ownerNameUpdates,
+						() -> "  Updating owner name ('" + ownerName + "') of shopkeeper " + playerShop.getId() + "."
+				);
+				playerShop.setOwner(playerUUID, playerName);
+				dirty = true;
 			}
 		}
 
@@ -23,6 +23,7 @@ import com.nisovin.shopkeepers.config.migration.ConfigMigrations;
 import com.nisovin.shopkeepers.util.ConversionUtils;
 import com.nisovin.shopkeepers.util.EntityUtils;
 import com.nisovin.shopkeepers.util.ItemData;
+import com.nisovin.shopkeepers.util.ItemDataMatchCache;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.PermissionUtils;
@@ -52,6 +53,7 @@ public class Settings extends Config {
 	public static boolean convertPlayerItems = false;
 	public static boolean convertAllPlayerItems = true;
 	public static List<ItemData> convertPlayerItemsExceptions = new ArrayList<>();
+	public static boolean convertShopContainersOnActivation = false;
 
 	/*
 	 * Plugin Compatibility
@@ -220,6 +222,9 @@ public class Settings extends Config {
 	public static boolean preventTradingWhileOwnerIsOnline = false;
 	public static boolean useStrictItemComparison = false;
 	public static boolean enablePurchaseLogging = false;
+	public static boolean compressPurchaseLogs = false;
+	public static boolean enableStructuredTradeLogging = false;
+	public static boolean enableTradeStatistics = false;
 	public static boolean incrementVillagerStatistics = false;
 
 	public static int taxRate = 0;
@@ -433,6 +438,11 @@ public class Settings extends Config {
 		return currencyItem.matches(item);
 	}
 
+	// For repeated currency checks during a single scan of inventory contents:
+	public static ItemDataMatchCache createCurrencyMatchCache() {
+		return new ItemDataMatchCache(currencyItem);
+	}
+
 	// High currency item:
 	public static boolean isHighCurrencyEnabled() {
 		return (highCurrencyValue > 0 && highCurrencyItem.getType() != Material.AIR);
@@ -448,6 +458,10 @@ public class Settings extends Config {
 		return highCurrencyItem.matches(item);
 	}
 
+	public static ItemDataMatchCache createHighCurrencyMatchCache() {
+		return new ItemDataMatchCache(isHighCurrencyEnabled() ? highCurrencyItem : null);
+	}
+
 	// Zero currency item:
 	public static ItemStack createZeroCurrencyItem() {
 		if (zeroCurrencyItem.getType() == Material.AIR) return null;
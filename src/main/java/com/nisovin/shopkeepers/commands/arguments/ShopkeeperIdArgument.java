@@ -3,7 +3,7 @@ package com.nisovin.shopkeepers.commands.arguments;
 import java.util.Collections;
 import java.util.function.Predicate;
 
-import com.nisovin.shopkeepers.api.ShopkeepersAPI;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.commands.lib.ArgumentFilter;
 import com.nisovin.shopkeepers.commands.lib.arguments.IntegerArgument;
@@ -61,11 +61,11 @@ public class ShopkeeperIdArgument extends ObjectIdArgument<Integer> {
 			return Collections.emptyList();
 		}
 		// Note: No normalization required.
-		// TODO Prefer short ids (eg. input "2", suggest "20", "21", "22",.. instead of "200", "201", "202",..)
-		return ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers().stream()
+		// The registry index provides the shopkeepers with matching ids, shorter ids first (eg. input "2": suggests
+		// "2", "20", "21", "22",.. before "200", "201", "202",..):
+		return SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().getShopkeepersByIdPrefix(idPrefix)
 				.filter(shopkeeperFilter)
-				.map(shopkeeper -> shopkeeper.getId())
-				.filter(id -> id.toString().startsWith(idPrefix))::iterator;
+				.map(shopkeeper -> shopkeeper.getId())::iterator;
 	}
 
 	@Override
@@ -1,9 +1,8 @@
 package com.nisovin.shopkeepers.commands.arguments;
 
-import java.util.Locale;
 import java.util.function.Predicate;
 
-import com.nisovin.shopkeepers.api.ShopkeepersAPI;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.commands.lib.ArgumentFilter;
 import com.nisovin.shopkeepers.commands.lib.arguments.ObjectNameArgument;
@@ -46,19 +45,13 @@ public class ShopkeeperNameArgument extends ObjectNameArgument {
 	public static Iterable<String> getDefaultCompletionSuggestions(String namePrefix, Predicate<Shopkeeper> shopkeeperFilter) {
 		// Strips color, normalizes whitespace, converts to lowercase:
 		String normalizedNamePrefix = StringUtils.normalize(TextUtils.stripColor(namePrefix));
-		// TODO Improve by using a TreeMap for the prefix matching?
-		return ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers().stream()
+		// The registry index only provides the shopkeepers with matching names:
+		return SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().getShopkeepersByNormalizedNamePrefix(normalizedNamePrefix)
 				.filter(shopkeeperFilter)
 				.map(shopkeeper -> {
 					String name = TextUtils.stripColor(shopkeeper.getName());
-					if (name.isEmpty()) return null;
-					String normalizedWithCase = StringUtils.normalizeKeepCase(name);
-					String normalized = normalizedWithCase.toLowerCase(Locale.ROOT);
-					if (normalized.startsWith(normalizedNamePrefix)) {
-						return normalizedWithCase;
-					}
-					return null; // no match
-				}).filter(name -> name != null)::iterator;
+					return StringUtils.normalizeKeepCase(name);
+				})::iterator;
 	}
 
 	@Override
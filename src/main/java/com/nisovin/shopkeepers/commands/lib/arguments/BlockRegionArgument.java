@@ -0,0 +1,59 @@
+package com.nisovin.shopkeepers.commands.lib.arguments;
+
+import java.util.Arrays;
+
+import org.bukkit.util.BoundingBox;
+
+import com.nisovin.shopkeepers.commands.lib.ArgumentParseException;
+import com.nisovin.shopkeepers.commands.lib.ArgumentsReader;
+import com.nisovin.shopkeepers.commands.lib.CommandContextView;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+
+/**
+ * Parses a region of blocks, specified by the block coordinates of two opposite corners.
+ * <p>
+ * The corners can be specified in any order. The resulting {@link BoundingBox} spans from the minimum to the maximum
+ * block coordinates (both inclusive).
+ */
+public class BlockRegionArgument extends CompoundArgument<BoundingBox> {
+
+	private final String x1Name;
+	private final String y1Name;
+	private final String z1Name;
+	private final String x2Name;
+	private final String y2Name;
+	private final String z2Name;
+
+	public BlockRegionArgument(String name) {
+		this(name, name + ":x1", name + ":y1", name + ":z1", name + ":x2", name + ":y2", name + ":z2");
+	}
+
+	private BlockRegionArgument(String name, String x1Name, String y1Name, String z1Name, String x2Name, String y2Name, String z2Name) {
+		super(name, Arrays.asList(
+				new IntegerArgument(x1Name).setDisplayName("x1"),
+				new IntegerArgument(y1Name).setDisplayName("y1"),
+				new IntegerArgument(z1Name).setDisplayName("z1"),
+				new IntegerArgument(x2Name).setDisplayName("x2"),
+				new IntegerArgument(y2Name).setDisplayName("y2"),
+				new IntegerArgument(z2Name).setDisplayName("z2")
+		));
+		this.x1Name = x1Name;
+		this.y1Name = y1Name;
+		this.z1Name = z1Name;
+		this.x2Name = x2Name;
+		this.y2Name = y2Name;
+		this.z2Name = z2Name;
+	}
+
+	@Override
+	protected BoundingBox parseCompoundValue(CommandInput input, CommandContextView localContext, ArgumentsReader args) throws ArgumentParseException {
+		int x1 = localContext.get(x1Name);
+		int y1 = localContext.get(y1Name);
+		int z1 = localContext.get(z1Name);
+		int x2 = localContext.get(x2Name);
+		int y2 = localContext.get(y2Name);
+		int z2 = localContext.get(z2Name);
+		// Normalizes the corners:
+		return new BoundingBox(x1, y1, z1, x2, y2, z2);
+	}
+}
@@ -0,0 +1,43 @@
+package com.nisovin.shopkeepers.commands.lib.arguments;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+
+import com.nisovin.shopkeepers.commands.lib.ArgumentParseException;
+import com.nisovin.shopkeepers.commands.lib.ArgumentsReader;
+import com.nisovin.shopkeepers.commands.lib.CommandArgument;
+import com.nisovin.shopkeepers.commands.lib.CommandContextView;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+
+/**
+ * Parses a date in the ISO format (<code>yyyy-MM-dd</code>).
+ * <p>
+ * Provides no completions.
+ */
+public class DateArgument extends CommandArgument<LocalDate> {
+
+	public DateArgument(String name) {
+		super(name);
+	}
+
+	@Override
+	public LocalDate parseValue(CommandInput input, CommandContextView context, ArgumentsReader argsReader) throws ArgumentParseException {
+		if (!argsReader.hasNext()) {
+			throw this.missingArgumentError();
+		}
+		String argument = argsReader.next();
+		try {
+			return LocalDate.parse(argument, DateTimeFormatter.ISO_LOCAL_DATE);
+		} catch (DateTimeParseException e) {
+			throw this.invalidArgumentError(argument);
+		}
+	}
+
+	@Override
+	public List<String> complete(CommandInput input, CommandContextView context, ArgumentsReader argsReader) {
+		return Collections.emptyList();
+	}
+}
@@ -1,8 +1,11 @@
 package com.nisovin.shopkeepers.commands.shopkeepers;
 
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -28,14 +31,19 @@ import com.nisovin.shopkeepers.commands.lib.CommandInput;
 import com.nisovin.shopkeepers.commands.lib.arguments.FirstOfArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.LiteralArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.OptionalArgument;
+import com.nisovin.shopkeepers.debug.timings.Timings;
+import com.nisovin.shopkeepers.debug.timings.TimingsRegistry;
 import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
 import com.nisovin.shopkeepers.text.Text;
-import com.nisovin.shopkeepers.util.TextUtils;
 
 class CommandCheck extends Command {
 
 	private static final String ARGUMENT_CHUNKS = "chunks";
 	private static final String ARGUMENT_ACTIVE = "active";
+	private static final String ARGUMENT_RESET_TIMINGS = "reset-timings";
+
+	// More precise than TextUtils#DECIMAL_FORMAT, since many of the timings are well below a millisecond:
+	private static final DecimalFormat TIMINGS_FORMAT = new DecimalFormat("0.####", new DecimalFormatSymbols(Locale.US));
 
 	private final SKShopkeepersPlugin plugin;
 	private final ShopkeeperRegistry shopkeeperRegistry;
@@ -57,7 +65,8 @@ class CommandCheck extends Command {
 		// arguments:
 		this.addArgument(new OptionalArgument<>(new FirstOfArgument("context", Arrays.asList(
 				new LiteralArgument(ARGUMENT_CHUNKS),
-				new LiteralArgument(ARGUMENT_ACTIVE)
+				new LiteralArgument(ARGUMENT_ACTIVE),
+				new LiteralArgument(ARGUMENT_RESET_TIMINGS)
 		), true))); // Join formats
 	}
 
@@ -66,6 +75,13 @@ class CommandCheck extends Command {
 		CommandSender sender = input.getSender();
 		boolean isConsole = (sender instanceof ConsoleCommandSender);
 
+		if (context.has(ARGUMENT_RESET_TIMINGS)) {
+			// Allows measuring the timings over a specific period of time:
+			TimingsRegistry.resetAll();
+			sender.sendMessage(ChatColor.GREEN + "The timings have been reset.");
+			return;
+		}
+
 		boolean listChunks = context.has(ARGUMENT_CHUNKS);
 		boolean listActive = context.has(ARGUMENT_ACTIVE);
 
@@ -91,30 +107,15 @@ class CommandCheck extends Command {
 		sender.sendMessage("    With active AI: " + livingEntityAI.getActiveAIEntityCount());
 		sender.sendMessage("    With active gravity: " + livingEntityAI.getActiveGravityEntityCount());
 
-		double avgTotalAITimings = livingEntityAI.getTotalTimings().getAverageTimeMillis();
-		double maxTotalAITiming = livingEntityAI.getTotalTimings().getMaxTimeMillis();
-		sender.sendMessage("  Total AI timings (avg | max): "
-				+ TextUtils.DECIMAL_FORMAT.format(avgTotalAITimings) + " ms" + " | "
-				+ TextUtils.DECIMAL_FORMAT.format(maxTotalAITiming) + " ms");
-
-		// Note: These are per activation, which happens only every 20 ticks (not per tick).
-		double avgAIActivationTimings = livingEntityAI.getActivationTimings().getAverageTimeMillis();
-		double maxAIActivationTiming = livingEntityAI.getActivationTimings().getMaxTimeMillis();
-		sender.sendMessage("    AI activation timings (per " + LivingEntityAI.AI_ACTIVATION_TICK_RATE + " ticks) (avg | max): "
-				+ TextUtils.DECIMAL_FORMAT.format(avgAIActivationTimings) + " ms" + " | "
-				+ TextUtils.DECIMAL_FORMAT.format(maxAIActivationTiming) + " ms");
-
-		double avgGravityTimings = livingEntityAI.getGravityTimings().getAverageTimeMillis();
-		double maxGravityTiming = livingEntityAI.getGravityTimings().getMaxTimeMillis();
-		sender.sendMessage("    Gravity timings (avg | max): "
-				+ TextUtils.DECIMAL_FORMAT.format(avgGravityTimings) + " ms" + " | "
-				+ TextUtils.DECIMAL_FORMAT.format(maxGravityTiming) + " ms");
-
-		double avgAITimings = livingEntityAI.getAITimings().getAverageTimeMillis();
-		double maxAITiming = livingEntityAI.getAITimings().getMaxTimeMillis();
-		sender.sendMessage("    AI timings (avg | max): "
-				+ TextUtils.DECIMAL_FORMAT.format(avgAITimings) + " ms" + " | "
-				+ TextUtils.DECIMAL_FORMAT.format(maxAITiming) + " ms");
+		sender.sendMessage(ChatColor.YELLOW + "Timings (avg | p50 | p95 | p99 | max):");
+		for (Timings timings : TimingsRegistry.getAll()) {
+			sender.sendMessage("  " + timings.getName() + " (" + timings.getCounter() + "x): "
+					+ formatMillis(timings.getAverageTimeMillis()) + " | "
+					+ formatMillis(timings.getPercentileMillis(50.0D)) + " | "
+					+ formatMillis(timings.getPercentileMillis(95.0D)) + " | "
+					+ formatMillis(timings.getPercentileMillis(99.0D)) + " | "
+					+ formatMillis(timings.getMaxTimeMillis()));
+		}
 
 		for (World world : Bukkit.getWorlds()) {
 			String worldName = world.getName();
@@ -203,4 +204,8 @@ class CommandCheck extends Command {
 			sender.sendMessage("There might be more information getting printed if the command is run from the console.");
 		}
 	}
+
+	private static String formatMillis(double millis) {
+		return TIMINGS_FORMAT.format(millis) + " ms";
+	}
 }
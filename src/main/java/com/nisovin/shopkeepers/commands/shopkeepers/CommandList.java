@@ -1,6 +1,5 @@
 package com.nisovin.shopkeepers.commands.shopkeepers;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -13,8 +12,6 @@ import org.bukkit.entity.Player;
 import com.nisovin.shopkeepers.Messages;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
-import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
-import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.commands.lib.Command;
 import com.nisovin.shopkeepers.commands.lib.CommandContextView;
 import com.nisovin.shopkeepers.commands.lib.CommandException;
@@ -28,6 +25,8 @@ import com.nisovin.shopkeepers.commands.lib.arguments.PlayerUUIDArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.PositiveIntegerArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.SenderPlayerNameFallback;
 import com.nisovin.shopkeepers.commands.lib.arguments.TransformedArgument;
+import com.nisovin.shopkeepers.shopkeeper.SKShopkeeperRegistry;
+import com.nisovin.shopkeepers.util.Page;
 import com.nisovin.shopkeepers.util.PermissionUtils;
 import com.nisovin.shopkeepers.util.PlayerUtils;
 import com.nisovin.shopkeepers.util.ShopkeeperUtils;
@@ -45,9 +44,9 @@ class CommandList extends Command {
 
 	private static final int ENTRIES_PER_PAGE = 8;
 
-	private final ShopkeeperRegistry shopkeeperRegistry;
+	private final SKShopkeeperRegistry shopkeeperRegistry;
 
-	CommandList(ShopkeeperRegistry shopkeeperRegistry) {
+	CommandList(SKShopkeeperRegistry shopkeeperRegistry) {
 		super("list");
 		this.shopkeeperRegistry = shopkeeperRegistry;
 
@@ -102,19 +101,13 @@ class CommandList extends Command {
 			this.checkPermission(sender, ShopkeepersPlugin.LIST_ADMIN_PERMISSION);
 			this.checkPermission(sender, ShopkeepersPlugin.LIST_OTHERS_PERMISSION);
 
-			shops = new ArrayList<>(shopkeeperRegistry.getAllShopkeepers());
+			// Note: We only access the shops of the requested page of this ordered view.
+			shops = shopkeeperRegistry.getAllShopkeepersOrderedById();
 		} else if (listAdminShops) {
 			// Permission check:
 			this.checkPermission(sender, ShopkeepersPlugin.LIST_ADMIN_PERMISSION);
 
-			// Searching admin shops:
-			List<Shopkeeper> adminShops = new ArrayList<>();
-			for (Shopkeeper shopkeeper : shopkeeperRegistry.getAllShopkeepers()) {
-				if (!(shopkeeper instanceof PlayerShopkeeper)) {
-					adminShops.add(shopkeeper);
-				}
-			}
-			shops = adminShops;
+			shops = shopkeeperRegistry.getAdminShopkeepersOrderedById();
 		} else {
 			// Check if the target matches the sender player:
 			boolean targetOwnShops = false;
@@ -165,9 +158,10 @@ class CommandList extends Command {
 		}
 		assert shops != null;
 
-		int shopsCount = shops.size();
-		int maxPage = Math.max(1, (int) Math.ceil((double) shopsCount / ENTRIES_PER_PAGE));
-		page = Math.max(1, Math.min(page, maxPage));
+		Page<? extends Shopkeeper> shopsPage = Page.of(shops, page, ENTRIES_PER_PAGE);
+		int shopsCount = shopsPage.getTotalCount();
+		int maxPage = shopsPage.getMaxPage();
+		page = shopsPage.getPage();
 
 		if (listAllShops) {
 			// Listing all shops:
@@ -193,16 +187,15 @@ class CommandList extends Command {
 			);
 		}
 
-		int startIndex = (page - 1) * ENTRIES_PER_PAGE;
-		int endIndex = Math.min(startIndex + ENTRIES_PER_PAGE, shopsCount);
-		for (int index = startIndex; index < endIndex; index++) {
-			Shopkeeper shopkeeper = shops.get(index);
+		int index = shopsPage.getStartIndex();
+		for (Shopkeeper shopkeeper : shopsPage.getEntries()) {
+			index++;
 			String shopName = shopkeeper.getName(); // Can be empty
 			// TODO Add shop info as hover text.
 			// TODO Add owner name/uuid as message arguments?
 			// TODO Move into shopkeeper.
 			TextUtils.sendMessage(sender, Messages.listShopsEntry,
-					"shopIndex", (index + 1),
+					"shopIndex", index,
 					"shopUUID", shopkeeper.getUniqueId().toString(),
 					// deprecated, use {shopId} instead; TODO Remove at some point
 					"shopSessionId", shopkeeper.getId(),
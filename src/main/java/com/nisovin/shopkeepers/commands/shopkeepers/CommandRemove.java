@@ -1,33 +1,40 @@
 package com.nisovin.shopkeepers.commands.shopkeepers;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
 
 import com.nisovin.shopkeepers.Messages;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.PlayerDeleteShopkeeperEvent;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
-import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
-import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopkeeper;
-import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.commands.Confirmations;
+import com.nisovin.shopkeepers.commands.arguments.ShopTypeArgument;
 import com.nisovin.shopkeepers.commands.lib.Command;
 import com.nisovin.shopkeepers.commands.lib.CommandContextView;
 import com.nisovin.shopkeepers.commands.lib.CommandException;
 import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.BlockRegionArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.FirstOfArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.LiteralArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.OptionalArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.PlayerNameArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.PlayerUUIDArgument;
 import com.nisovin.shopkeepers.commands.lib.arguments.SenderPlayerNameFallback;
+import com.nisovin.shopkeepers.commands.lib.arguments.WorldArgument;
 import com.nisovin.shopkeepers.event.ShopkeeperEventHelper;
+import com.nisovin.shopkeepers.shopkeeper.BulkShopkeeperOperation;
+import com.nisovin.shopkeepers.shopkeeper.ShopkeeperSelector;
 import com.nisovin.shopkeepers.util.PermissionUtils;
 import com.nisovin.shopkeepers.util.PlayerUtils;
 import com.nisovin.shopkeepers.util.ShopkeeperUtils;
@@ -41,15 +48,17 @@ class CommandRemove extends Command {
 	private static final String ARGUMENT_PLAYER_UUID = "player:uuid";
 	private static final String ARGUMENT_ALL = "all";
 	private static final String ARGUMENT_ADMIN = "admin";
+	private static final String ARGUMENT_WORLD = "world";
+	private static final String ARGUMENT_REGION = "region";
+	private static final String ARGUMENT_SHOP_TYPE = "shop-type";
 
-	private final ShopkeepersPlugin plugin;
-	private final ShopkeeperRegistry shopkeeperRegistry;
+	private final SKShopkeepersPlugin plugin;
 	private final Confirmations confirmations;
+	private final WorldArgument worldArgument = new WorldArgument(ARGUMENT_WORLD);
 
-	CommandRemove(ShopkeepersPlugin plugin, ShopkeeperRegistry shopkeeperRegistry, Confirmations confirmations) {
+	CommandRemove(SKShopkeepersPlugin plugin, Confirmations confirmations) {
 		super("remove", Arrays.asList("delete"));
 		this.plugin = plugin;
-		this.shopkeeperRegistry = shopkeeperRegistry;
 		this.confirmations = confirmations;
 
 		// Permission gets checked by testPermission and during execution.
@@ -69,6 +78,11 @@ class CommandRemove extends Command {
 						new SenderPlayerNameFallback(new PlayerNameArgument(ARGUMENT_PLAYER_NAME))
 				), false) // Don't join formats
 		), true, true)); // Join and reverse formats
+		// Optional filters: Only remove the shops in the specified world, within the specified region of that world (or
+		// of the sender's world), and / or of the specified shop type.
+		this.addArgument(new OptionalArgument<>(worldArgument));
+		this.addArgument(new OptionalArgument<>(new BlockRegionArgument(ARGUMENT_REGION)));
+		this.addArgument(new OptionalArgument<>(new ShopTypeArgument(ARGUMENT_SHOP_TYPE)));
 	}
 
 	@Override
@@ -89,6 +103,16 @@ class CommandRemove extends Command {
 		UUID targetPlayerUUID = context.get(ARGUMENT_PLAYER_UUID); // can be null
 		String targetPlayerName = context.get(ARGUMENT_PLAYER_NAME); // can be null
 		assert all ^ admin ^ (targetPlayerUUID != null ^ targetPlayerName != null); // xor
+		World world = context.get(ARGUMENT_WORLD); // can be null
+		BoundingBox region = context.get(ARGUMENT_REGION); // can be null
+		if (region != null && world == null) {
+			// The region is located inside the sender's world:
+			if (senderPlayer == null) {
+				throw new CommandException(worldArgument.getMissingArgumentErrorMsg());
+			}
+			world = senderPlayer.getWorld();
+		}
+		ShopType<?> shopType = context.get(ARGUMENT_SHOP_TYPE); // can be null
 
 		boolean targetOwnShops = false;
 		if (targetPlayerUUID != null || targetPlayerName != null) {
@@ -129,25 +153,24 @@ class CommandRemove extends Command {
 		// Get the affected shops:
 		// Note: Doing this before prompting the command executor for confirmation allows us to detect ambiguous player
 		// names and missing player information (the player name/uuid if only the uuid/name is specified).
+		ShopkeeperSelector selector = new ShopkeeperSelector();
+		if (region != null) {
+			assert world != null;
+			selector.inRegion(world.getName(), (int) region.getMinX(), (int) region.getMinY(), (int) region.getMinZ(),
+					(int) region.getMaxX(), (int) region.getMaxY(), (int) region.getMaxZ());
+		} else if (world != null) {
+			selector.inWorld(world.getName());
+		}
+		if (shopType != null) {
+			selector.ofType(shopType);
+		}
 		List<? extends Shopkeeper> affectedShops;
 		if (admin) {
-			// Search all admin shops:
-			List<Shopkeeper> adminShops = new ArrayList<>();
-			for (Shopkeeper shopkeeper : shopkeeperRegistry.getAllShopkeepers()) {
-				if (shopkeeper instanceof AdminShopkeeper) {
-					adminShops.add(shopkeeper);
-				}
-			}
-			affectedShops = adminShops;
+			// Select all admin shops:
+			affectedShops = selector.adminShops().select();
 		} else if (all) {
-			// Search all player shops:
-			List<Shopkeeper> playerShops = new ArrayList<>();
-			for (Shopkeeper shopkeeper : shopkeeperRegistry.getAllShopkeepers()) {
-				if (shopkeeper instanceof PlayerShopkeeper) {
-					playerShops.add(shopkeeper);
-				}
-			}
-			affectedShops = playerShops;
+			// Select all player shops:
+			affectedShops = selector.playerShops().select();
 		} else {
 			assert targetPlayerUUID != null ^ targetPlayerName != null;
 			// Search for shops owned by the target player:
@@ -165,8 +188,14 @@ class CommandRemove extends Command {
 			targetPlayerUUID = ownedPlayerShopsResult.getPlayerUUID();
 			targetPlayerName = ownedPlayerShopsResult.getPlayerName();
 
-			// Get the found shops:
-			affectedShops = ownedPlayerShopsResult.getShops();
+			// Select the shops of the target player:
+			if (targetPlayerUUID != null) {
+				affectedShops = selector.ownedBy(targetPlayerUUID).select();
+			} else {
+				// No shops found for the given player name (the uuid is known if the name matches a single shop owner):
+				assert ownedPlayerShopsResult.getShops().isEmpty();
+				affectedShops = Collections.emptyList();
+			}
 		}
 		assert affectedShops != null;
 
@@ -177,44 +206,39 @@ class CommandRemove extends Command {
 			// Note: New shops might have been created in the meantime, but the command only affects the already
 			// determined affected shops.
 			// Remove shops:
-			int actualShopCount = 0;
-			for (Shopkeeper shopkeeper : affectedShops) {
-				// Skip the shopkeeper if it no longer exists:
-				if (!shopkeeper.isValid()) continue;
-
+			// The shops are removed in batches across several ticks. Shops that no longer exist are skipped. The
+			// operation triggers a single save once all shops have been processed.
+			new BulkShopkeeperOperation(plugin, sender, affectedShops, (shopkeeper) -> {
 				if (senderPlayer != null) {
 					// Call event:
 					PlayerDeleteShopkeeperEvent deleteEvent = ShopkeeperEventHelper.callPlayerDeleteShopkeeperEvent(shopkeeper, senderPlayer);
 					if (deleteEvent.isCancelled()) {
-						continue;
+						return false;
 					}
 				}
 
 				shopkeeper.delete(senderPlayer);
-				actualShopCount += 1;
-			}
-
-			// Trigger save:
-			plugin.getShopkeeperStorage().save();
-
-			// Print the result message:
-			if (admin) {
-				// Removed all admin shops:
-				TextUtils.sendMessage(sender, Messages.removedAdminShops,
-						"shopsCount", actualShopCount
-				);
-			} else if (all) {
-				// Removed all player shops:
-				TextUtils.sendMessage(sender, Messages.removedPlayerShops,
-						"shopsCount", actualShopCount
-				);
-			} else {
-				// Removed all shops of the specified player:
-				TextUtils.sendMessage(sender, Messages.removedShopsOfPlayer,
-						"player", TextUtils.getPlayerText(finalTargetPlayerName, finalTargetPlayerUUID),
-						"shopsCount", actualShopCount
-				);
-			}
+				return true;
+			}, (actualShopCount) -> {
+				// Print the result message:
+				if (admin) {
+					// Removed all admin shops:
+					TextUtils.sendMessage(sender, Messages.removedAdminShops,
+							"shopsCount", actualShopCount
+					);
+				} else if (all) {
+					// Removed all player shops:
+					TextUtils.sendMessage(sender, Messages.removedPlayerShops,
+							"shopsCount", actualShopCount
+					);
+				} else {
+					// Removed all shops of the specified player:
+					TextUtils.sendMessage(sender, Messages.removedShopsOfPlayer,
+							"player", TextUtils.getPlayerText(finalTargetPlayerName, finalTargetPlayerUUID),
+							"shopsCount", actualShopCount
+					);
+				}
+			}).start();
 		});
 
 		// TODO Print 'no shops found' if shop count is 0?
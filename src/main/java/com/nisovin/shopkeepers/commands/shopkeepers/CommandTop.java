@@ -0,0 +1,168 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import com.nisovin.shopkeepers.Messages;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.Settings;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.statistics.TradeStatistics;
+import com.nisovin.shopkeepers.api.statistics.TradeStatistics.Period;
+import com.nisovin.shopkeepers.api.statistics.TradeStatistics.Statistic;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandContextView;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.DefaultValueFallback;
+import com.nisovin.shopkeepers.commands.lib.arguments.EnumArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.FirstOfArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.OptionalArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PlayerNameArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PlayerUUIDArgument;
+import com.nisovin.shopkeepers.util.PlayerUtils;
+import com.nisovin.shopkeepers.util.ShopkeeperUtils;
+import com.nisovin.shopkeepers.util.ShopkeeperUtils.OwnedPlayerShopsResult;
+import com.nisovin.shopkeepers.util.TextUtils;
+
+class CommandTop extends Command {
+
+	private static final String ARGUMENT_STATISTIC = "statistic";
+	private static final String ARGUMENT_PERIOD = "period";
+	private static final String ARGUMENT_PLAYER = "player";
+	private static final String ARGUMENT_PLAYER_NAME = "player:name";
+	private static final String ARGUMENT_PLAYER_UUID = "player:uuid";
+
+	private static final int MAX_ENTRIES = 10;
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandTop(SKShopkeepersPlugin plugin) {
+		super("top");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.TOP_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionTop);
+
+		// Arguments:
+		this.addArgument(new DefaultValueFallback<>(new EnumArgument<>(ARGUMENT_STATISTIC, Statistic.class), Statistic.TRADES));
+		this.addArgument(new DefaultValueFallback<>(new EnumArgument<>(ARGUMENT_PERIOD, Period.class), Period.LAST_7_DAYS));
+		// If a player is specified, only the shops of that player are listed:
+		this.addArgument(new OptionalArgument<>(new FirstOfArgument(ARGUMENT_PLAYER, Arrays.asList(
+				new PlayerUUIDArgument(ARGUMENT_PLAYER_UUID), // Accepts any uuid
+				new PlayerNameArgument(ARGUMENT_PLAYER_NAME) // Accepts any name
+		), false))); // Don't join formats
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		Statistic statistic = context.get(ARGUMENT_STATISTIC);
+		Period period = context.get(ARGUMENT_PERIOD);
+
+		if (!Settings.enableTradeStatistics) {
+			TextUtils.sendMessage(sender, Messages.tradeStatisticsDisabled);
+			return;
+		}
+
+		UUID targetPlayerUUID = context.get(ARGUMENT_PLAYER_UUID); // Can be null
+		String targetPlayerName = context.get(ARGUMENT_PLAYER_NAME); // Can be null
+		if (targetPlayerUUID != null || targetPlayerName != null) {
+			this.sendTopShopsOfPlayer(sender, statistic, period, targetPlayerUUID, targetPlayerName);
+			return;
+		}
+
+		TradeStatistics tradeStatistics = plugin.getTradeStatistics();
+		List<Shopkeeper> topShopkeepers = tradeStatistics.getTopShopkeepers(statistic, period, MAX_ENTRIES);
+		TextUtils.sendMessage(sender, Messages.topShopsHeader,
+				"statistic", statistic.name().toLowerCase(Locale.ROOT),
+				"period", period.name().toLowerCase(Locale.ROOT)
+		);
+		this.sendEntries(sender, topShopkeepers, statistic, period);
+	}
+
+	private void sendTopShopsOfPlayer(CommandSender sender, Statistic statistic, Period period, UUID targetPlayerUUID, String targetPlayerName) {
+		if (targetPlayerName != null) {
+			// If the name matches an online player, use that player (regardless of if the name is ambiguous):
+			Player onlinePlayer = Bukkit.getPlayerExact(targetPlayerName); // Note: Case insensitive.
+			if (onlinePlayer != null) {
+				targetPlayerUUID = onlinePlayer.getUniqueId();
+				targetPlayerName = onlinePlayer.getName();
+			}
+		}
+
+		// Search for shops owned by the target player:
+		OwnedPlayerShopsResult ownedPlayerShopsResult = ShopkeeperUtils.getOwnedPlayerShops(targetPlayerUUID, targetPlayerName);
+		assert ownedPlayerShopsResult != null;
+
+		// If the input name is ambiguous, we print an error and require the player to be specified by uuid:
+		Map<UUID, String> matchingShopOwners = ownedPlayerShopsResult.getMatchingShopOwners();
+		assert matchingShopOwners != null;
+		if (PlayerUtils.handleAmbiguousPlayerName(sender, targetPlayerName, matchingShopOwners.entrySet())) {
+			return;
+		}
+
+		// Get missing / exact player information:
+		targetPlayerUUID = ownedPlayerShopsResult.getPlayerUUID(); // Can be null if there are no matching shops
+		targetPlayerName = ownedPlayerShopsResult.getPlayerName();
+
+		TradeStatistics tradeStatistics = plugin.getTradeStatistics();
+		// The total also includes the trades of shops that have been removed or transferred since then:
+		long total = (targetPlayerUUID != null) ? tradeStatistics.getOwnerStatistic(targetPlayerUUID, statistic, period) : 0L;
+		TextUtils.sendMessage(sender, Messages.topShopsOfPlayerHeader,
+				"player", TextUtils.getPlayerText(targetPlayerName, targetPlayerUUID),
+				"statistic", statistic.name().toLowerCase(Locale.ROOT),
+				"period", period.name().toLowerCase(Locale.ROOT),
+				"total", total
+		);
+
+		// Sort the player's shops by their statistic value, in descending order:
+		Map<Shopkeeper, Long> values = new HashMap<>();
+		List<Shopkeeper> topShopkeepers = new ArrayList<>();
+		for (Shopkeeper shopkeeper : ownedPlayerShopsResult.getShops()) {
+			long value = tradeStatistics.getShopkeeperStatistic(shopkeeper, statistic, period);
+			if (value <= 0L) continue;
+			values.put(shopkeeper, value);
+			topShopkeepers.add(shopkeeper);
+		}
+		topShopkeepers.sort((s1, s2) -> Long.compare(values.get(s2), values.get(s1)));
+		if (topShopkeepers.size() > MAX_ENTRIES) {
+			topShopkeepers = topShopkeepers.subList(0, MAX_ENTRIES);
+		}
+		this.sendEntries(sender, topShopkeepers, statistic, period);
+	}
+
+	private void sendEntries(CommandSender sender, List<? extends Shopkeeper> topShopkeepers, Statistic statistic, Period period) {
+		if (topShopkeepers.isEmpty()) {
+			TextUtils.sendMessage(sender, Messages.topShopsNone);
+			return;
+		}
+
+		TradeStatistics tradeStatistics = plugin.getTradeStatistics();
+		int rank = 1;
+		for (Shopkeeper shopkeeper : topShopkeepers) {
+			String shopName = shopkeeper.getName(); // Can be empty
+			TextUtils.sendMessage(sender, Messages.topShopsEntry,
+					"rank", rank++,
+					"shopId", shopkeeper.getId(),
+					// See the shop list for this special case:
+					"shopName", (shopName.isEmpty() ? "" : (shopName + " ")),
+					"location", shopkeeper.getPositionString(),
+					"value", tradeStatistics.getShopkeeperStatistic(shopkeeper, statistic, period)
+			);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import com.nisovin.shopkeepers.Messages;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.commands.arguments.ShopkeeperArgument;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandContextView;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.DateArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.FirstOfArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.OptionalArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PlayerByNameArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PlayerUUIDArgument;
+import com.nisovin.shopkeepers.tradelogging.TradeLogQuery;
+import com.nisovin.shopkeepers.tradelogging.TradeLogRecord;
+import com.nisovin.shopkeepers.util.Log;
+import com.nisovin.shopkeepers.util.SchedulerUtils;
+import com.nisovin.shopkeepers.util.TextUtils;
+
+class CommandTrades extends Command {
+
+	private static final String ARGUMENT_SHOPKEEPER = "shop";
+	private static final String ARGUMENT_PLAYER_UUID = "player:uuid";
+	private static final String ARGUMENT_PLAYER = "player";
+	private static final String ARGUMENT_SINCE = "since";
+
+	private static final int DEFAULT_DAYS = 7;
+	private static final int MAX_ENTRIES = 10;
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	// Keeps track of the latest matching trades while the trade logs are read:
+	private static class LatestTrades implements Consumer<TradeLogRecord> {
+
+		private final Deque<TradeLogRecord> trades = new ArrayDeque<>(MAX_ENTRIES);
+		private int tradesCount = 0;
+
+		@Override
+		public void accept(TradeLogRecord trade) {
+			tradesCount++;
+			if (trades.size() == MAX_ENTRIES) {
+				trades.removeFirst();
+			}
+			trades.addLast(trade);
+		}
+	}
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandTrades(SKShopkeepersPlugin plugin) {
+		super("trades");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.TRADES_PERMISSION);
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionTrades);
+
+		// Arguments:
+		this.addArgument(new FirstOfArgument("target", Arrays.asList(
+				new ShopkeeperArgument(ARGUMENT_SHOPKEEPER),
+				new PlayerUUIDArgument(ARGUMENT_PLAYER_UUID), // Accepts any uuid
+				new PlayerByNameArgument(ARGUMENT_PLAYER)
+		), true, true)); // Join and reverse formats
+		this.addArgument(new OptionalArgument<>(new DateArgument(ARGUMENT_SINCE)));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		Shopkeeper shopkeeper = context.get(ARGUMENT_SHOPKEEPER); // can be null
+		UUID playerUUID = context.get(ARGUMENT_PLAYER_UUID); // can be null
+		Player player = context.get(ARGUMENT_PLAYER); // can be null
+		LocalDate since = context.get(ARGUMENT_SINCE); // can be null
+		if (since == null) {
+			since = LocalDate.now().minusDays(DEFAULT_DAYS - 1);
+		}
+
+		TradeLogQuery query;
+		String playerName = null;
+		if (shopkeeper != null) {
+			query = TradeLogQuery.shop(shopkeeper.getUniqueId(), since);
+		} else {
+			if (player != null) {
+				playerUUID = player.getUniqueId();
+				playerName = player.getName();
+			}
+			assert playerUUID != null;
+			query = TradeLogQuery.player(playerUUID, since);
+		}
+
+		// The trade logs are read asynchronously:
+		final UUID targetPlayerUUID = playerUUID;
+		final String targetPlayerName = playerName;
+		SchedulerUtils.runAsyncTaskOrOmit(plugin, () -> {
+			LatestTrades latestTrades = new LatestTrades();
+			try {
+				plugin.getStructuredTradeLogger().readTrades(query, latestTrades);
+			} catch (IOException e) {
+				Log.warning("Could not read the trade logs!", e);
+				SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> {
+					TextUtils.sendMessage(sender, Messages.tradesReadError);
+				});
+				return;
+			}
+			SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> {
+				if (shopkeeper != null) {
+					TextUtils.sendMessage(sender, Messages.tradesShopHeader,
+							"shop", shopkeeper.getId(),
+							"tradesCount", latestTrades.tradesCount,
+							"since", query.getSince().toString()
+					);
+				} else {
+					TextUtils.sendMessage(sender, Messages.tradesPlayerHeader,
+							"player", TextUtils.getPlayerText(targetPlayerName, targetPlayerUUID),
+							"tradesCount", latestTrades.tradesCount,
+							"since", query.getSince().toString()
+					);
+				}
+				this.sendTrades(sender, latestTrades);
+			});
+		});
+	}
+
+	private void sendTrades(CommandSender sender, LatestTrades latestTrades) {
+		for (TradeLogRecord trade : latestTrades.trades) {
+			LocalDateTime time = trade.getTime();
+			TradeLogRecord.Item resultItem = trade.getResultItem();
+			TradeLogRecord.Item item1 = trade.getItem1();
+			TradeLogRecord.Item item2 = trade.getItem2(); // Can be null
+			TextUtils.sendMessage(sender, Messages.tradesEntry,
+					"time", (time != null ? time.format(TIME_FORMAT) : "?"),
+					"player", trade.getPlayerName(),
+					"shopId", trade.getShopId(),
+					"resultAmount", resultItem.getAmount(),
+					"resultItem", resultItem.getType(),
+					"item1Amount", item1.getAmount(),
+					"item1", item1.getType(),
+					// Similar to the shop name in the shop list, the second item is optional:
+					"item2", (item2 != null ? " + " + item2.getAmount() + "x " + item2.getType() : "")
+			);
+		}
+		if (latestTrades.tradesCount > latestTrades.trades.size()) {
+			TextUtils.sendMessage(sender, Messages.tradesMore, "entriesCount", latestTrades.trades.size());
+		}
+	}
+}
@@ -71,8 +71,10 @@ public class ShopkeepersCommand extends BaseCommand {
 		childCommands.register(new CommandHelp(this));
 		childCommands.register(new CommandReload(plugin));
 		childCommands.register(new CommandDebug());
-		childCommands.register(new CommandList(shopkeeperRegistry));
-		childCommands.register(new CommandRemove(plugin, shopkeeperRegistry, confirmations));
+		childCommands.register(new CommandList(plugin.getShopkeeperRegistry()));
+		childCommands.register(new CommandTrades(plugin));
+		childCommands.register(new CommandTop(plugin));
+		childCommands.register(new CommandRemove(plugin, confirmations));
 		childCommands.register(new CommandGive());
 		childCommands.register(new CommandGiveCurrency());
 		childCommands.register(new CommandConvertItems());
@@ -14,6 +14,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.entity.Raider;
 import org.bukkit.inventory.ItemStack;
 
+import com.nisovin.shopkeepers.compat.api.ItemMatcher;
 import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Utils;
@@ -150,6 +151,36 @@ public final class FailedHandler implements NMSCallProvider {
 		}
 	}
 
+	@Override
+	public ItemMatcher createItemMatcher(ItemStack required) {
+		// If the required item is empty, then the provided item has to be empty as well:
+		if (ItemUtils.isEmpty(required)) return ItemUtils::isEmpty;
+		ItemStack requiredCopy = required.clone();
+		Material requiredType = requiredCopy.getType();
+		Object requiredTag;
+		try {
+			Object nmsRequired = obcAsNMSCopyMethod.invoke(null, requiredCopy);
+			requiredTag = nmsGetTagMethod.invoke(nmsRequired);
+		} catch (Exception e) {
+			// Fallback: Checking for metadata equality.
+			// Note: In this case the behavior of the matcher is no longer equivalent to minecraft's item comparison
+			// behavior!
+			return (provided) -> requiredCopy.isSimilar(provided);
+		}
+		return (provided) -> {
+			if (ItemUtils.isEmpty(provided)) return false;
+			if (provided.getType() != requiredType) return false;
+			try {
+				Object nmsProvided = obcAsNMSCopyMethod.invoke(null, provided);
+				Object providedTag = nmsGetTagMethod.invoke(nmsProvided);
+				return (Boolean) nmsAreNBTMatchingMethod.invoke(null, requiredTag, providedTag, false);
+			} catch (Exception e) {
+				// Fallback: Checking for metadata equality.
+				return requiredCopy.isSimilar(provided);
+			}
+		};
+	}
+
 	@Override
 	public void updateTrades(Player player) {
 		// Not supported.
@@ -0,0 +1,24 @@
+package com.nisovin.shopkeepers.compat.api;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Checks if provided itemstacks fulfill the requirements of a trading recipe requiring a specific itemstack.
+ * <p>
+ * Item matchers get created via {@link NMSCallProvider#createItemMatcher(ItemStack)}. They prepare the data of the
+ * required itemstack once, so that they can be cheaply reused to compare it with several provided itemstacks.
+ */
+@FunctionalInterface
+public interface ItemMatcher {
+
+	/**
+	 * Checks if the given <code>provided</code> itemstack matches the required itemstack of this matcher.
+	 * <p>
+	 * This behaves like {@link NMSCallProvider#matches(ItemStack, ItemStack)}.
+	 * 
+	 * @param provided
+	 *            the provided itemstack
+	 * @return <code>true</code> if the provided itemstack matches the required itemstack
+	 */
+	public boolean matches(ItemStack provided);
+}
@@ -1,12 +1,16 @@
 package com.nisovin.shopkeepers.compat.api;
 
 import org.bukkit.Material;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Raider;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
+import com.nisovin.shopkeepers.util.ItemUtils;
+
 public interface NMSCallProvider {
 
 	public String getVersionId();
@@ -56,6 +60,36 @@ public interface NMSCallProvider {
 	 */
 	public boolean matches(ItemStack provided, ItemStack required);
 
+	/**
+	 * Creates an {@link ItemMatcher} for the given <code>required</code> itemstack.
+	 * <p>
+	 * The returned matcher behaves like {@link #matches(ItemStack, ItemStack)}, but avoids preparing the required
+	 * itemstack for every comparison. Changes to the given itemstack after the creation of the matcher are not
+	 * reflected by the matcher.
+	 * 
+	 * @param required
+	 *            the required itemstack, can be empty
+	 * @return the item matcher
+	 */
+	public default ItemMatcher createItemMatcher(ItemStack required) {
+		ItemStack requiredCopy = ItemUtils.cloneOrNullIfEmpty(required);
+		return (provided) -> this.matches(provided, requiredCopy);
+	}
+
+	/**
+	 * Gets the inventory of the given container block without creating a snapshot of the block's state.
+	 * <p>
+	 * The returned inventory is directly backed by the container's tile entity. For double chests this only returns
+	 * the inventory of the given chest block.
+	 * 
+	 * @param containerBlock
+	 *            the container block
+	 * @return the inventory, or <code>null</code> if not supported or if the block is not a container
+	 */
+	public default Inventory getContainerInventory(Block containerBlock) {
+		return null; // Not supported by default
+	}
+
 	// Note: It is not safe to reduce the number of trading recipes! Reducing the size below the selected index can
 	// crash the client. It's left to the caller to ensure that the number of recipes does not get reduced, for example
 	// by inserting dummy entries.
@@ -0,0 +1,94 @@
+package com.nisovin.shopkeepers.container;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.inventory.Inventory;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+
+/**
+ * Informs player shopkeepers about inventory interactions that might change the contents of their shop containers.
+ * <p>
+ * This allows the shopkeepers to cache information that depends on the container contents, such as their trading
+ * recipes. Note that changes to the container contents that are not triggered by these inventory interactions (for
+ * example if other plugins or commands modify the container inventory directly) are not detected. Any information that
+ * is cached based on the container contents can therefore be outdated, and needs to be validated again before it is
+ * acted upon (for example when a trade is applied).
+ */
+public class ShopContainerChangeListener implements Listener {
+
+	private final SKShopkeepersPlugin plugin;
+	private final ProtectedContainers protectedContainers;
+	// Gets reused by onContainerChanged calls:
+	private final List<PlayerShopkeeper> tempResultsList = new ArrayList<>();
+
+	public ShopContainerChangeListener(SKShopkeepersPlugin plugin, ProtectedContainers protectedContainers) {
+		this.plugin = plugin;
+		this.protectedContainers = protectedContainers;
+	}
+
+	public void onEnable() {
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+	}
+
+	public void onDisable() {
+		HandlerList.unregisterAll(this);
+	}
+
+	// Any click or drag inside an inventory view might affect the top inventory (eg. via shift clicks or by collecting
+	// items to the cursor).
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryClick(InventoryClickEvent event) {
+		this.onContainerChanged(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryDrag(InventoryDragEvent event) {
+		this.onContainerChanged(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryMoveItem(InventoryMoveItemEvent event) {
+		this.onContainerChanged(event.getSource());
+		this.onContainerChanged(event.getDestination());
+	}
+
+	private void onContainerChanged(Inventory inventory) {
+		if (inventory == null) return;
+		// These handlers are called for every inventory click and every item transfer of hoppers. We therefore quickly
+		// rule out inventories that cannot belong to shop containers before looking up their location and block.
+		// Note: We avoid calling Inventory#getHolder here for performance reasons. For block inventories this creates a
+		// snapshot of the block's BlockState.
+		if (!ShopContainers.isSupportedContainerInventoryType(inventory.getType())) return;
+		Location inventoryLocation = inventory.getLocation(); // Can be null
+		if (inventoryLocation == null) return;
+		// Skip if there are no shop containers in or near the chunk:
+		if (!protectedContainers.mightBeProtected(inventoryLocation.getWorld().getName(), inventoryLocation.getBlockX(), inventoryLocation.getBlockZ())) {
+			return;
+		}
+		Block block = inventoryLocation.getBlock(); // Not null
+		if (!ShopContainers.isSupportedContainer(block.getType())) return;
+
+		// Also includes the shopkeepers using a connected chest (double chests):
+		protectedContainers.getShopkeepersUsingContainer(block, tempResultsList);
+		for (PlayerShopkeeper shopkeeper : tempResultsList) {
+			((AbstractPlayerShopkeeper) shopkeeper).onContainerContentsChanged();
+		}
+		// Cleanup temporary results list:
+		tempResultsList.clear();
+	}
+}
@@ -4,8 +4,12 @@ import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.Container;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.type.Chest;
+import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 
+import com.nisovin.shopkeepers.compat.NMSManager;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Validate;
 
@@ -30,6 +34,23 @@ public class ShopContainers {
 				|| ItemUtils.isShulkerBox(material);
 	}
 
+	/**
+	 * Checks if the given inventory type is the type of inventory of a supported shop container.
+	 * <p>
+	 * This is cheaper than looking up the block of an inventory and can therefore be used to quickly rule out
+	 * inventories that do not belong to shop containers. However, inventories of other types of holders (such as
+	 * storage minecarts or custom inventories) can use the same inventory types.
+	 * 
+	 * @param inventoryType
+	 *            the inventory type
+	 * @return <code>true</code> if the inventory type might belong to a supported shop container
+	 */
+	public static boolean isSupportedContainerInventoryType(InventoryType inventoryType) {
+		return inventoryType == InventoryType.CHEST
+				|| inventoryType == InventoryType.BARREL
+				|| inventoryType == InventoryType.SHULKER_BOX;
+	}
+
 	/**
 	 * Gets the {@link Inventory} of a supported type of shop container block.
 	 * <p>
@@ -46,10 +67,22 @@ public class ShopContainers {
 		Validate.notNull(containerBlock, "containerBlock is null");
 		Validate.isTrue(isSupportedContainer(containerBlock.getType()),
 				() -> "containerBlock is of unsupported type: " + containerBlock.getType());
+		// Avoid creating a snapshot of the container's BlockState if possible:
+		// Note: The combined inventory of double chests is only available via the BlockState.
+		if (!isDoubleChest(containerBlock)) {
+			Inventory inventory = NMSManager.getProvider().getContainerInventory(containerBlock); // Can be null
+			if (inventory != null) return inventory;
+		}
+
 		BlockState state = containerBlock.getState();
 		assert state instanceof Container;
 		Container container = (Container) state;
 		// Note: For double chests this returns the complete double chest inventory.
 		return container.getInventory();
 	}
+
+	private static boolean isDoubleChest(Block block) {
+		BlockData blockData = block.getBlockData();
+		return (blockData instanceof Chest) && ((Chest) blockData).getType() != Chest.Type.SINGLE;
+	}
 }
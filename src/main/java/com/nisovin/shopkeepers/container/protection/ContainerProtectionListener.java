@@ -1,6 +1,5 @@
 package com.nisovin.shopkeepers.container.protection;
 
-import java.util.Iterator;
 import java.util.List;
 
 import org.bukkit.Material;
@@ -18,6 +17,7 @@ import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 
+import com.nisovin.shopkeepers.util.ExplosionFilter;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.TextUtils;
@@ -118,12 +118,7 @@ class ContainerProtectionListener implements Listener {
 
 	// Block list has to be modifiable.
 	private void removeProtectedChests(List<Block> blockList) {
-		Iterator<Block> iterator = blockList.iterator();
-		while (iterator.hasNext()) {
-			Block block = iterator.next();
-			if (protectedContainers.isProtectedContainer(block, null)) {
-				iterator.remove();
-			}
-		}
+		ExplosionFilter.removeProtectedBlocks(blockList, protectedContainers.getProtectedChunks(),
+				block -> protectedContainers.isProtectedContainer(block, null));
 	}
 }
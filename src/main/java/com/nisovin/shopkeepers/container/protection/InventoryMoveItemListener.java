@@ -9,6 +9,8 @@ import org.bukkit.event.inventory.InventoryMoveItemEvent;
 import org.bukkit.inventory.Inventory;
 
 import com.nisovin.shopkeepers.container.ShopContainers;
+import com.nisovin.shopkeepers.debug.timings.Timings;
+import com.nisovin.shopkeepers.debug.timings.TimingsRegistry;
 
 /**
  * Prevents item movement from/to protected containers. Can be disabled via a config setting.
@@ -16,6 +18,7 @@ import com.nisovin.shopkeepers.container.ShopContainers;
 class InventoryMoveItemListener implements Listener {
 
 	private final ProtectedContainers protectedContainers;
+	private final Timings timings = TimingsRegistry.create("Inventory move item listener");
 
 	InventoryMoveItemListener(ProtectedContainers protectedContainers) {
 		this.protectedContainers = protectedContainers;
@@ -24,9 +27,11 @@ class InventoryMoveItemListener implements Listener {
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
 	void onInventoryMoveItem(InventoryMoveItemEvent event) {
 		assert event.getSource() != null && event.getDestination() != null;
+		long startTime = System.nanoTime();
 		if (this.isProtectedInventory(event.getSource()) || this.isProtectedInventory(event.getDestination())) {
 			event.setCancelled(true);
 		}
+		timings.record(System.nanoTime() - startTime);
 	}
 
 	private boolean isProtectedInventory(Inventory inventory) {
@@ -35,6 +40,12 @@ class InventoryMoveItemListener implements Listener {
 		// snapshot of the block's BlockState.
 		Location inventoryLocation = inventory.getLocation(); // can be null
 		if (inventoryLocation == null) return false;
+		// Quickly rule out inventories inside chunks without any protected containers (the vast majority), before we
+		// retrieve the block and its type:
+		if (!protectedContainers.mightBeProtected(inventoryLocation.getWorld().getName(),
+				inventoryLocation.getBlockX(), inventoryLocation.getBlockZ())) {
+			return false;
+		}
 		Block block = inventoryLocation.getBlock(); // not null
 		if (!ShopContainers.isSupportedContainer(block.getType())) return false;
 		// Also checks for protected connected chests (double chests):
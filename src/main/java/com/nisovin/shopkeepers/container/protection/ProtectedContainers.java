@@ -7,7 +7,6 @@ import java.util.List;
 import java.util.Map;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.data.type.Chest;
@@ -20,7 +19,10 @@ import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.container.ShopContainers;
+import com.nisovin.shopkeepers.util.BlockKeys;
+import com.nisovin.shopkeepers.util.ChunkIndex;
 import com.nisovin.shopkeepers.util.ItemUtils;
+import com.nisovin.shopkeepers.util.LongObjectHashMap;
 import com.nisovin.shopkeepers.util.PermissionUtils;
 import com.nisovin.shopkeepers.util.Validate;
 
@@ -62,8 +64,12 @@ public class ProtectedContainers {
 	private final SKShopkeepersPlugin plugin;
 	private final ContainerProtectionListener containerProtectionListener = new ContainerProtectionListener(this);
 	private final InventoryMoveItemListener inventoryMoveItemListener = new InventoryMoveItemListener(this);
-	// Player shopkeepers by location key:
-	private final Map<String, List<PlayerShopkeeper>> protectedContainers = new HashMap<>();
+	// Player shopkeepers by world name and block key:
+	private final Map<String, LongObjectHashMap<List<PlayerShopkeeper>>> protectedContainers = new HashMap<>();
+	// The chunks containing or adjacent to protected containers, by world name and chunk key. This allows
+	// quickly ruling out blocks inside chunks without any protected containers (including connected chests that are
+	// located in a neighboring chunk):
+	private final ChunkIndex protectedChunks = new ChunkIndex();
 
 	public ProtectedContainers(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -83,43 +89,71 @@ public class ProtectedContainers {
 		HandlerList.unregisterAll(containerProtectionListener);
 		HandlerList.unregisterAll(inventoryMoveItemListener);
 		protectedContainers.clear();
+		protectedChunks.clear();
 	}
 
-	private String getKey(String worldName, int x, int y, int z) {
-		return worldName + ";" + x + ";" + y + ";" + z;
+	/**
+	 * Quickly checks if the block at the specified coordinates might be a protected container.
+	 * <p>
+	 * This only checks if the block's chunk contains, or is adjacent to, any protected containers. If this returns
+	 * <code>false</code>, the block is definitely not protected.
+	 * 
+	 * @param worldName
+	 *            the world name
+	 * @param x
+	 *            the block's x coordinate
+	 * @param z
+	 *            the block's z coordinate
+	 * @return <code>false</code> if the block is definitely not a protected container
+	 */
+	public boolean mightBeProtected(String worldName, int x, int z) {
+		return protectedChunks.containsBlockChunk(worldName, x, z);
+	}
+
+	// The chunks containing or adjacent to protected containers:
+	ChunkIndex getProtectedChunks() {
+		return protectedChunks;
 	}
 
 	public void addContainer(String worldName, int x, int y, int z, PlayerShopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		String key = this.getKey(worldName, x, y, z);
-		List<PlayerShopkeeper> shopkeepers = protectedContainers.get(key);
+		LongObjectHashMap<List<PlayerShopkeeper>> worldContainers = protectedContainers.get(worldName);
+		if (worldContainers == null) {
+			worldContainers = new LongObjectHashMap<>();
+			protectedContainers.put(worldName, worldContainers);
+		}
+		long key = BlockKeys.getBlockKey(x, y, z);
+		List<PlayerShopkeeper> shopkeepers = worldContainers.get(key);
 		if (shopkeepers == null) {
 			shopkeepers = new ArrayList<>(1);
-			protectedContainers.put(key, shopkeepers);
+			worldContainers.put(key, shopkeepers);
+			protectedChunks.addBlock(worldName, x, z);
 		}
 		shopkeepers.add(shopkeeper);
 	}
 
 	public void removeContainer(String worldName, int x, int y, int z, PlayerShopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		String key = this.getKey(worldName, x, y, z);
-		List<PlayerShopkeeper> shopkeepers = protectedContainers.get(key);
+		LongObjectHashMap<List<PlayerShopkeeper>> worldContainers = protectedContainers.get(worldName);
+		if (worldContainers == null) return;
+		long key = BlockKeys.getBlockKey(x, y, z);
+		List<PlayerShopkeeper> shopkeepers = worldContainers.get(key);
 		if (shopkeepers == null) return;
 		shopkeepers.remove(shopkeeper);
 		if (shopkeepers.isEmpty()) {
-			protectedContainers.remove(key);
+			worldContainers.remove(key);
+			protectedChunks.removeBlock(worldName, x, z);
+			if (worldContainers.isEmpty()) {
+				protectedContainers.remove(worldName);
+			}
 		}
 	}
 
 	// Gets the shopkeepers which are directly using the container at the specified location:
 	private List<PlayerShopkeeper> _getShopkeepers(String worldName, int x, int y, int z) {
-		String key = this.getKey(worldName, x, y, z);
-		return protectedContainers.get(key);
-	}
-
-	// Gets the shopkeepers which are directly using the specified container block:
-	private List<PlayerShopkeeper> _getShopkeepers(Block block) {
-		return this._getShopkeepers(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+		LongObjectHashMap<List<PlayerShopkeeper>> worldContainers = protectedContainers.get(worldName);
+		if (worldContainers == null) return null;
+		return worldContainers.get(BlockKeys.getBlockKey(x, y, z));
 	}
 
 	// Gets the shopkeepers which are directly using the container at the specified location:
@@ -233,35 +267,44 @@ public class ProtectedContainers {
 	}
 
 	// Gets the shopkeepers which use the container at the given location (directly or by a connected chest), and adds
-	// them to the provided list:
-	private List<PlayerShopkeeper> getShopkeepersUsingContainer(Block containerBlock, List<PlayerShopkeeper> results) {
+	// them to the provided list (if not null):
+	public List<PlayerShopkeeper> getShopkeepersUsingContainer(Block containerBlock, List<PlayerShopkeeper> results) {
 		Validate.notNull(containerBlock, "containerBlock is null!");
 		// Create results list if none is provided:
 		if (results == null) {
 			results = new ArrayList<>();
 		}
 
+		LongObjectHashMap<List<PlayerShopkeeper>> worldContainers = protectedContainers.get(containerBlock.getWorld().getName());
+		if (worldContainers == null) {
+			// There are no protected containers in this world:
+			return results;
+		}
+		int x = containerBlock.getX();
+		int y = containerBlock.getY();
+		int z = containerBlock.getZ();
+
 		// Check if the block is directly used by shopkeepers:
-		List<PlayerShopkeeper> shopkeepers = this._getShopkeepers(containerBlock);
+		List<PlayerShopkeeper> shopkeepers = worldContainers.get(BlockKeys.getBlockKey(x, y, z));
 		if (shopkeepers != null) {
 			assert !shopkeepers.isEmpty();
 			results.addAll(shopkeepers);
 		}
 
 		// If the block actually is a chest, check for a connected chest:
-		Material chestType = containerBlock.getType();
-		if (ItemUtils.isChest(chestType)) {
+		// We only retrieve the chest's block data if any of the adjacent blocks is a protected container.
+		if (hasAdjacentContainer(worldContainers, x, y, z) && ItemUtils.isChest(containerBlock.getType())) {
 			Chest chestData = (Chest) containerBlock.getBlockData();
 			BlockFace chestFacing = chestData.getFacing();
 			BlockFace connectedFace = getConnectedBlockFace(chestFacing, chestData.getType());
 			if (connectedFace != null) {
-				Block connectedChest = containerBlock.getRelative(connectedFace);
 				// In case of inconsistency of the block data (i.e. connected chest missing or not mutually connected),
 				// we consider the block to be connected (and by that protected) anyways, because such inconsistencies
 				// might also occur during handling of block placements.
 				// Minecraft determines double chests by these consistency criteria:
 				// Same chest type, same facing, opposite chest type (opposite connected block faces)
-				shopkeepers = this._getShopkeepers(connectedChest);
+				long connectedKey = BlockKeys.getBlockKey(x + connectedFace.getModX(), y, z + connectedFace.getModZ());
+				shopkeepers = worldContainers.get(connectedKey);
 				if (shopkeepers != null) {
 					results.addAll(shopkeepers);
 				}
@@ -270,6 +313,14 @@ public class ProtectedContainers {
 		return results;
 	}
 
+	// Checks if any of the horizontally adjacent blocks (N, E, S, W) is directly used by shopkeepers:
+	private static boolean hasAdjacentContainer(LongObjectHashMap<List<PlayerShopkeeper>> worldContainers, int x, int y, int z) {
+		return worldContainers.containsKey(BlockKeys.getBlockKey(x, y, z - 1))
+				|| worldContainers.containsKey(BlockKeys.getBlockKey(x + 1, y, z))
+				|| worldContainers.containsKey(BlockKeys.getBlockKey(x, y, z + 1))
+				|| worldContainers.containsKey(BlockKeys.getBlockKey(x - 1, y, z));
+	}
+
 	private static BlockFace getConnectedBlockFace(BlockFace chestFacing, Type chestType) {
 		switch (chestFacing) {
 		case NORTH:
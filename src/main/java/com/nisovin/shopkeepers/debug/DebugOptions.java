@@ -20,6 +20,8 @@ public final class DebugOptions {
 	// Logs whenever we explicitly convert items to Spigot's data format. Note that this does not log when items get
 	// implicitly converted, which may happen under various circumstances.
 	public static final String itemConversions = "item-conversions";
+	// Periodically appends the recorded timings to the file 'timings.csv' inside the plugin's data folder.
+	public static final String exportTimings = "export-timings";
 
 	private DebugOptions() {
 	}
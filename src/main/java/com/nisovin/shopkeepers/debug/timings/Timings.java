@@ -0,0 +1,190 @@
+package com.nisovin.shopkeepers.debug.timings;
+
+import java.util.Arrays;
+
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Records the durations of some repeatedly executed operation.
+ * <p>
+ * The recorded durations are aggregated into a fixed-size histogram with logarithmically scaled buckets: Each
+ * power-of-two range of durations is split into eight linear sub-buckets. This bounds the relative error of the
+ * reported percentiles to roughly 12.5%, while recording a sample only requires a few bit operations and does not
+ * allocate any objects. The total, the number and the max of all recorded durations are tracked exactly.
+ * <p>
+ * The recorded data accumulates until the timings get {@link #reset() reset}.
+ * <p>
+ * This is not thread-safe and is expected to only be used from the server's main thread.
+ */
+public class Timings {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = (1 << SUB_BUCKET_BITS);
+	private static final int SUB_BUCKET_MASK = (SUB_BUCKET_COUNT - 1);
+	// Durations are non-negative longs. The first SUB_BUCKET_COUNT buckets hold the exact values 0 to
+	// SUB_BUCKET_COUNT - 1, and each following power-of-two range gets split into SUB_BUCKET_COUNT sub-buckets.
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final String name;
+	private final long[] buckets = new long[BUCKET_COUNT];
+	private long counter = 0L;
+	private long totalTime = 0L;
+	private long maxTime = 0L;
+
+	// Current timing:
+	private boolean started = false;
+	private boolean paused = false;
+	private long startTime;
+	private long elapsedTime;
+
+	/**
+	 * Creates new {@link Timings}.
+	 * <p>
+	 * Use {@link TimingsRegistry#create(String)} to create timings that are listed by the debugging command and the
+	 * timings export.
+	 *
+	 * @param name
+	 *            the name, not <code>null</code> or empty
+	 */
+	public Timings(String name) {
+		Validate.notEmpty(name, "Name is empty!");
+		this.name = name;
+	}
+
+	/**
+	 * Gets the name of these timings.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	// Current timing
+
+	public void start() {
+		assert !started && !paused;
+		// Reset:
+		started = true;
+		paused = false;
+		elapsedTime = 0L;
+		// Start timing:
+		startTime = System.nanoTime();
+	}
+
+	public void startPaused() {
+		this.start();
+		this.pause();
+	}
+
+	public void pause() {
+		assert started && !paused;
+		paused = true;
+		// Update timing:
+		elapsedTime += (System.nanoTime() - startTime);
+	}
+
+	public void resume() {
+		assert started && paused;
+		paused = false;
+		// Continue timing:
+		startTime = System.nanoTime();
+	}
+
+	public void stop() {
+		assert started;
+		if (!paused) {
+			// Update timing by pausing:
+			this.pause();
+		}
+		assert paused;
+		started = false;
+		paused = false;
+		this.record(elapsedTime);
+	}
+
+	// Recording
+
+	private static int getBucketIndex(long duration) {
+		assert duration >= 0L;
+		if (duration < SUB_BUCKET_COUNT) return (int) duration;
+		int highestBit = (63 - Long.numberOfLeadingZeros(duration)); // >= SUB_BUCKET_BITS
+		int shift = (highestBit - SUB_BUCKET_BITS);
+		int subBucket = (int) ((duration >>> shift) & SUB_BUCKET_MASK);
+		return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+	}
+
+	// Returns the largest duration that falls into the specified bucket.
+	private static long getBucketUpperBound(int bucketIndex) {
+		assert bucketIndex >= 0 && bucketIndex < BUCKET_COUNT;
+		if (bucketIndex < SUB_BUCKET_COUNT) return bucketIndex;
+		int shift = ((bucketIndex >>> SUB_BUCKET_BITS) - 1);
+		int subBucket = (bucketIndex & SUB_BUCKET_MASK);
+		long lowerBound = ((long) (SUB_BUCKET_COUNT + subBucket) << shift);
+		return lowerBound + ((1L << shift) - 1L);
+	}
+
+	/**
+	 * Records the given duration.
+	 * <p>
+	 * This can be used instead of {@link #start()} and {@link #stop()} when the duration is measured externally.
+	 *
+	 * @param durationNanos
+	 *            the duration in nanoseconds, negative durations are treated as <code>0</code>
+	 */
+	public void record(long durationNanos) {
+		long duration = Math.max(durationNanos, 0L);
+		buckets[getBucketIndex(duration)]++;
+		counter++;
+		totalTime += duration;
+		if (duration > maxTime) maxTime = duration;
+	}
+
+	public void reset() {
+		Arrays.fill(buckets, 0L);
+		counter = 0L;
+		totalTime = 0L;
+		maxTime = 0L;
+		// Note: Any currently running timing is not affected.
+	}
+
+	// Statistics
+
+	public long getCounter() {
+		return counter;
+	}
+
+	public double getAverageTimeMillis() {
+		if (counter == 0L) return 0.0D;
+		return ((double) totalTime / counter) * 1.0E-6D;
+	}
+
+	public double getMaxTimeMillis() {
+		return (maxTime * 1.0E-6D);
+	}
+
+	/**
+	 * Gets the estimated duration below which the given percentage of all recorded durations fall.
+	 * <p>
+	 * The returned value is the upper bound of the histogram bucket that contains the requested percentile, limited to
+	 * the max recorded duration.
+	 *
+	 * @param percentile
+	 *            the percentile, between <code>0</code> and <code>100</code>
+	 * @return the estimated duration in milliseconds, or <code>0</code> if nothing has been recorded yet
+	 */
+	public double getPercentileMillis(double percentile) {
+		Validate.isTrue(percentile >= 0.0D && percentile <= 100.0D, "Percentile has to be between 0 and 100!");
+		if (counter == 0L) return 0.0D;
+		// The number of samples that have to be covered (at least 1):
+		long threshold = Math.max((long) Math.ceil(counter * (percentile / 100.0D)), 1L);
+		long count = 0L;
+		for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; ++bucketIndex) {
+			count += buckets[bucketIndex];
+			if (count >= threshold) {
+				return Math.min(getBucketUpperBound(bucketIndex), maxTime) * 1.0E-6D;
+			}
+		}
+		return this.getMaxTimeMillis(); // Not expected to be reached
+	}
+}
@@ -0,0 +1,97 @@
+package com.nisovin.shopkeepers.debug.timings;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Periodically appends the current state of all registered {@link Timings} to a CSV file inside the plugin's data
+ * folder.
+ * <p>
+ * The timings get captured on the main thread, and then written to the file asynchronously.
+ */
+public class TimingsExporter {
+
+	private static final String FILE_NAME = "timings.csv";
+	private static final String HEADER = "time,name,count,avg_ms,p50_ms,p95_ms,p99_ms,max_ms";
+	private static final long EXPORT_PERIOD_TICKS = 6000L; // 5 minutes
+
+	private final SKShopkeepersPlugin plugin;
+	private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+	private BukkitTask exportTask = null;
+
+	public TimingsExporter(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		if (exportTask != null) return; // Already enabled
+		Log.info("Periodically exporting timings to '" + FILE_NAME + "'.");
+		exportTask = Bukkit.getScheduler().runTaskTimer(plugin, this::export, EXPORT_PERIOD_TICKS, EXPORT_PERIOD_TICKS);
+	}
+
+	public void onDisable() {
+		if (exportTask == null) return; // Not enabled
+		exportTask.cancel();
+		exportTask = null;
+	}
+
+	private File getFile() {
+		return new File(plugin.getSKDataFolder(), FILE_NAME);
+	}
+
+	private void export() {
+		// Capture the timings on the main thread:
+		String time = timeFormat.format(new Date());
+		List<String> lines = new ArrayList<>();
+		for (Timings timings : TimingsRegistry.getAll()) {
+			lines.add(time + ",\"" + timings.getName() + "\","
+					+ timings.getCounter() + ","
+					+ format(timings.getAverageTimeMillis()) + ","
+					+ format(timings.getPercentileMillis(50.0D)) + ","
+					+ format(timings.getPercentileMillis(95.0D)) + ","
+					+ format(timings.getPercentileMillis(99.0D)) + ","
+					+ format(timings.getMaxTimeMillis()));
+		}
+		if (lines.isEmpty()) return;
+
+		File file = this.getFile();
+		Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+			try {
+				boolean isNew = !file.exists();
+				file.getParentFile().mkdirs();
+				try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+						StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+					if (isNew) {
+						writer.write(HEADER);
+						writer.newLine();
+					}
+					for (String line : lines) {
+						writer.write(line);
+						writer.newLine();
+					}
+				}
+			} catch (IOException e) {
+				Log.warning("Could not export timings to '" + FILE_NAME + "'!", e);
+			}
+		});
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.4f", value);
+	}
+}
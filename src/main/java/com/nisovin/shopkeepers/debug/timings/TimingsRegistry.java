@@ -0,0 +1,54 @@
+package com.nisovin.shopkeepers.debug.timings;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Keeps track of all {@link Timings} which are listed by the debugging command and the timings export.
+ * <p>
+ * This is expected to only be used from the server's main thread.
+ */
+public final class TimingsRegistry {
+
+	// Ordered by registration:
+	private static final Map<String, Timings> TIMINGS = new LinkedHashMap<>();
+	private static final Collection<Timings> TIMINGS_VIEW = Collections.unmodifiableCollection(TIMINGS.values());
+
+	/**
+	 * Creates and registers new {@link Timings}.
+	 * <p>
+	 * Any previously registered timings with the same name get replaced.
+	 *
+	 * @param name
+	 *            the name of the timings, not <code>null</code> or empty
+	 * @return the new timings
+	 */
+	public static Timings create(String name) {
+		Timings timings = new Timings(name);
+		TIMINGS.remove(name); // Moves the replacement to the end
+		TIMINGS.put(name, timings);
+		return timings;
+	}
+
+	public static Timings get(String name) {
+		Validate.notNull(name, "Name is null!");
+		return TIMINGS.get(name);
+	}
+
+	public static Collection<Timings> getAll() {
+		return TIMINGS_VIEW;
+	}
+
+	public static void resetAll() {
+		for (Timings timings : TIMINGS.values()) {
+			timings.reset();
+		}
+	}
+
+	private TimingsRegistry() {
+	}
+}
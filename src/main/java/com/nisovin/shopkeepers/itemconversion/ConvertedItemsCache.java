@@ -0,0 +1,99 @@
+package com.nisovin.shopkeepers.itemconversion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import com.nisovin.shopkeepers.util.ItemUtils;
+
+/**
+ * Remembers item stacks that are known to already be in converted form.
+ * <p>
+ * Items are looked up by a fingerprint that consists of their type and the hash of their item meta. Since different
+ * items can share the same fingerprint, the cache stores a representative item for each fingerprint, and an item is
+ * only considered to be converted if it is similar to that representative. The cache is bounded and evicts the least
+ * recently used entries.
+ * <p>
+ * Converting an item that is similar to an already converted item does not change the item. Items found in this cache
+ * can therefore skip the conversion, i.e. the serialization and deserialization of their item meta. Determining the
+ * fingerprint of an item still requires a copy of its item meta.
+ */
+final class ConvertedItemsCache {
+
+	private static final int MAX_SIZE = 512;
+
+	private static final class Fingerprint {
+
+		private final Material type;
+		private final int metaHash;
+
+		Fingerprint(ItemStack item) {
+			this.type = item.getType();
+			this.metaHash = item.hasItemMeta() ? item.getItemMeta().hashCode() : 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + metaHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Fingerprint)) return false;
+			Fingerprint other = (Fingerprint) obj;
+			return type == other.type && metaHash == other.metaHash;
+		}
+	}
+
+	// Fingerprint -> converted item (with an amount of 1). Ordered by access (least recently used first):
+	private final Map<Fingerprint, ItemStack> convertedItems = new LinkedHashMap<Fingerprint, ItemStack>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Fingerprint, ItemStack> eldest) {
+			return this.size() > MAX_SIZE;
+		}
+	};
+
+	ConvertedItemsCache() {
+	}
+
+	/**
+	 * Converts the given item, unless it is already known to be in converted form or not affected by the conversion.
+	 * <p>
+	 * The given item is returned unchanged if it is found in the cache, without checking the filter. Otherwise, if the
+	 * item is accepted by the filter, it gets {@link ItemUtils#convertItem(ItemStack) converted}, and the converted item
+	 * gets added to the cache.
+	 *
+	 * @param item
+	 *            the item, not empty
+	 * @param filter
+	 *            the filter for the items that are affected by the conversion
+	 * @return the converted item, or the given item itself if it is not converted
+	 */
+	ItemStack convert(ItemStack item, Predicate<ItemStack> filter) {
+		assert !ItemUtils.isEmpty(item) && filter != null;
+		Fingerprint fingerprint = new Fingerprint(item);
+		ItemStack convertedItem = convertedItems.get(fingerprint);
+		if (convertedItem != null && convertedItem.isSimilar(item)) {
+			return item; // Already converted
+		}
+		if (!filter.test(item)) return item; // Not affected
+
+		convertedItem = ItemUtils.convertItem(item);
+		// The fingerprint of the converted item may differ from the fingerprint of the original item:
+		Fingerprint convertedFingerprint = item.isSimilar(convertedItem) ? fingerprint : new Fingerprint(convertedItem);
+		ItemStack cachedItem = convertedItem.clone();
+		cachedItem.setAmount(1);
+		convertedItems.put(convertedFingerprint, cachedItem);
+		return convertedItem;
+	}
+
+	void clear() {
+		convertedItems.clear();
+	}
+}
@@ -4,6 +4,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
 
 import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.events.ShopkeeperOpenUIEvent;
@@ -11,7 +12,10 @@ import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 
 public class ItemConversionListener implements Listener {
 
-	ItemConversionListener() {
+	private final ItemConversions itemConversions;
+
+	ItemConversionListener(ItemConversions itemConversions) {
+		this.itemConversions = itemConversions;
 	}
 
 	@EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
@@ -19,7 +23,13 @@ public class ItemConversionListener implements Listener {
 		if (!Settings.convertPlayerItems) return;
 		Player player = event.getPlayer();
 		Shopkeeper shopkeeper = event.getShopkeeper();
-		ItemConversions.convertAffectedItems(player, shopkeeper, true);
+		itemConversions.convertAffectedItems(player, shopkeeper, true);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onChunkLoad(ChunkLoadEvent event) {
+		// Queues the shop containers inside the chunk that could not be converted in the background before:
+		itemConversions.onChunkLoad(event.getChunk());
 	}
 
 	// Notes regarding converting items on more circumstances with the goal of fixing item stacking issues:
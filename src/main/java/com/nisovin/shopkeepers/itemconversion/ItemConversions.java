@@ -1,8 +1,10 @@
 package com.nisovin.shopkeepers.itemconversion;
 
+import java.util.Collection;
 import java.util.function.Predicate;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.HandlerList;
@@ -10,12 +12,13 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 import com.nisovin.shopkeepers.Messages;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.Settings;
-import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
-import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.container.ShopContainers;
 import com.nisovin.shopkeepers.debug.DebugOptions;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.TextUtils;
@@ -23,20 +26,46 @@ import com.nisovin.shopkeepers.util.Validate;
 
 public class ItemConversions {
 
-	private final ShopkeepersPlugin plugin;
-	private final ItemConversionListener listener = new ItemConversionListener();
+	private final SKShopkeepersPlugin plugin;
+	private final ItemConversionListener listener = new ItemConversionListener(this);
+	private final ConvertedItemsCache convertedItemsCache = new ConvertedItemsCache();
+	private ShopContainerConversionSweep containerConversionSweep = null; // Null if disabled
 
-	public ItemConversions(ShopkeepersPlugin plugin) {
+	public ItemConversions(SKShopkeepersPlugin plugin) {
 		assert plugin != null;
 		this.plugin = plugin;
 	}
 
 	public void onEnable() {
 		Bukkit.getPluginManager().registerEvents(listener, plugin);
+		if (Settings.convertPlayerItems && Settings.convertShopContainersOnActivation) {
+			containerConversionSweep = new ShopContainerConversionSweep(plugin, this);
+		}
 	}
 
 	public void onDisable() {
 		HandlerList.unregisterAll(listener);
+		if (containerConversionSweep != null) {
+			containerConversionSweep.onDisable();
+			containerConversionSweep = null;
+		}
+		convertedItemsCache.clear();
+	}
+
+	/**
+	 * This is called by the shopkeeper registry whenever the shopkeepers of a chunk got activated.
+	 * 
+	 * @param shopkeepers
+	 *            the activated shopkeepers
+	 */
+	public void onShopkeepersActivated(Collection<? extends AbstractShopkeeper> shopkeepers) {
+		if (containerConversionSweep == null) return;
+		containerConversionSweep.onShopkeepersActivated(shopkeepers);
+	}
+
+	void onChunkLoad(Chunk chunk) {
+		if (containerConversionSweep == null) return;
+		containerConversionSweep.onChunkLoad(chunk);
 	}
 
 	/////
@@ -63,27 +92,24 @@ public class ItemConversions {
 		}
 	}
 
-	public static int convertAffectedItems(Player player, Shopkeeper shopkeeper, boolean informPlayer) {
+	public int convertAffectedItems(Player player, Shopkeeper shopkeeper, boolean informPlayer) {
 		Validate.notNull(player, "player is null");
 		Validate.notNull(shopkeeper, "shopkeeper is null");
 
 		// Convert player items:
-		int convertedStacks = convertAffectedPlayerItems(player);
+		int convertedStacks = this.convertAffectedPlayerItems(player);
 
 		// Convert shop container items:
-		if (shopkeeper instanceof PlayerShopkeeper) {
-			PlayerShopkeeper playerShopkeeper = (PlayerShopkeeper) shopkeeper;
+		if (shopkeeper instanceof AbstractPlayerShopkeeper) {
+			AbstractPlayerShopkeeper playerShopkeeper = (AbstractPlayerShopkeeper) shopkeeper;
 			Block containerBlock = playerShopkeeper.getContainer();
 			assert containerBlock != null;
 			if (ShopContainers.isSupportedContainer(containerBlock.getType())) {
 				long start = System.nanoTime();
-				// Note: Returns the complete inventory for double chests.
-				Inventory containerInventory = ShopContainers.getInventory(containerBlock);
-				int convertedContainerStacks = convertAffectedItems(containerInventory);
-				// Note: Inventory changes are directly reflected by the container block in the world.
+				int convertedContainerStacks = this.convertContainerItems(playerShopkeeper);
 				long durationMillis = (System.nanoTime() - start) / 1000000L;
-				// Note: The conversion always has some performance impact, even if no items got actually converted. We
-				// therefore always print the debug messages to allow debugging the item conversion times.
+				// Note: The conversion always has some performance impact, even if no items got actually converted.
+				// We therefore always print the debug messages to allow debugging the item conversion times.
 				Log.debug(DebugOptions.itemConversions,
 						() -> "Converted " + convertedContainerStacks + " affected item stacks in the container of shopkeeper "
 								+ shopkeeper.getId() + ", triggered by player '" + player.getName()
@@ -102,12 +128,12 @@ public class ItemConversions {
 		return convertedStacks;
 	}
 
-	private static int convertAffectedPlayerItems(Player player) {
+	private int convertAffectedPlayerItems(Player player) {
 		Validate.notNull(player, "player is null");
 		// Convert player inventory contents (includes armor and off hand slots, and cursor):
 		Inventory inventory = player.getInventory();
 		long start = System.nanoTime();
-		int convertedStacks = convertAffectedItems(inventory);
+		int convertedStacks = this.convertAffectedItems(inventory);
 		long durationMillis = (System.nanoTime() - start) / 1000000L;
 		// Note: The conversion always has some performance impact, even if no items got actually converted. We
 		// therefore always print the debug messages to allow debugging the item conversion times.
@@ -118,13 +144,29 @@ public class ItemConversions {
 		return convertedStacks;
 	}
 
-	private static int convertAffectedItems(Inventory inventory) {
+	// The caller has to ensure that the container is supported.
+	int convertContainerItems(AbstractPlayerShopkeeper shopkeeper) {
+		// Note: Returns the complete inventory for double chests.
+		Inventory containerInventory = ShopContainers.getInventory(shopkeeper.getContainer());
+		int convertedStacks = this.convertAffectedItems(containerInventory);
+		if (convertedStacks > 0) {
+			shopkeeper.onContainerContentsChanged();
+		}
+		// Note: Inventory changes are directly reflected by the container block in the world.
+		if (containerConversionSweep != null) {
+			containerConversionSweep.onContainerConverted(shopkeeper);
+		}
+		return convertedStacks;
+	}
+
+	private int convertAffectedItems(Inventory inventory) {
 		Validate.notNull(inventory, "inventory is null");
 		int convertedStacks = 0;
 		Predicate<ItemStack> affectedItemsFilter = affectedItemsFilter();
 		if (affectedItemsFilter != NO_ITEMS_AFFECTED) {
 			// Convert items and update viewers if there have been changes:
-			convertedStacks = ItemUtils.convertItems(inventory, affectedItemsFilter, true);
+			// Items that are known to already be in converted form skip the filter and the conversion.
+			convertedStacks = ItemUtils.convertItems(inventory, null, (item) -> convertedItemsCache.convert(item, affectedItemsFilter), true);
 		}
 		return convertedStacks;
 	}
@@ -0,0 +1,153 @@
+package com.nisovin.shopkeepers.itemconversion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.container.ShopContainers;
+import com.nisovin.shopkeepers.debug.DebugOptions;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Converts the items inside the containers of player shops in the background, once the chunks of the shopkeepers get
+ * activated.
+ * <p>
+ * The activated shopkeepers are queued and processed across several ticks, limited by a time budget per tick. The
+ * sweep remembers the {@link AbstractPlayerShopkeeper#getContainerVersion() container version} of each converted
+ * container, so that the container is not converted again when its shopkeeper gets activated again, as long as the
+ * container contents have not changed since. The containers are still converted whenever a player opens the shop.
+ * <p>
+ * Shopkeepers whose container cannot be converted yet, because the world or the chunk of the container is not loaded,
+ * are deferred and queued again once the chunk of the container gets loaded. Shopkeepers whose container block is missing
+ * are dropped: There are no items to convert, and they are queued again on their next activation.
+ */
+class ShopContainerConversionSweep {
+
+	private static final long TIME_BUDGET_PER_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(2L);
+
+	private final SKShopkeepersPlugin plugin;
+	private final ItemConversions itemConversions;
+	private final Queue<AbstractPlayerShopkeeper> pendingShopkeepers = new ArrayDeque<>();
+	// Shopkeeper -> container version at the time of the last conversion:
+	// Deleted shopkeepers are automatically removed.
+	private final Map<AbstractPlayerShopkeeper, Integer> convertedContainerVersions = new WeakHashMap<>();
+	// Container chunk -> shopkeepers whose container could not be converted yet, because it is not loaded:
+	private final Map<ChunkCoords, List<AbstractPlayerShopkeeper>> deferredShopkeepers = new HashMap<>();
+	private BukkitTask task = null;
+
+	ShopContainerConversionSweep(SKShopkeepersPlugin plugin, ItemConversions itemConversions) {
+		this.plugin = plugin;
+		this.itemConversions = itemConversions;
+	}
+
+	void onDisable() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+		pendingShopkeepers.clear();
+		convertedContainerVersions.clear();
+		deferredShopkeepers.clear();
+	}
+
+	void onShopkeepersActivated(Collection<? extends AbstractShopkeeper> shopkeepers) {
+		boolean added = false;
+		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+			if (!(shopkeeper instanceof AbstractPlayerShopkeeper)) continue;
+			AbstractPlayerShopkeeper playerShopkeeper = (AbstractPlayerShopkeeper) shopkeeper;
+			if (this.isContainerConverted(playerShopkeeper)) continue;
+			pendingShopkeepers.add(playerShopkeeper);
+			added = true;
+		}
+		if (added) {
+			this.startTask();
+		}
+	}
+
+	void onChunkLoad(Chunk chunk) {
+		if (deferredShopkeepers.isEmpty()) return;
+		List<AbstractPlayerShopkeeper> shopkeepers = deferredShopkeepers.remove(new ChunkCoords(chunk));
+		if (shopkeepers == null) return;
+		pendingShopkeepers.addAll(shopkeepers);
+		this.startTask();
+	}
+
+	private void startTask() {
+		if (task == null) {
+			task = Bukkit.getScheduler().runTaskTimer(plugin, this::processPending, 1L, 1L);
+		}
+	}
+
+	// Checks if the container has not changed since its last conversion:
+	private boolean isContainerConverted(AbstractPlayerShopkeeper shopkeeper) {
+		Integer convertedContainerVersion = convertedContainerVersions.get(shopkeeper);
+		return (convertedContainerVersion != null && convertedContainerVersion == shopkeeper.getContainerVersion());
+	}
+
+	// Called after the container of the given shopkeeper has been converted:
+	void onContainerConverted(AbstractPlayerShopkeeper shopkeeper) {
+		convertedContainerVersions.put(shopkeeper, shopkeeper.getContainerVersion());
+	}
+
+	private void processPending() {
+		long startNanos = System.nanoTime();
+		int convertedContainers = 0;
+		while (!pendingShopkeepers.isEmpty()) {
+			AbstractPlayerShopkeeper shopkeeper = pendingShopkeepers.poll();
+			if (this.convertContainer(shopkeeper)) {
+				convertedContainers++;
+			}
+			if (System.nanoTime() - startNanos >= TIME_BUDGET_PER_TICK_NANOS) break;
+		}
+
+		int finalConvertedContainers = convertedContainers;
+		long durationMillis = (System.nanoTime() - startNanos) / 1000000L;
+		Log.debug(DebugOptions.itemConversions,
+				() -> "Background conversion: Converted the items of " + finalConvertedContainers + " shop containers (took "
+						+ durationMillis + " ms, " + pendingShopkeepers.size() + " pending)."
+		);
+
+		if (pendingShopkeepers.isEmpty()) {
+			task.cancel();
+			task = null;
+		}
+	}
+
+	// Returns false if the container has not been converted.
+	private boolean convertContainer(AbstractPlayerShopkeeper shopkeeper) {
+		if (!shopkeeper.isValid()) return false;
+		if (this.isContainerConverted(shopkeeper)) return false;
+		// Don't load the chunk of the container:
+		String worldName = shopkeeper.getWorldName();
+		int containerChunkX = ChunkCoords.convertBlockCoord(shopkeeper.getContainerX());
+		int containerChunkZ = ChunkCoords.convertBlockCoord(shopkeeper.getContainerZ());
+		World world = Bukkit.getWorld(worldName);
+		if (world == null || !world.isChunkLoaded(containerChunkX, containerChunkZ)) {
+			// Try again once the chunk of the container gets loaded:
+			ChunkCoords containerChunk = new ChunkCoords(worldName, containerChunkX, containerChunkZ);
+			deferredShopkeepers.computeIfAbsent(containerChunk, key -> new ArrayList<>()).add(shopkeeper);
+			return false;
+		}
+		Block containerBlock = shopkeeper.getContainer();
+		if (!ShopContainers.isSupportedContainer(containerBlock.getType())) return false; // Nothing to convert
+
+		itemConversions.convertContainerItems(shopkeeper);
+		return true;
+	}
+}
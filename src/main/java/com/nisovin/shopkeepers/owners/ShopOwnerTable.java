@@ -0,0 +1,287 @@
+package com.nisovin.shopkeepers.owners;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.pluginhandlers.CitizensHandler;
+import com.nisovin.shopkeepers.util.ConversionUtils;
+import com.nisovin.shopkeepers.util.Log;
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Keeps track of when the owners of player shops have last been seen on the server, and of their last known names.
+ * <p>
+ * The last-seen time of a player gets updated whenever the player joins or quits the server. This allows checking the
+ * activity of shop owners without having to look up their player data on disk. The last known name of a player allows
+ * detecting name changes on join without having to check the player's shops.
+ * <p>
+ * The table is persisted in the 'shop-owners.csv' file. Changes are periodically written back, and once more when the
+ * table gets disabled. Only the players that currently own shops or are online get persisted.
+ * <p>
+ * The table is only accessed and updated on the server's main thread.
+ */
+public class ShopOwnerTable {
+
+	private static final String FILE_NAME = "shop-owners.csv";
+	private static final String HEADER = "UUID,LAST_SEEN,NAME";
+	private static final long SAVE_PERIOD_TICKS = 6000L; // 5 minutes
+
+	private static class ShopOwner {
+
+		private long lastSeen = -1L; // In milliseconds since the epoch, -1 if unknown
+		private String name = null; // Null if unknown
+	}
+
+	private final SKShopkeepersPlugin plugin;
+	private final Object fileLock = new Object(); // Serializes the writing of the file
+	// Each save captures a new snapshot. Older snapshots are not written after a newer snapshot has been written:
+	private long lastSnapshotId = 0L; // Only accessed on the main thread
+	private long lastWrittenSnapshotId = 0L; // Guarded by the file lock
+	private final Map<UUID, ShopOwner> shopOwners = new HashMap<>();
+	private boolean dirty = false;
+	private BukkitTask saveTask = null;
+
+	public ShopOwnerTable(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		this.load();
+		// Already online players (eg. after a reload):
+		long now = System.currentTimeMillis();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			if (CitizensHandler.isNPC(player)) continue;
+			this.setLastSeen(player.getUniqueId(), now);
+		}
+		saveTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> this.save(true), SAVE_PERIOD_TICKS, SAVE_PERIOD_TICKS);
+	}
+
+	public void onDisable() {
+		if (saveTask != null) {
+			saveTask.cancel();
+			saveTask = null;
+		}
+		// The online players have been seen until now:
+		long now = System.currentTimeMillis();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			if (CitizensHandler.isNPC(player)) continue;
+			this.setLastSeen(player.getUniqueId(), now);
+		}
+		// Save synchronously:
+		this.save(false);
+		shopOwners.clear();
+		dirty = false;
+	}
+
+	public void onPlayerJoin(Player player) {
+		if (CitizensHandler.isNPC(player)) return;
+		this.setLastSeen(player.getUniqueId(), System.currentTimeMillis());
+	}
+
+	public void onPlayerQuit(Player player) {
+		if (CitizensHandler.isNPC(player)) return;
+		this.setLastSeen(player.getUniqueId(), System.currentTimeMillis());
+	}
+
+	private ShopOwner getOrCreateShopOwner(UUID playerUUID) {
+		return shopOwners.computeIfAbsent(playerUUID, uuid -> new ShopOwner());
+	}
+
+	private void setLastSeen(UUID playerUUID, long timestamp) {
+		this.getOrCreateShopOwner(playerUUID).lastSeen = timestamp;
+		dirty = true;
+	}
+
+	// ACTIVITY
+
+	/**
+	 * Checks if the last-seen time of the specified player is known.
+	 *
+	 * @param playerUUID
+	 *            the player's uuid
+	 * @return <code>true</code> if the last-seen time is known
+	 */
+	public boolean isKnown(UUID playerUUID) {
+		return (this.getLastSeen(playerUUID) >= 0L);
+	}
+
+	/**
+	 * Gets the time at which the specified player has last been seen on the server.
+	 * <p>
+	 * For online players, this returns the time of their last join.
+	 *
+	 * @param playerUUID
+	 *            the player's uuid
+	 * @return the last-seen time in milliseconds since the epoch, or <code>-1</code> if unknown
+	 */
+	public long getLastSeen(UUID playerUUID) {
+		ShopOwner shopOwner = shopOwners.get(playerUUID);
+		return (shopOwner != null) ? shopOwner.lastSeen : -1L;
+	}
+
+	/**
+	 * Records the last-seen time of a player whose activity has not been tracked yet.
+	 * <p>
+	 * This has no effect if the last-seen time of the player is already known.
+	 *
+	 * @param playerUUID
+	 *            the player's uuid
+	 * @param timestamp
+	 *            the last-seen time in milliseconds since the epoch
+	 */
+	public void addUnknownPlayer(UUID playerUUID, long timestamp) {
+		Validate.notNull(playerUUID, "playerUUID is null");
+		Validate.isTrue(timestamp >= 0L, "timestamp cannot be negative");
+		ShopOwner shopOwner = this.getOrCreateShopOwner(playerUUID);
+		if (shopOwner.lastSeen < 0L) {
+			shopOwner.lastSeen = timestamp;
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Checks if the specified player has not been on the server since the given time.
+	 * <p>
+	 * Online players and players whose activity is unknown are not considered inactive.
+	 *
+	 * @param playerUUID
+	 *            the player's uuid
+	 * @param timestamp
+	 *            the time in milliseconds since the epoch
+	 * @return <code>true</code> if the player is inactive
+	 */
+	public boolean isInactiveSince(UUID playerUUID, long timestamp) {
+		long playerLastSeen = this.getLastSeen(playerUUID);
+		if (playerLastSeen < 0L || playerLastSeen >= timestamp) return false;
+		return (Bukkit.getPlayer(playerUUID) == null);
+	}
+
+	// NAMES
+
+	/**
+	 * Updates the last known name of the specified player.
+	 *
+	 * @param playerUUID
+	 *            the player's uuid
+	 * @param playerName
+	 *            the player's current name
+	 * @return <code>true</code> if the name was previously unknown or differs from the given name
+	 */
+	public boolean updateName(UUID playerUUID, String playerName) {
+		Validate.notNull(playerUUID, "playerUUID is null");
+		Validate.notEmpty(playerName, "playerName is empty");
+		ShopOwner shopOwner = this.getOrCreateShopOwner(playerUUID);
+		if (playerName.equals(shopOwner.name)) return false;
+		shopOwner.name = playerName;
+		dirty = true;
+		return true;
+	}
+
+	// PERSISTENCE
+
+	private File getFile() {
+		return new File(plugin.getSKDataFolder(), FILE_NAME);
+	}
+
+	private void load() {
+		shopOwners.clear();
+		dirty = false;
+		File file = this.getFile();
+		if (!file.exists()) return;
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			Log.warning("Could not read shop owners file '" + file.getName() + "'!", e);
+			return;
+		}
+		int invalidLines = 0;
+		for (String line : lines) {
+			if (line.isEmpty() || line.equals(HEADER)) continue;
+			if (!this.loadLine(line)) {
+				invalidLines++;
+			}
+		}
+		if (invalidLines > 0) {
+			Log.warning("Ignored " + invalidLines + " invalid lines of shop owners file '" + file.getName() + "'.");
+		}
+	}
+
+	// Returns false if the line is invalid:
+	private boolean loadLine(String line) {
+		String[] columns = line.split(",", -1);
+		if (columns.length != 3) return false;
+		UUID playerUUID = ConversionUtils.parseUUID(columns[0]);
+		if (playerUUID == null) return false;
+		Long timestamp = ConversionUtils.parseLong(columns[1]);
+		if (timestamp == null) return false;
+		ShopOwner shopOwner = new ShopOwner();
+		shopOwner.lastSeen = Math.max(timestamp, -1L);
+		shopOwner.name = columns[2].isEmpty() ? null : columns[2];
+		shopOwners.put(playerUUID, shopOwner);
+		return true;
+	}
+
+	private void save(boolean async) {
+		if (!dirty) return;
+		dirty = false;
+		// Capture the data on the main thread. Players that no longer own any shops are omitted:
+		List<String> lines = new ArrayList<>(shopOwners.size());
+		for (Entry<UUID, ShopOwner> entry : shopOwners.entrySet()) {
+			UUID playerUUID = entry.getKey();
+			if (plugin.getShopkeeperRegistry().getPlayerShopkeepersByOwner(playerUUID).isEmpty()
+					&& Bukkit.getPlayer(playerUUID) == null) {
+				continue;
+			}
+			ShopOwner shopOwner = entry.getValue();
+			lines.add(playerUUID + "," + shopOwner.lastSeen + "," + (shopOwner.name != null ? shopOwner.name : ""));
+		}
+
+		long snapshotId = ++lastSnapshotId;
+		if (async) {
+			Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> this.write(snapshotId, lines));
+		} else {
+			this.write(snapshotId, lines);
+		}
+	}
+
+	private void write(long snapshotId, List<String> lines) {
+		synchronized (fileLock) {
+			// An async save that only starts writing after a newer snapshot has already been written (eg. the
+			// synchronous save during disable) would otherwise replace the file with outdated data:
+			if (snapshotId <= lastWrittenSnapshotId) return;
+			lastWrittenSnapshotId = snapshotId;
+			File file = this.getFile();
+			File tempFile = new File(file.getParentFile(), file.getName() + ".temp");
+			try {
+				file.getParentFile().mkdirs();
+				try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+					writer.write(HEADER);
+					writer.newLine();
+					for (String line : lines) {
+						writer.write(line);
+						writer.newLine();
+					}
+				}
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				Log.warning("Could not write shop owners file '" + file.getName() + "'!", e);
+			}
+		}
+	}
+}
@@ -581,7 +581,12 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 		if (preparedName == null) preparedName = "";
 		preparedName = TextUtils.colorize(preparedName);
 		preparedName = this.trimName(preparedName);
+		String oldName = this.name;
 		this.name = preparedName;
+		if (!oldName.equals(preparedName)) {
+			// Update the name index:
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().onShopkeeperNameChanged(this, oldName);
+		}
 
 		// Update shop object:
 		shopObject.setName(preparedName);
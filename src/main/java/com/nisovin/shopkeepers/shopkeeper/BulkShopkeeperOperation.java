@@ -0,0 +1,183 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.Messages;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.util.SchedulerUtils;
+import com.nisovin.shopkeepers.util.TextUtils;
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Applies an action to a list of shopkeepers, spread across several ticks.
+ * <p>
+ * Each tick, shopkeepers are processed until the time budget of the operation for that tick has been used up.
+ * Shopkeepers that are no longer valid by the time they are processed are skipped. While the operation is running, it
+ * periodically informs the command sender (if any) about its progress. Once all shopkeepers have been processed, the
+ * operation triggers a single save and then invokes its completion callback.
+ * <p>
+ * If the plugin gets disabled while operations are still running, the remaining shopkeepers of these operations are
+ * processed right away (see {@link #completeRunningOperations()}).
+ */
+public final class BulkShopkeeperOperation {
+
+	@FunctionalInterface
+	public interface Action {
+
+		/**
+		 * Applies the action to the given shopkeeper.
+		 *
+		 * @param shopkeeper
+		 *            the shopkeeper, valid
+		 * @return <code>true</code> if the shopkeeper has been affected by the action
+		 */
+		boolean apply(Shopkeeper shopkeeper);
+	}
+
+	private static final long TIME_BUDGET_PER_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(5L);
+	private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5L);
+
+	// The operations that continue in subsequent ticks:
+	private static final Set<BulkShopkeeperOperation> RUNNING_OPERATIONS = new LinkedHashSet<>();
+
+	/**
+	 * Completes all running operations by processing their remaining shopkeepers right away.
+	 * <p>
+	 * This is called when the plugin gets disabled, before the shopkeepers get saved and unloaded.
+	 */
+	public static void completeRunningOperations() {
+		// Copy, since completing the operations removes them:
+		for (BulkShopkeeperOperation operation : new ArrayList<>(RUNNING_OPERATIONS)) {
+			operation.completeNow();
+		}
+		assert RUNNING_OPERATIONS.isEmpty();
+	}
+
+	private final SKShopkeepersPlugin plugin;
+	private final CommandSender sender; // Can be null
+	private final List<? extends Shopkeeper> shopkeepers;
+	private final Action action;
+	private final IntConsumer onCompletion;
+
+	private int nextIndex = 0;
+	private int affectedCount = 0;
+	private long lastProgressNanos;
+	private BukkitTask task = null;
+	private boolean started = false;
+
+	/**
+	 * Creates a new {@link BulkShopkeeperOperation}.
+	 *
+	 * @param plugin
+	 *            the plugin
+	 * @param sender
+	 *            the command sender who gets informed about the progress, can be <code>null</code>
+	 * @param shopkeepers
+	 *            the shopkeepers to process, not modified during the operation
+	 * @param action
+	 *            the action to apply to each shopkeeper
+	 * @param onCompletion
+	 *            invoked with the number of affected shopkeepers once the operation has completed
+	 */
+	public BulkShopkeeperOperation(SKShopkeepersPlugin plugin, CommandSender sender, List<? extends Shopkeeper> shopkeepers, Action action, IntConsumer onCompletion) {
+		Validate.notNull(plugin, "plugin is null");
+		Validate.notNull(shopkeepers, "shopkeepers is null");
+		Validate.notNull(action, "action is null");
+		Validate.notNull(onCompletion, "onCompletion is null");
+		this.plugin = plugin;
+		this.sender = sender;
+		this.shopkeepers = shopkeepers;
+		this.action = action;
+		this.onCompletion = onCompletion;
+	}
+
+	/**
+	 * Starts this operation.
+	 * <p>
+	 * The first batch of shopkeepers is processed right away. If the operation cannot complete within the current
+	 * tick, it continues in the subsequent ticks.
+	 */
+	public void start() {
+		Validate.State.isTrue(!started, "The operation has already been started!");
+		started = true;
+		lastProgressNanos = System.nanoTime();
+		if (this.processBatch()) return; // Completed
+		task = SchedulerUtils.runTaskTimerOrOmit(plugin, this::onTick, 1L, 1L);
+		if (task == null) {
+			// The plugin is getting disabled: Process the remaining shopkeepers right away.
+			this.completeNow();
+		} else {
+			RUNNING_OPERATIONS.add(this);
+		}
+	}
+
+	private void onTick() {
+		if (this.processBatch()) {
+			this.stopTask();
+		}
+	}
+
+	private void stopTask() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+		RUNNING_OPERATIONS.remove(this);
+	}
+
+	// Processes the remaining shopkeepers right away.
+	private void completeNow() {
+		this.stopTask();
+		boolean completed;
+		do {
+			completed = this.processBatch();
+		} while (!completed);
+	}
+
+	// Returns true if the operation has completed.
+	private boolean processBatch() {
+		long startNanos = System.nanoTime();
+		int shopkeepersCount = shopkeepers.size();
+		while (nextIndex < shopkeepersCount) {
+			Shopkeeper shopkeeper = shopkeepers.get(nextIndex++);
+			// Skip the shopkeeper if it no longer exists:
+			if (shopkeeper.isValid() && action.apply(shopkeeper)) {
+				affectedCount++;
+			}
+			if (System.nanoTime() - startNanos >= TIME_BUDGET_PER_TICK_NANOS) break;
+		}
+
+		if (nextIndex < shopkeepersCount) {
+			long nowNanos = System.nanoTime();
+			if (nowNanos - lastProgressNanos >= PROGRESS_INTERVAL_NANOS) {
+				lastProgressNanos = nowNanos;
+				this.sendProgress();
+			}
+			return false;
+		}
+
+		// Completed: Trigger a single save.
+		plugin.getShopkeeperStorage().save();
+		onCompletion.accept(affectedCount);
+		return true;
+	}
+
+	private void sendProgress() {
+		if (sender == null) return;
+		if (sender instanceof Player && !((Player) sender).isOnline()) return;
+		TextUtils.sendMessage(sender, Messages.bulkOperationProgress,
+				"processedCount", nextIndex,
+				"shopsCount", shopkeepers.size()
+		);
+	}
+}
@@ -1,5 +1,6 @@
 package com.nisovin.shopkeepers.shopkeeper;
 
+import java.util.AbstractList;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -9,7 +10,9 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
@@ -36,6 +39,8 @@ import com.nisovin.shopkeepers.api.shopobjects.ShopObject;
 import com.nisovin.shopkeepers.api.shopobjects.ShopObjectType;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.debug.DebugOptions;
+import com.nisovin.shopkeepers.debug.timings.Timings;
+import com.nisovin.shopkeepers.debug.timings.TimingsRegistry;
 import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
 import com.nisovin.shopkeepers.shopobjects.block.AbstractBlockShopObjectType;
@@ -202,12 +207,16 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	private final SKShopkeepersPlugin plugin;
 
+	private final Timings tickTimings = TimingsRegistry.create("Shopkeeper ticking");
+	private final Timings chunkActivationTimings = TimingsRegistry.create("Chunk activation");
+
 	// All shopkeepers:
 	private final Map<UUID, AbstractShopkeeper> shopkeepersByUUID = new LinkedHashMap<>();
 	private final Collection<AbstractShopkeeper> allShopkeepersView = Collections.unmodifiableCollection(shopkeepersByUUID.values());
 	private final Map<Integer, AbstractShopkeeper> shopkeepersById = new HashMap<>();
 
-	// TODO Shopkeepers by name TreeMap to speedup name lookups and prefix matching?
+	// By unique id and name, for prefix matching:
+	private final ShopkeeperPrefixIndex prefixIndex = new ShopkeeperPrefixIndex();
 	// TODO TreeMaps for shopkeeper owners by name and uuid to speedup prefix matching?
 
 	// Virtual shopkeepers:
@@ -219,23 +228,13 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	private final Map<String, WorldShopkeepers> shopkeepersByWorld = new LinkedHashMap<>();
 	private final Set<String> shopkeeperWorldsView = Collections.unmodifiableSet(shopkeepersByWorld.keySet());
 
-	// Player shopkeepers:
-	private int playerShopCount = 0;
-	// Note: Already unmodifiable.
-	private final Set<AbstractPlayerShopkeeper> allPlayerShopkeepersView = new AbstractSet<AbstractPlayerShopkeeper>() {
-		@Override
-		public Iterator<AbstractPlayerShopkeeper> iterator() {
-			return getAllShopkeepers().stream()
-					.filter(shopkeeper -> shopkeeper instanceof PlayerShopkeeper)
-					.map(shopkeeper -> (AbstractPlayerShopkeeper) shopkeeper)
-					.iterator();
-		}
-
-		@Override
-		public int size() {
-			return playerShopCount;
-		}
-	};
+	// Ordered by shopkeeper id:
+	private final ShopkeeperIdIndex<AbstractShopkeeper> allShopkeepersById = new ShopkeeperIdIndex<>();
+	private final ShopkeeperIdIndex<AbstractShopkeeper> adminShopkeepersById = new ShopkeeperIdIndex<>();
+	private final ShopkeeperIdIndex<AbstractPlayerShopkeeper> playerShopkeepersById = new ShopkeeperIdIndex<>();
+	// Owner uuid -> player shopkeepers, ordered by shopkeeper id. Empty entries get removed.
+	private final Map<UUID, ShopkeeperIdIndex<AbstractPlayerShopkeeper>> playerShopkeepersByOwner = new HashMap<>();
+	private final Set<UUID> playerShopOwnersView = Collections.unmodifiableSet(playerShopkeepersByOwner.keySet());
 
 	// TODO This may become out-of-sync if shop objects get despawned or removed independently, problem? potential
 	// memory leak?
@@ -274,7 +273,11 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		shopkeepersByWorld.clear();
 		virtualShopkeepers.clear();
 		activeShopkeepers.clear();
-		playerShopCount = 0;
+		allShopkeepersById.clear();
+		adminShopkeepersById.clear();
+		playerShopkeepersById.clear();
+		playerShopkeepersByOwner.clear();
+		prefixIndex.clear();
 	}
 
 	// PERIODIC TASKS
@@ -289,15 +292,16 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 				boolean update = shopkeeper.getShopObject().check();
 				if (update) { // TODO Remove return boolean and instead compare old with current object id?
 					// If the shopkeeper had to be respawned its shop id changed.
-					// This removes the entry which was stored with the old shop id and later adds back the
+					// This later removes the entry which was stored with the old shop id and adds back the
 					// shopkeeper with its new id.
 					readd.add(shopkeeper);
-					iter.remove();
 				}
 			}
 			if (!readd.isEmpty()) {
 				boolean dirty = false;
 				for (AbstractShopkeeper shopkeeper : readd) {
+					// Deactivate by old object id:
+					this._deactivateShopkeeper(shopkeeper);
 					if (shopkeeper.getShopObject().isActive()) {
 						this._activateShopkeeper(shopkeeper);
 					}
@@ -358,6 +362,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	private void startShopkeeperTickTask() {
 		Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+			tickTimings.start();
 			// Prevents concurrent modification errors by making copies of the iterated data:
 			// The copies are required because the worlds, active chunks and chunk shopkeepers may change if shopkeepers
 			// get removed or chunks get loaded (which cannot be safely avoided).
@@ -374,6 +379,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			if (dirty) {
 				this.getShopkeeperStorage().save();
 			}
+			tickTimings.stop();
 		}, 20L, 20L); // 1 second
 	}
 
@@ -464,10 +470,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			chunkEntry = this.addShopkeeperToChunk(shopkeeper, chunkCoords);
 		}
 
-		// Update player shop count:
-		if (shopkeeper instanceof PlayerShopkeeper) {
-			playerShopCount++;
-		}
+		// Add to the ordered indexes:
+		this.addShopkeeperToIdIndexes(shopkeeper);
 
 		// Inform shopkeeper:
 		shopkeeper.informAdded(cause);
@@ -529,10 +533,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			this.removeShopkeeperFromChunk(shopkeeper, chunkCoords);
 		}
 
-		// Update player shop count:
-		if (shopkeeper instanceof PlayerShopkeeper) {
-			playerShopCount--;
-		}
+		// Remove from the ordered indexes:
+		this.removeShopkeeperFromIdIndexes(shopkeeper);
 
 		// Remove shopkeeper from storage:
 		this.getShopkeeperStorage().clearShopkeeperData(shopkeeper);
@@ -551,6 +553,63 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		}
 	}
 
+	private void addShopkeeperToIdIndexes(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		allShopkeepersById.add(shopkeeper);
+		prefixIndex.add(shopkeeper);
+		if (shopkeeper instanceof PlayerShopkeeper) {
+			AbstractPlayerShopkeeper playerShopkeeper = (AbstractPlayerShopkeeper) shopkeeper;
+			playerShopkeepersById.add(playerShopkeeper);
+			this.addPlayerShopkeeperToOwnerIndex(playerShopkeeper, playerShopkeeper.getOwnerUUID());
+		} else {
+			adminShopkeepersById.add(shopkeeper);
+		}
+	}
+
+	private void removeShopkeeperFromIdIndexes(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		allShopkeepersById.remove(shopkeeper);
+		prefixIndex.remove(shopkeeper);
+		if (shopkeeper instanceof PlayerShopkeeper) {
+			AbstractPlayerShopkeeper playerShopkeeper = (AbstractPlayerShopkeeper) shopkeeper;
+			playerShopkeepersById.remove(playerShopkeeper);
+			this.removePlayerShopkeeperFromOwnerIndex(playerShopkeeper, playerShopkeeper.getOwnerUUID());
+		} else {
+			adminShopkeepersById.remove(shopkeeper);
+		}
+	}
+
+	private void addPlayerShopkeeperToOwnerIndex(AbstractPlayerShopkeeper shopkeeper, UUID ownerUUID) {
+		assert shopkeeper != null && ownerUUID != null;
+		playerShopkeepersByOwner.computeIfAbsent(ownerUUID, key -> new ShopkeeperIdIndex<>()).add(shopkeeper);
+	}
+
+	private void removePlayerShopkeeperFromOwnerIndex(AbstractPlayerShopkeeper shopkeeper, UUID ownerUUID) {
+		assert shopkeeper != null && ownerUUID != null;
+		ShopkeeperIdIndex<AbstractPlayerShopkeeper> ownerShopkeepers = playerShopkeepersByOwner.get(ownerUUID);
+		if (ownerShopkeepers == null) return;
+		ownerShopkeepers.remove(shopkeeper);
+		if (ownerShopkeepers.isEmpty()) {
+			playerShopkeepersByOwner.remove(ownerUUID);
+		}
+	}
+
+	// Called by player shopkeepers when their owner changes.
+	public void onPlayerShopkeeperOwnerChanged(AbstractPlayerShopkeeper shopkeeper, UUID oldOwnerUUID) {
+		assert shopkeeper != null;
+		if (!shopkeeper.isValid()) return; // Not yet (or no longer) indexed
+		assert oldOwnerUUID != null;
+		this.removePlayerShopkeeperFromOwnerIndex(shopkeeper, oldOwnerUUID);
+		this.addPlayerShopkeeperToOwnerIndex(shopkeeper, shopkeeper.getOwnerUUID());
+	}
+
+	// Called by shopkeepers when their name changes.
+	public void onShopkeeperNameChanged(AbstractShopkeeper shopkeeper, String oldName) {
+		assert shopkeeper != null;
+		if (!shopkeeper.isValid()) return; // Not yet (or no longer) indexed
+		prefixIndex.onNameChanged(shopkeeper, oldName);
+	}
+
 	private void unloadShopkeeper(AbstractShopkeeper shopkeeper) {
 		assert shopkeeper != null && shopkeeper.isValid();
 		this.removeShopkeeper(shopkeeper, ShopkeeperRemoveEvent.Cause.UNLOAD);
@@ -634,6 +693,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		}
 		chunkEntry.cancelActivationTask(); // Stop pending activation if any
 		chunkEntry.active = true; // Mark chunk active
+		long startTime = System.nanoTime();
 
 		// Inform shopkeepers:
 		for (AbstractShopkeeper shopkeeper : chunkEntry.shopkeepers) {
@@ -642,6 +702,10 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 		// Spawn shopkeepers:
 		this.spawnShopkeepers(chunkEntry, false);
+
+		// Queue the containers of player shopkeepers for the background item conversion (if enabled):
+		plugin.getItemConversions().onShopkeepersActivated(chunkEntry.shopkeepers);
+		chunkActivationTimings.record(System.nanoTime() - startTime);
 	}
 
 	private void spawnShopkeepers(ChunkShopkeepers chunkEntry, boolean worldSavingFinished) {
@@ -915,6 +979,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			// activate shopkeeper:
 			activeShopkeepers.put(objectId, shopkeeper);
 			shopkeeper.getShopObject().setLastId(objectId); // Remember object id
+			shopkeeper.getShopObject().onActivation();
 			return true;
 		}
 	}
@@ -926,6 +991,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			shopkeeper.getShopObject().setLastId(null);
 			if (activeShopkeepers.get(objectId) == shopkeeper) {
 				activeShopkeepers.remove(objectId);
+				shopkeeper.getShopObject().onDeactivation();
 				return true;
 			}
 		}
@@ -952,6 +1018,39 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		return virtualShopkeepersView;
 	}
 
+	/**
+	 * Gets all shopkeepers, ordered by their {@link AbstractShopkeeper#getId() ids}.
+	 * <p>
+	 * The returned list supports fast random access, which allows it to be efficiently paginated.
+	 *
+	 * @return an unmodifiable view on the shopkeepers
+	 */
+	public List<? extends AbstractShopkeeper> getAllShopkeepersOrderedById() {
+		return allShopkeepersById.getView();
+	}
+
+	/**
+	 * Gets all admin shopkeepers, ordered by their {@link AbstractShopkeeper#getId() ids}.
+	 * <p>
+	 * Admin shopkeepers are all shopkeepers that are not {@link PlayerShopkeeper player shopkeepers}.
+	 *
+	 * @return an unmodifiable view on the admin shopkeepers
+	 * @see #getAllShopkeepersOrderedById()
+	 */
+	public List<? extends AbstractShopkeeper> getAdminShopkeepersOrderedById() {
+		return adminShopkeepersById.getView();
+	}
+
+	/**
+	 * Gets all player shopkeepers, ordered by their {@link AbstractShopkeeper#getId() ids}.
+	 *
+	 * @return an unmodifiable view on the player shopkeepers
+	 * @see #getAllShopkeepersOrderedById()
+	 */
+	public List<? extends AbstractPlayerShopkeeper> getPlayerShopkeepersOrderedById() {
+		return playerShopkeepersById.getView();
+	}
+
 	@Override
 	public AbstractShopkeeper getShopkeeperByUniqueId(UUID shopkeeperUniqueId) {
 		return shopkeepersByUUID.get(shopkeeperUniqueId);
@@ -966,66 +1065,119 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	@Override
 	public Collection<? extends AbstractPlayerShopkeeper> getAllPlayerShopkeepers() {
-		return allPlayerShopkeepersView;
+		return playerShopkeepersById.getView();
 	}
 
+	// The returned list is ordered by shopkeeper id and supports random access. Since the index entries of owners get
+	// removed once they no longer own any shopkeepers (and are created anew once they own shopkeepers again), the
+	// returned view looks up the owner's current index entry whenever it is accessed.
 	@Override
-	public Collection<? extends AbstractPlayerShopkeeper> getPlayerShopkeepersByOwner(UUID ownerUUID) {
+	public List<? extends AbstractPlayerShopkeeper> getPlayerShopkeepersByOwner(UUID ownerUUID) {
 		Validate.notNull(ownerUUID, "Owner UUID is null!");
-		// TODO Improve? Maybe keep an index of player shops? or even index by owner?
 		// Note: Already unmodifiable.
-		return new AbstractSet<AbstractPlayerShopkeeper>() {
-			private Stream<AbstractPlayerShopkeeper> createStream() {
-				return getAllShopkeepers().stream()
-						.filter(shopkeeper -> shopkeeper instanceof PlayerShopkeeper)
-						.map(shopkeeper -> (AbstractPlayerShopkeeper) shopkeeper)
-						.filter(shopkeeper -> shopkeeper.getOwnerUUID().equals(ownerUUID));
-			}
+		return new OwnerShopkeepersView(ownerUUID);
+	}
 
-			@Override
-			public Iterator<AbstractPlayerShopkeeper> iterator() {
-				return this.createStream().iterator();
-			}
+	private final class OwnerShopkeepersView extends AbstractList<AbstractPlayerShopkeeper> implements RandomAccess {
 
-			@Override
-			public int size() {
-				return this.createStream().mapToInt(shopkeeper -> 1).sum();
-			}
-		};
+		private final UUID ownerUUID;
+
+		OwnerShopkeepersView(UUID ownerUUID) {
+			this.ownerUUID = ownerUUID;
+		}
+
+		private List<AbstractPlayerShopkeeper> getOwnerShopkeepers() {
+			ShopkeeperIdIndex<AbstractPlayerShopkeeper> ownerShopkeepers = playerShopkeepersByOwner.get(ownerUUID);
+			if (ownerShopkeepers == null) return Collections.emptyList();
+			return ownerShopkeepers.getView();
+		}
+
+		@Override
+		public AbstractPlayerShopkeeper get(int index) {
+			return this.getOwnerShopkeepers().get(index);
+		}
+
+		@Override
+		public int size() {
+			return this.getOwnerShopkeepers().size();
+		}
+
+		@Override
+		public Iterator<AbstractPlayerShopkeeper> iterator() {
+			// Avoids looking up the index entry for every element:
+			return this.getOwnerShopkeepers().iterator();
+		}
+	}
+
+	/**
+	 * Gets the uuids of all players that own player shopkeepers.
+	 *
+	 * @return an unmodifiable view on the uuids of the shop owners
+	 */
+	public Set<UUID> getPlayerShopOwners() {
+		return playerShopOwnersView;
 	}
 
 	// BY NAME
 
 	@Override
 	public Stream<? extends AbstractShopkeeper> getShopkeepersByName(String shopName) {
-		String normalizedShopName = StringUtils.normalize(TextUtils.stripColor(shopName));
+		String normalizedShopName = ShopkeeperPrefixIndex.normalizeName(shopName);
 		if (StringUtils.isEmpty(normalizedShopName)) return Stream.empty();
-
-		// TODO Improve via (Tree)Map?
-		return this.getAllShopkeepers().stream().filter(shopkeeper -> {
-			String shopkeeperName = shopkeeper.getName(); // Can be empty
-			if (shopkeeperName.isEmpty()) return false; // Has no name, filter
-
-			shopkeeperName = TextUtils.stripColor(shopkeeperName);
-			shopkeeperName = StringUtils.normalize(shopkeeperName);
-			return (shopkeeperName.equals(normalizedShopName)); // Include shopkeeper if name matches
-		});
+		return prefixIndex.getShopkeepersByName(normalizedShopName);
 	}
 
 	@Override
 	public Stream<? extends AbstractShopkeeper> getShopkeepersByNamePrefix(String shopNamePrefix) {
-		String normalizedShopNamePrefix = StringUtils.normalize(TextUtils.stripColor(shopNamePrefix));
+		String normalizedShopNamePrefix = ShopkeeperPrefixIndex.normalizeName(shopNamePrefix);
 		if (StringUtils.isEmpty(normalizedShopNamePrefix)) return Stream.empty();
-
-		// TODO Improve via TreeMap?
-		return this.getAllShopkeepers().stream().filter(shopkeeper -> {
-			String shopkeeperName = shopkeeper.getName(); // Can be empty
-			if (shopkeeperName.isEmpty()) return false; // Has no name, filter
-
-			shopkeeperName = TextUtils.stripColor(shopkeeperName);
-			shopkeeperName = StringUtils.normalize(shopkeeperName);
-			return (shopkeeperName.startsWith(normalizedShopNamePrefix)); // Include shopkeeper if name matches
-		});
+		return prefixIndex.getShopkeepersByNamePrefix(normalizedShopNamePrefix);
+	}
+
+	/**
+	 * Gets the shopkeepers whose normalized names start with the given normalized prefix.
+	 * <p>
+	 * Unlike {@link #getShopkeepersByNamePrefix(String)}, an empty prefix matches all shopkeepers that have a name.
+	 * Only the shopkeepers with matching names are checked, which makes this suited for completing shopkeeper names.
+	 *
+	 * @param normalizedNamePrefix
+	 *            the {@link StringUtils#normalize(String) normalized} name prefix, without colors, not
+	 *            <code>null</code>
+	 * @return the matching shopkeepers, ordered by their normalized names
+	 */
+	public Stream<? extends AbstractShopkeeper> getShopkeepersByNormalizedNamePrefix(String normalizedNamePrefix) {
+		Validate.notNull(normalizedNamePrefix, "normalizedNamePrefix is null");
+		return prefixIndex.getShopkeepersByNamePrefix(normalizedNamePrefix);
+	}
+
+	// BY ID AND UNIQUE ID PREFIX
+
+	/**
+	 * Gets the shopkeepers whose {@link AbstractShopkeeper#getId() ids} start with the given prefix.
+	 * <p>
+	 * Shopkeepers with shorter ids are returned first. Only the shopkeepers with matching ids are checked.
+	 *
+	 * @param idPrefix
+	 *            the id prefix, can be empty to match all shopkeepers, not <code>null</code>
+	 * @return the matching shopkeepers
+	 */
+	public Stream<? extends AbstractShopkeeper> getShopkeepersByIdPrefix(String idPrefix) {
+		Validate.notNull(idPrefix, "idPrefix is null");
+		return allShopkeepersById.getShopkeepersByIdPrefix(idPrefix);
+	}
+
+	/**
+	 * Gets the shopkeepers whose {@link AbstractShopkeeper#getUniqueId() unique ids} start with the given prefix.
+	 * <p>
+	 * The prefix is matched case-insensitively. Only the shopkeepers with matching unique ids are checked.
+	 *
+	 * @param uuidPrefix
+	 *            the unique id prefix, can be empty to match all shopkeepers, not <code>null</code>
+	 * @return the matching shopkeepers, ordered by their unique ids
+	 */
+	public Stream<? extends AbstractShopkeeper> getShopkeepersByUniqueIdPrefix(String uuidPrefix) {
+		Validate.notNull(uuidPrefix, "uuidPrefix is null");
+		return prefixIndex.getShopkeepersByUUIDPrefix(uuidPrefix.toLowerCase(Locale.ROOT));
 	}
 
 	// BY WORLD
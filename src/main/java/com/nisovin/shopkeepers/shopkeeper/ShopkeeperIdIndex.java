@@ -0,0 +1,155 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A list of shopkeepers that is kept sorted by their {@link AbstractShopkeeper#getId() ids}.
+ * <p>
+ * Shopkeeper ids are assigned in increasing order, so new shopkeepers are usually appended to the end of the list.
+ * Removals need to shift the subsequent shopkeepers, which is cheap even for large numbers of shopkeepers. In return,
+ * the index provides random access to its shopkeepers, which allows for pagination in constant time.
+ *
+ * @param <T>
+ *            the type of shopkeeper
+ */
+final class ShopkeeperIdIndex<T extends AbstractShopkeeper> {
+
+	private final List<T> shopkeepers = new ArrayList<>();
+	private final List<T> shopkeepersView = Collections.unmodifiableList(shopkeepers);
+
+	ShopkeeperIdIndex() {
+	}
+
+	// Returns the index of the shopkeeper with the given id, or (-(insertion point) - 1) if there is no such
+	// shopkeeper.
+	private int indexOf(int shopkeeperId) {
+		int low = 0;
+		int high = shopkeepers.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midId = shopkeepers.get(mid).getId();
+			if (midId < shopkeeperId) {
+				low = mid + 1;
+			} else if (midId > shopkeeperId) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	// Returns the index of the first shopkeeper with an id greater than or equal to the given id:
+	private int lowerBound(long shopkeeperId) {
+		if (shopkeeperId > Integer.MAX_VALUE) return shopkeepers.size();
+		int index = this.indexOf((int) shopkeeperId);
+		return (index >= 0) ? index : -(index + 1);
+	}
+
+	void add(T shopkeeper) {
+		assert shopkeeper != null;
+		int shopkeeperId = shopkeeper.getId();
+		int size = shopkeepers.size();
+		// Fast path: Append new shopkeepers.
+		if (size == 0 || shopkeepers.get(size - 1).getId() < shopkeeperId) {
+			shopkeepers.add(shopkeeper);
+			return;
+		}
+		int index = this.indexOf(shopkeeperId);
+		assert index < 0; // Not yet contained
+		shopkeepers.add(-(index + 1), shopkeeper);
+	}
+
+	boolean remove(T shopkeeper) {
+		assert shopkeeper != null;
+		int index = this.indexOf(shopkeeper.getId());
+		if (index < 0 || shopkeepers.get(index) != shopkeeper) return false;
+		shopkeepers.remove(index);
+		return true;
+	}
+
+	int size() {
+		return shopkeepers.size();
+	}
+
+	boolean isEmpty() {
+		return shopkeepers.isEmpty();
+	}
+
+	// Unmodifiable view, sorted by shopkeeper id. Supports random access.
+	List<T> getView() {
+		return shopkeepersView;
+	}
+
+	/**
+	 * Gets the shopkeepers whose ids (in their decimal String representation) start with the given prefix.
+	 * <p>
+	 * The matching ids are located in one contiguous range per id length (eg. for prefix <code>2</code>: 2, 20-29,
+	 * 200-299, ..). The shopkeepers are therefore returned ordered by the length of their ids first, and then by their
+	 * ids. The returned stream is lazily evaluated and only needs to check the shopkeepers that it actually returns.
+	 *
+	 * @param idPrefix
+	 *            the id prefix, can be empty to match all shopkeepers
+	 * @return the matching shopkeepers
+	 */
+	Stream<T> getShopkeepersByIdPrefix(String idPrefix) {
+		assert idPrefix != null;
+		if (idPrefix.isEmpty()) return shopkeepersView.stream();
+		// Ids are positive and don't start with zeros:
+		if (idPrefix.charAt(0) == '0' || idPrefix.length() > 10) return Stream.empty();
+		for (int i = 0; i < idPrefix.length(); ++i) {
+			char c = idPrefix.charAt(i);
+			if (c < '0' || c > '9') return Stream.empty();
+		}
+		long prefixValue = Long.parseLong(idPrefix);
+		Iterator<T> iterator = new IdPrefixIterator(prefixValue);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	private final class IdPrefixIterator implements Iterator<T> {
+
+		// The current range of matching ids (inclusive):
+		private long rangeStart;
+		private long rangeEnd;
+		private int nextIndex;
+		private int endIndex; // Exclusive
+
+		IdPrefixIterator(long prefixValue) {
+			this.rangeStart = prefixValue;
+			this.rangeEnd = prefixValue;
+			this.nextIndex = lowerBound(rangeStart);
+			this.endIndex = lowerBound(rangeEnd + 1);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (nextIndex >= endIndex) {
+				// Continue with the range of ids with one more digit:
+				rangeStart = rangeStart * 10;
+				rangeEnd = rangeEnd * 10 + 9;
+				if (rangeStart > Integer.MAX_VALUE) return false;
+				nextIndex = lowerBound(rangeStart);
+				endIndex = lowerBound(rangeEnd + 1);
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (!this.hasNext()) throw new NoSuchElementException();
+			return shopkeepers.get(nextIndex++);
+		}
+	}
+
+	void clear() {
+		shopkeepers.clear();
+	}
+}
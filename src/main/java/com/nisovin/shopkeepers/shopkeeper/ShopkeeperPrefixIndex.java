@@ -0,0 +1,108 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.nisovin.shopkeepers.util.StringUtils;
+import com.nisovin.shopkeepers.util.TextUtils;
+
+/**
+ * Indexes shopkeepers by their unique id and their normalized name in sorted maps.
+ * <p>
+ * All keys that start with a certain prefix are located in a contiguous range of a sorted map. Looking up the first
+ * few shopkeepers with a given prefix therefore does not require checking all shopkeepers.
+ */
+final class ShopkeeperPrefixIndex {
+
+	// Strings that start with a certain prefix are sorted before the prefix followed by this character:
+	private static final char MAX_CHAR = Character.MAX_VALUE;
+
+	/**
+	 * Normalizes the given shopkeeper name for the purpose of name lookups.
+	 * <p>
+	 * This strips colors and {@link StringUtils#normalize(String) normalizes} the name.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the normalized name
+	 */
+	static String normalizeName(String name) {
+		return StringUtils.normalize(TextUtils.stripColor(name));
+	}
+
+	private static <V> NavigableMap<String, V> getPrefixRange(NavigableMap<String, V> map, String prefix) {
+		return map.subMap(prefix, true, prefix + MAX_CHAR, false);
+	}
+
+	// Unique id String -> shopkeeper
+	private final NavigableMap<String, AbstractShopkeeper> shopkeepersByUUID = new TreeMap<>();
+	// Normalized name -> shopkeepers with that name. Shopkeepers without name are not indexed.
+	private final NavigableMap<String, List<AbstractShopkeeper>> shopkeepersByName = new TreeMap<>();
+
+	ShopkeeperPrefixIndex() {
+	}
+
+	void add(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		// Note: UUID#toString is already lowercase (normalized).
+		shopkeepersByUUID.put(shopkeeper.getUniqueId().toString(), shopkeeper);
+		this.addName(shopkeeper, shopkeeper.getName());
+	}
+
+	void remove(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		shopkeepersByUUID.remove(shopkeeper.getUniqueId().toString());
+		this.removeName(shopkeeper, shopkeeper.getName());
+	}
+
+	void onNameChanged(AbstractShopkeeper shopkeeper, String oldName) {
+		assert shopkeeper != null && oldName != null;
+		this.removeName(shopkeeper, oldName);
+		this.addName(shopkeeper, shopkeeper.getName());
+	}
+
+	private void addName(AbstractShopkeeper shopkeeper, String name) {
+		String normalizedName = normalizeName(name);
+		if (normalizedName.isEmpty()) return;
+		shopkeepersByName.computeIfAbsent(normalizedName, key -> new ArrayList<>(1)).add(shopkeeper);
+	}
+
+	private void removeName(AbstractShopkeeper shopkeeper, String name) {
+		String normalizedName = normalizeName(name);
+		List<AbstractShopkeeper> shopkeepers = shopkeepersByName.get(normalizedName);
+		if (shopkeepers == null) return;
+		shopkeepers.remove(shopkeeper);
+		if (shopkeepers.isEmpty()) {
+			shopkeepersByName.remove(normalizedName);
+		}
+	}
+
+	void clear() {
+		shopkeepersByUUID.clear();
+		shopkeepersByName.clear();
+	}
+
+	// The given prefix is expected to be lowercase. The shopkeepers are ordered by their unique ids.
+	Stream<AbstractShopkeeper> getShopkeepersByUUIDPrefix(String uuidPrefix) {
+		assert uuidPrefix != null;
+		return getPrefixRange(shopkeepersByUUID, uuidPrefix).values().stream();
+	}
+
+	// The given name is expected to be normalized.
+	Stream<AbstractShopkeeper> getShopkeepersByName(String normalizedName) {
+		assert normalizedName != null;
+		List<AbstractShopkeeper> shopkeepers = shopkeepersByName.get(normalizedName);
+		if (shopkeepers == null) return Stream.empty();
+		return shopkeepers.stream();
+	}
+
+	// The given prefix is expected to be normalized. An empty prefix matches all shopkeepers with a name. The
+	// shopkeepers are ordered by their normalized names.
+	Stream<AbstractShopkeeper> getShopkeepersByNamePrefix(String normalizedNamePrefix) {
+		assert normalizedNamePrefix != null;
+		return getPrefixRange(shopkeepersByName, normalizedNamePrefix).values().stream().flatMap(List::stream);
+	}
+}
@@ -0,0 +1,214 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopType;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.owners.ShopOwnerTable;
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Selects shopkeepers for bulk operations.
+ * <p>
+ * A selector combines any number of criteria. The candidate shopkeepers are retrieved from the most specific registry
+ * index for the given criteria (eg. the owner index), and are then checked against the remaining criteria.
+ */
+public final class ShopkeeperSelector {
+
+	private enum Category {
+		ALL,
+		ADMIN,
+		PLAYER;
+	}
+
+	private Category category = Category.ALL;
+	private UUID ownerUUID = null; // Null to match any owner
+	private String worldName = null; // Null to match any world
+	private boolean region = false;
+	private int minX, minY, minZ, maxX, maxY, maxZ;
+	private ShopType<?> shopType = null; // Null to match any shop type
+	private long inactiveSince = -1L; // Negative to not check the owner's activity
+
+	public ShopkeeperSelector() {
+	}
+
+	/**
+	 * Only selects admin shopkeepers.
+	 * <p>
+	 * Admin shopkeepers are all shopkeepers that are not {@link PlayerShopkeeper player shopkeepers}.
+	 *
+	 * @return this selector
+	 */
+	public ShopkeeperSelector adminShops() {
+		Validate.State.isTrue(category != Category.PLAYER, "Already selecting player shops!");
+		category = Category.ADMIN;
+		return this;
+	}
+
+	/**
+	 * Only selects player shopkeepers.
+	 *
+	 * @return this selector
+	 */
+	public ShopkeeperSelector playerShops() {
+		Validate.State.isTrue(category != Category.ADMIN, "Already selecting admin shops!");
+		category = Category.PLAYER;
+		return this;
+	}
+
+	/**
+	 * Only selects the player shopkeepers owned by the specified player.
+	 *
+	 * @param ownerUUID
+	 *            the owner's uuid
+	 * @return this selector
+	 */
+	public ShopkeeperSelector ownedBy(UUID ownerUUID) {
+		Validate.notNull(ownerUUID, "ownerUUID is null");
+		this.playerShops();
+		this.ownerUUID = ownerUUID;
+		return this;
+	}
+
+	/**
+	 * Only selects the shopkeepers located in the specified world.
+	 *
+	 * @param worldName
+	 *            the world name
+	 * @return this selector
+	 */
+	public ShopkeeperSelector inWorld(String worldName) {
+		Validate.notEmpty(worldName, "worldName is empty");
+		this.worldName = worldName;
+		return this;
+	}
+
+	/**
+	 * Only selects the shopkeepers located within the specified region (inclusive).
+	 * <p>
+	 * The corners of the region can be specified in any order.
+	 *
+	 * @param worldName
+	 *            the world name
+	 * @param x1
+	 *            the x coordinate of the first corner
+	 * @param y1
+	 *            the y coordinate of the first corner
+	 * @param z1
+	 *            the z coordinate of the first corner
+	 * @param x2
+	 *            the x coordinate of the second corner
+	 * @param y2
+	 *            the y coordinate of the second corner
+	 * @param z2
+	 *            the z coordinate of the second corner
+	 * @return this selector
+	 */
+	public ShopkeeperSelector inRegion(String worldName, int x1, int y1, int z1, int x2, int y2, int z2) {
+		this.inWorld(worldName);
+		region = true;
+		minX = Math.min(x1, x2);
+		minY = Math.min(y1, y2);
+		minZ = Math.min(z1, z2);
+		maxX = Math.max(x1, x2);
+		maxY = Math.max(y1, y2);
+		maxZ = Math.max(z1, z2);
+		return this;
+	}
+
+	/**
+	 * Only selects shopkeepers of the specified shop type.
+	 *
+	 * @param shopType
+	 *            the shop type
+	 * @return this selector
+	 */
+	public ShopkeeperSelector ofType(ShopType<?> shopType) {
+		Validate.notNull(shopType, "shopType is null");
+		this.shopType = shopType;
+		return this;
+	}
+
+	/**
+	 * Only selects the player shopkeepers whose owners have not been online since the given time.
+	 * <p>
+	 * The activity of the owners is looked up in the {@link ShopOwnerTable}. Owners whose activity is unknown are not
+	 * considered inactive.
+	 *
+	 * @param timestamp
+	 *            the time in milliseconds since the epoch
+	 * @return this selector
+	 */
+	public ShopkeeperSelector ownerInactiveSince(long timestamp) {
+		Validate.isTrue(timestamp >= 0L, "timestamp cannot be negative");
+		this.playerShops();
+		this.inactiveSince = timestamp;
+		return this;
+	}
+
+	/**
+	 * Selects the matching shopkeepers.
+	 * <p>
+	 * The returned list is a snapshot: It is not affected by subsequent changes to the shopkeeper registry.
+	 *
+	 * @return the selected shopkeepers
+	 */
+	public List<AbstractShopkeeper> select() {
+		SKShopkeepersPlugin plugin = SKShopkeepersPlugin.getInstance();
+		SKShopkeeperRegistry shopkeeperRegistry = plugin.getShopkeeperRegistry();
+		ShopOwnerTable shopOwnerTable = plugin.getShopOwnerTable();
+		Collection<? extends AbstractShopkeeper> candidates;
+		if (ownerUUID != null) {
+			candidates = shopkeeperRegistry.getPlayerShopkeepersByOwner(ownerUUID);
+		} else if (inactiveSince >= 0L) {
+			// Only check the shops of the inactive owners:
+			List<AbstractShopkeeper> inactiveOwnerShops = new ArrayList<>();
+			for (UUID shopOwnerUUID : shopkeeperRegistry.getPlayerShopOwners()) {
+				if (shopOwnerTable.isInactiveSince(shopOwnerUUID, inactiveSince)) {
+					inactiveOwnerShops.addAll(shopkeeperRegistry.getPlayerShopkeepersByOwner(shopOwnerUUID));
+				}
+			}
+			candidates = inactiveOwnerShops;
+		} else if (worldName != null) {
+			candidates = shopkeeperRegistry.getShopkeepersInWorld(worldName);
+		} else if (category == Category.ADMIN) {
+			candidates = shopkeeperRegistry.getAdminShopkeepersOrderedById();
+		} else if (category == Category.PLAYER) {
+			candidates = shopkeeperRegistry.getPlayerShopkeepersOrderedById();
+		} else {
+			candidates = shopkeeperRegistry.getAllShopkeepersOrderedById();
+		}
+
+		List<AbstractShopkeeper> selected = new ArrayList<>();
+		for (AbstractShopkeeper shopkeeper : candidates) {
+			if (this.matches(shopkeeper, shopOwnerTable)) {
+				selected.add(shopkeeper);
+			}
+		}
+		return selected;
+	}
+
+	private boolean matches(AbstractShopkeeper shopkeeper, ShopOwnerTable shopOwnerTable) {
+		boolean isPlayerShop = (shopkeeper instanceof PlayerShopkeeper);
+		if (category == Category.ADMIN && isPlayerShop) return false;
+		if (category == Category.PLAYER && !isPlayerShop) return false;
+		if (ownerUUID != null && !ownerUUID.equals(((PlayerShopkeeper) shopkeeper).getOwnerUUID())) return false;
+		if (worldName != null && !worldName.equals(shopkeeper.getWorldName())) return false;
+		if (region) {
+			int x = shopkeeper.getX();
+			int y = shopkeeper.getY();
+			int z = shopkeeper.getZ();
+			if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return false;
+		}
+		if (shopType != null && shopkeeper.getType() != shopType) return false;
+		if (inactiveSince >= 0L) {
+			UUID shopOwnerUUID = ((PlayerShopkeeper) shopkeeper).getOwnerUUID();
+			if (!shopOwnerTable.isInactiveSince(shopOwnerUUID, inactiveSince)) return false;
+		}
+		return true;
+	}
+}
@@ -28,9 +28,9 @@ public class SKRegularAdminShopkeeper extends AbstractAdminShopkeeper implements
 	private final List<TradingOffer> offers = new ArrayList<>();
 	private final List<TradingOffer> offersView = Collections.unmodifiableList(offers);
 
-	// Kept in sync with offers:
-	private final List<TradingRecipe> recipes = new ArrayList<>();
-	private final List<TradingRecipe> recipesView = Collections.unmodifiableList(recipes);
+	// Kept in sync with offers. Gets replaced whenever the offers change, so that the trading handler can detect
+	// changes of the recipes (and reuse its merchant recipes otherwise) by comparing the returned recipes list:
+	private List<TradingRecipe> recipesView = Collections.emptyList();
 
 	/**
 	 * Creates a not yet initialized {@link SKRegularAdminShopkeeper} (for use in sub-classes).
@@ -109,7 +109,7 @@ public class SKRegularAdminShopkeeper extends AbstractAdminShopkeeper implements
 
 	private void _clearOffers() {
 		offers.clear();
-		recipes.clear();
+		recipesView = Collections.emptyList();
 	}
 
 	@Override
@@ -135,12 +135,15 @@ public class SKRegularAdminShopkeeper extends AbstractAdminShopkeeper implements
 
 	private void _addOffer(TradingOffer offer) {
 		assert offer != null;
-		offers.add(offer);
+		this._addOffers(Collections.singletonList(offer));
+	}
+
+	private static TradingRecipe createTradingRecipe(TradingOffer offer) {
 		if (offer instanceof TradingRecipe) {
 			// SKTradingOffer extends SKTradingRecipe and reports to not be out-of-stock.
-			recipes.add((TradingRecipe) offer);
+			return (TradingRecipe) offer;
 		} else {
-			recipes.add(ShopkeepersAPI.createTradingRecipe(offer.getResultItem(), offer.getItem1(), offer.getItem2(), false));
+			return ShopkeepersAPI.createTradingRecipe(offer.getResultItem(), offer.getItem1(), offer.getItem2(), false);
 		}
 	}
 
@@ -154,9 +157,13 @@ public class SKRegularAdminShopkeeper extends AbstractAdminShopkeeper implements
 
 	private void _addOffers(List<? extends TradingOffer> offers) {
 		assert offers != null && !offers.contains(null);
+		List<TradingRecipe> recipes = new ArrayList<>(recipesView.size() + offers.size());
+		recipes.addAll(recipesView);
 		for (TradingOffer offer : offers) {
 			assert offer != null;
-			this._addOffer(offer);
+			this.offers.add(offer);
+			recipes.add(createTradingRecipe(offer));
 		}
+		recipesView = Collections.unmodifiableList(recipes);
 	}
 }
@@ -57,6 +57,14 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 	// Random shopkeeper-specific starting offset between [1, CHECK_CONTAINER_PERIOD_SECONDS]
 	private int remainingCheckContainerSeconds = (int) (Math.random() * CHECK_CONTAINER_PERIOD_SECONDS) + 1;
 
+	// Incremented whenever the offers or the container contents (might) change:
+	private int offersVersion = 0;
+	private int containerVersion = 0;
+	// The cached trading recipes and the versions they were created for:
+	private List<TradingRecipe> cachedTradingRecipes = null; // Null if not yet created
+	private int cachedOffersVersion;
+	private int cachedContainerVersion;
+
 	/**
 	 * Creates a not yet initialized {@link AbstractPlayerShopkeeper} (for use in sub-classes).
 	 * <p>
@@ -238,8 +246,13 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 		Validate.notNull(ownerUUID, "Owner uuid is null!");
 		Validate.notEmpty(ownerName, "Owner name is empty!");
 		this.markDirty();
+		UUID oldOwnerUUID = this.ownerUUID;
 		this.ownerUUID = ownerUUID;
 		this.ownerName = ownerName;
+		if (!ownerUUID.equals(oldOwnerUUID)) {
+			// Update the owner index:
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().onPlayerShopkeeperOwnerChanged(this, oldOwnerUUID);
+		}
 		// TODO Do this in a more abstract way.
 		if (!Settings.allowRenamingOfPlayerNpcShops && this.getShopObject().getType() == DefaultShopObjectTypes.CITIZEN()) {
 			// Update the NPC's name:
@@ -309,6 +322,7 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 		this.containerX = containerX;
 		this.containerY = containerY;
 		this.containerZ = containerZ;
+		this.onContainerContentsChanged();
 
 		if (this.isValid()) {
 			// Register new protected container:
@@ -372,6 +386,81 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 		return Bukkit.getWorld(this.getWorldName()).getBlockAt(containerX, containerY, containerZ);
 	}
 
+	/**
+	 * Gets the inventory of the shop's container.
+	 * <p>
+	 * The caller has to ensure that the {@link #getContainer() container block} is a
+	 * {@link ShopContainers#isSupportedContainer(org.bukkit.Material) supported container}.
+	 * <p>
+	 * The inventory is not cached, because the container's tile entity can be replaced at any time (eg. by other
+	 * plugins), and an inventory that is no longer backed by the container in the world must not be used for trades.
+	 * {@link ShopContainers#getInventory(Block)} avoids creating a snapshot of the container's BlockState if possible.
+	 * 
+	 * @return the container inventory
+	 */
+	public Inventory getContainerInventory() {
+		return ShopContainers.getInventory(this.getContainer());
+	}
+
+	// TRADING RECIPES
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The trading recipes of player shopkeepers do not depend on the trading player. They are cached and only get
+	 * recreated after the offers or the contents of the shop container have changed.
+	 * <p>
+	 * Changes to the container contents are only detected for the inventory interactions of players and hoppers, and
+	 * for the trades of this shopkeeper. If the container contents are changed by other means (for example by other
+	 * plugins or commands), the cached trading recipes may not reflect the current stock of the shop until the next
+	 * detected change. Trades are therefore always validated against the actual container contents when they are
+	 * applied, and aborted trades refresh the cached trading recipes.
+	 */
+	@Override
+	public List<TradingRecipe> getTradingRecipes(Player player) {
+		if (cachedTradingRecipes == null || cachedOffersVersion != offersVersion || cachedContainerVersion != containerVersion) {
+			cachedTradingRecipes = this.createTradingRecipes();
+			cachedOffersVersion = offersVersion;
+			cachedContainerVersion = containerVersion;
+		}
+		return cachedTradingRecipes;
+	}
+
+	/**
+	 * Creates the currently available trading recipes of this shopkeeper.
+	 * 
+	 * @return an unmodifiable view on the trading recipes
+	 */
+	protected abstract List<TradingRecipe> createTradingRecipes();
+
+	/**
+	 * Invalidates the cached trading recipes.
+	 * <p>
+	 * This needs to be called whenever the offers of this shopkeeper change.
+	 */
+	protected void onOffersChanged() {
+		offersVersion++;
+	}
+
+	/**
+	 * Invalidates the cached trading recipes.
+	 * <p>
+	 * This needs to be called whenever the contents of the shop container (might) have changed, or the shopkeeper
+	 * starts to use a different container.
+	 */
+	public void onContainerContentsChanged() {
+		containerVersion++;
+	}
+
+	/**
+	 * Gets a counter that changes whenever the contents of the shop container (might) have changed.
+	 * 
+	 * @return the container version
+	 */
+	public int getContainerVersion() {
+		return containerVersion;
+	}
+
 	// Returns null (and logs a warning) if the price cannot be represented correctly by currency items.
 	protected TradingRecipe createSellingRecipe(ItemStack itemBeingSold, int price, boolean outOfStock) {
 		int remainingPrice = price;
@@ -433,7 +522,7 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 		}
 
 		int totalCurrency = 0;
-		Inventory inventory = ShopContainers.getInventory(container);
+		Inventory inventory = this.getContainerInventory();
 		ItemStack[] contents = inventory.getContents();
 		for (ItemStack itemStack : contents) {
 			if (Settings.isCurrencyItem(itemStack)) {
@@ -449,7 +538,7 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 		ItemStack[] contents = null;
 		Block container = this.getContainer();
 		if (ShopContainers.isSupportedContainer(container.getType())) {
-			Inventory inventory = ShopContainers.getInventory(container);
+			Inventory inventory = this.getContainerInventory();
 			contents = inventory.getContents();
 		}
 		// Returns an empty list if the container could not be found:
@@ -481,7 +570,7 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 
 		Log.debug(() -> "Opening container inventory for player '" + player.getName() + "'.");
 		// Open the container directly for the player (no need for a custom UI):
-		Inventory inventory = ShopContainers.getInventory(container);
+		Inventory inventory = this.getContainerInventory();
 		player.openInventory(inventory);
 		return true;
 	}
@@ -2,6 +2,7 @@ package com.nisovin.shopkeepers.shopkeeper.player;
 
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
@@ -12,6 +13,7 @@ import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.container.ShopContainers;
 import com.nisovin.shopkeepers.ui.defaults.SKDefaultUITypes;
 import com.nisovin.shopkeepers.ui.defaults.TradingHandler;
+import com.nisovin.shopkeepers.util.InventoryTransaction;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.PermissionUtils;
 import com.nisovin.shopkeepers.util.TextUtils;
@@ -21,6 +23,11 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 	// State related to the currently handled trade:
 	protected Inventory containerInventory = null;
 	protected ItemStack[] newContainerContents = null;
+	// Collects the container changes of the trades that already got applied for the current inventory click. The
+	// changes to the container get only applied once all trades triggered by the inventory click have been handled:
+	private InventoryTransaction containerTransaction = null;
+	// The inventory click the current state belongs to:
+	private InventoryClickEvent tradeClickEvent = null;
 
 	protected PlayerShopTradingHandler(AbstractPlayerShopkeeper shopkeeper) {
 		super(SKDefaultUITypes.TRADING(), shopkeeper);
@@ -53,7 +60,7 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 	@Override
 	protected boolean prepareTrade(TradeData tradeData) {
 		if (!super.prepareTrade(tradeData)) return false;
-		PlayerShopkeeper shopkeeper = this.getShopkeeper();
+		AbstractPlayerShopkeeper shopkeeper = this.getShopkeeper();
 		Player tradingPlayer = tradeData.tradingPlayer;
 
 		// No trading with own shop:
@@ -75,18 +82,30 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 			}
 		}
 
-		// Check for the shop's container:
-		Block container = shopkeeper.getContainer();
-		if (!ShopContainers.isSupportedContainer(container.getType())) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeWithShopMissingContainer, "owner", shopkeeper.getOwnerName());
-			this.debugPreventedTrade(tradingPlayer, "The shop's container is missing.");
-			return false;
+		if (tradeClickEvent != tradeData.clickEvent) {
+			// Discard any state left over from a previous inventory click (eg. if its handling failed unexpectedly):
+			this.resetTradeState();
+			tradeClickEvent = tradeData.clickEvent;
+		}
+		if (containerInventory == null) {
+			// Check for the shop's container:
+			Block container = shopkeeper.getContainer();
+			if (!ShopContainers.isSupportedContainer(container.getType())) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeWithShopMissingContainer, "owner", shopkeeper.getOwnerName());
+				this.debugPreventedTrade(tradingPlayer, "The shop's container is missing.");
+				return false;
+			}
+			this.containerInventory = shopkeeper.getContainerInventory();
 		}
 
 		// Setup common state information for handling this trade:
-		this.containerInventory = ShopContainers.getInventory(container);
-		this.newContainerContents = containerInventory.getContents();
-
+		if (containerTransaction == null) {
+			containerTransaction = new InventoryTransaction(containerInventory);
+		}
+		// Start from the container contents including the changes of any previous trades of the same inventory click:
+		// Note: The item stacks themselves do not need to be copied, because any modifications of the contents
+		// replace the affected item stacks with copies.
+		this.newContainerContents = containerTransaction.getContents().clone();
 		return true;
 	}
 
@@ -94,23 +113,41 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 	protected void onTradeApplied(TradeData tradeData) {
 		super.onTradeApplied(tradeData);
 
-		// Apply container content changes:
-		if (containerInventory != null && newContainerContents != null) {
-			containerInventory.setContents(newContainerContents);
+		// Defer the container content changes until all trades triggered by the current inventory click have been
+		// handled:
+		if (newContainerContents != null) {
+			containerTransaction.setContents(newContainerContents);
 		}
-
-		// Reset trade related state information:
-		this.resetTradeState();
+		newContainerContents = null;
 	}
 
 	@Override
 	protected void onTradeAborted(TradeData tradeData) {
 		super.onTradeAborted(tradeData);
+		// Discard any changes of the aborted trade:
+		newContainerContents = null;
+		// The trade might have been aborted because the cached trading recipes do not match the current container
+		// contents (eg. if the container contents have been changed by other plugins). Refresh the trading recipes:
+		this.getShopkeeper().onContainerContentsChanged();
+	}
+
+	@Override
+	protected void onTradesCompleted(Player player) {
+		super.onTradesCompleted(player);
+
+		// Apply container content changes (only updates the changed slots):
+		if (containerTransaction != null && containerTransaction.commit() > 0) {
+			this.getShopkeeper().onContainerContentsChanged();
+		}
+
+		// Reset trade related state information:
 		this.resetTradeState();
 	}
 
 	protected void resetTradeState() {
 		containerInventory = null;
 		newContainerContents = null;
+		containerTransaction = null;
+		tradeClickEvent = null;
 	}
 }
@@ -12,7 +12,6 @@ import com.nisovin.shopkeepers.api.ShopkeepersAPI;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.BookOffer;
 import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
 import com.nisovin.shopkeepers.shopkeeper.player.PlayerShopEditorHandler;
-import com.nisovin.shopkeepers.util.ItemCount;
 
 public class BookPlayerShopEditorHandler extends PlayerShopEditorHandler {
 
@@ -34,23 +33,24 @@ public class BookPlayerShopEditorHandler extends PlayerShopEditorHandler {
 		Set<String> bookTitles = new HashSet<>();
 
 		// Add the shopkeeper's offers:
-		List<ItemCount> containerItems = shopkeeper.getCopyableBooksFromContainer();
+		// Analyze the current container contents, since the cached container books might be outdated:
+		ContainerBooks containerBooks = shopkeeper.getContainerBooks(true);
 		for (BookOffer offer : shopkeeper.getOffers()) {
 			String bookTitle = offer.getBookTitle();
 			bookTitles.add(bookTitle);
-			ItemStack bookItem = shopkeeper.getBookItem(containerItems, bookTitle);
+			ItemStack bookItem = containerBooks.getBook(bookTitle);
 			if (bookItem == null) {
 				bookItem = shopkeeper.createDummyBook(bookTitle);
+			} else {
+				// Copy the shared book:
+				bookItem = bookItem.clone();
 			}
 			TradingRecipeDraft recipe = this.createTradingRecipeDraft(bookItem, offer.getPrice());
 			recipes.add(recipe);
 		}
 
 		// Add empty offers for items from the container:
-		for (int containerItemIndex = 0; containerItemIndex < containerItems.size(); containerItemIndex++) {
-			ItemCount itemCount = containerItems.get(containerItemIndex);
-			ItemStack itemFromContainer = itemCount.getItem(); // This item is already a copy with amount 1
-
+		for (ItemStack itemFromContainer : containerBooks.getBooks()) {
 			String bookTitle = SKBookPlayerShopkeeper.getBookTitle(itemFromContainer);
 			assert bookTitle != null; // We filtered those book items earlier
 			if (bookTitles.contains(bookTitle)) {
@@ -58,8 +58,8 @@ public class BookPlayerShopEditorHandler extends PlayerShopEditorHandler {
 			}
 			bookTitles.add(bookTitle);
 
-			// Add recipe:
-			TradingRecipeDraft recipe = this.createTradingRecipeDraft(itemFromContainer, 0);
+			// Add recipe (with a copy of the shared book):
+			TradingRecipeDraft recipe = this.createTradingRecipeDraft(itemFromContainer.clone(), 0);
 			recipes.add(recipe);
 		}
 
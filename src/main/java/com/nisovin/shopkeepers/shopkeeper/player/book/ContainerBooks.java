@@ -0,0 +1,96 @@
+package com.nisovin.shopkeepers.shopkeeper.player.book;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BookMeta;
+
+/**
+ * The books inside the container of a book player shop.
+ * <p>
+ * This is built in a single pass over the container contents, which only looks up the {@link BookMeta} of each written
+ * book once. The result can then be used to look up the books by their titles.
+ */
+final class ContainerBooks {
+
+	static final ContainerBooks EMPTY = new ContainerBooks(Collections.emptyMap(), false);
+
+	/**
+	 * Analyzes the given container contents.
+	 *
+	 * @param contents
+	 *            the container contents, or <code>null</code> if the container could not be found
+	 * @return the container books
+	 */
+	static ContainerBooks analyze(ItemStack[] contents) {
+		if (contents == null) return EMPTY;
+		Map<String, ItemStack> booksByTitle = new LinkedHashMap<>();
+		boolean hasBlankBooks = false;
+		for (ItemStack item : contents) {
+			if (item == null) continue;
+			Material type = item.getType();
+			if (type == Material.WRITABLE_BOOK) {
+				hasBlankBooks = true;
+			} else if (type == Material.WRITTEN_BOOK) {
+				BookMeta meta = (BookMeta) item.getItemMeta(); // Can be null
+				if (meta == null) continue;
+				// Uses the same criteria as the book shopkeeper, but only looks up the book meta once:
+				if (!SKBookPlayerShopkeeper.isCopyableBook(meta)) continue;
+				String title = SKBookPlayerShopkeeper.getBookTitle(meta);
+				if (title == null) continue;
+				// Only the first book for each title is used:
+				if (booksByTitle.containsKey(title)) continue;
+				ItemStack book = item.clone();
+				book.setAmount(1);
+				booksByTitle.put(title, book);
+			}
+		}
+		return new ContainerBooks(booksByTitle, hasBlankBooks);
+	}
+
+	// Book title -> first copyable book with that title (with an amount of 1), in the order of the container:
+	private final Map<String, ItemStack> booksByTitle;
+	private final boolean hasBlankBooks;
+
+	private ContainerBooks(Map<String, ItemStack> booksByTitle, boolean hasBlankBooks) {
+		this.booksByTitle = booksByTitle;
+		this.hasBlankBooks = hasBlankBooks;
+	}
+
+	/**
+	 * Gets the copyable book with the given title.
+	 * <p>
+	 * The returned book is shared and is not supposed to be modified.
+	 *
+	 * @param title
+	 *            the book title
+	 * @return the book, or <code>null</code> if there is no copyable book with the given title
+	 */
+	ItemStack getBook(String title) {
+		return booksByTitle.get(title);
+	}
+
+	/**
+	 * Gets the copyable books, one per book title, in the order in which they are found inside the container.
+	 * <p>
+	 * The returned books are shared and are not supposed to be modified.
+	 *
+	 * @return an unmodifiable view on the books
+	 */
+	Collection<ItemStack> getBooks() {
+		return Collections.unmodifiableCollection(booksByTitle.values());
+	}
+
+	/**
+	 * Checks if the container contains blank books (book and quill), which are required to create copies of books.
+	 *
+	 * @return <code>true</code> if the container contains blank books
+	 */
+	boolean hasBlankBooks() {
+		return hasBlankBooks;
+	}
+}
@@ -4,13 +4,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.inventory.meta.BookMeta.Generation;
@@ -27,22 +24,20 @@ import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKDefaultShopTypes;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKBookOffer;
 import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
-import com.nisovin.shopkeepers.util.Filter;
-import com.nisovin.shopkeepers.util.ItemCount;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.Validate;
 
 public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements BookPlayerShopkeeper {
 
-	private static final Filter<ItemStack> ITEM_FILTER = (ItemStack item) -> {
-		return isCopyableBook(item) && (getBookTitle(item) != null);
-	};
-
 	// Contains only one offer for a specific book (book title):
 	private final List<BookOffer> offers = new ArrayList<>();
 	private final List<BookOffer> offersView = Collections.unmodifiableList(offers);
 
+	// The books inside the container, cached until the container contents change:
+	private ContainerBooks cachedContainerBooks = null;
+	private int cachedContainerBooksVersion;
+
 	/**
 	 * Creates a not yet initialized {@link SKBookPlayerShopkeeper} (for use in sub-classes).
 	 * <p>
@@ -104,13 +99,13 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 	}
 
 	@Override
-	public List<TradingRecipe> getTradingRecipes(Player player) {
+	protected List<TradingRecipe> createTradingRecipes() {
 		List<TradingRecipe> recipes = new ArrayList<>();
-		boolean hasBlankBooks = this.hasContainerBlankBooks();
-		List<ItemCount> bookItems = this.getCopyableBooksFromContainer();
+		ContainerBooks containerBooks = this.getContainerBooks();
+		boolean hasBlankBooks = containerBooks.hasBlankBooks();
 		for (BookOffer offer : this.getOffers()) {
 			String bookTitle = offer.getBookTitle();
-			ItemStack bookItem = this.getBookItem(bookItems, bookTitle);
+			ItemStack bookItem = containerBooks.getBook(bookTitle);
 			boolean outOfStock = !hasBlankBooks;
 			if (bookItem == null) {
 				outOfStock = true;
@@ -128,20 +123,40 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 		return Collections.unmodifiableList(recipes);
 	}
 
-	protected List<ItemCount> getCopyableBooksFromContainer() {
-		return this.getItemsFromContainer(ITEM_FILTER);
+	/**
+	 * Gets the copyable books and the blank books inside the container.
+	 * <p>
+	 * The container contents are analyzed in a single pass. The result is cached until the
+	 * {@link #getContainerVersion() container version} changes. Since not all changes to the container contents are
+	 * detected (see {@link #getTradingRecipes(org.bukkit.entity.Player)}), the cached result can be outdated. Trades are validated
+	 * against the actual container contents when they are applied.
+	 * 
+	 * @return the container books
+	 */
+	ContainerBooks getContainerBooks() {
+		return this.getContainerBooks(false);
 	}
 
-	protected ItemStack getBookItem(List<ItemCount> itemCounts, String title) {
-		if (itemCounts == null) return null;
-		for (ItemCount itemCount : itemCounts) {
-			if (itemCount == null) continue;
-			ItemStack item = itemCount.getItem(); // Note: No additional copy.
-			if (Objects.equals(getBookTitle(item), title)) {
-				return item;
+	/**
+	 * Gets the copyable books and the blank books inside the container.
+	 * 
+	 * @param revalidate
+	 *            <code>true</code> to analyze the current container contents even if there is a cached result
+	 * @return the container books
+	 * @see #getContainerBooks()
+	 */
+	ContainerBooks getContainerBooks(boolean revalidate) {
+		int containerVersion = this.getContainerVersion();
+		if (revalidate || cachedContainerBooks == null || cachedContainerBooksVersion != containerVersion) {
+			ItemStack[] contents = null;
+			Block container = this.getContainer();
+			if (ShopContainers.isSupportedContainer(container.getType())) {
+				contents = this.getContainerInventory().getContents();
 			}
+			cachedContainerBooks = ContainerBooks.analyze(contents);
+			cachedContainerBooksVersion = containerVersion;
 		}
-		return null;
+		return cachedContainerBooks;
 	}
 
 	protected static BookMeta getBookMeta(ItemStack item) {
@@ -151,7 +166,11 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 	}
 
 	protected static Generation getBookGeneration(ItemStack item) {
-		BookMeta meta = getBookMeta(item);
+		return getBookGeneration(getBookMeta(item));
+	}
+
+	// The given book meta can be null:
+	static Generation getBookGeneration(BookMeta meta) {
 		if (meta == null) return null;
 		if (!meta.hasGeneration()) {
 			// If the generation is missing, Minecraft treats the book as an original and so do we:
@@ -161,7 +180,12 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 	}
 
 	protected static boolean isCopyableBook(ItemStack item) {
-		Generation generation = getBookGeneration(item);
+		return isCopyableBook(getBookMeta(item));
+	}
+
+	// The given book meta can be null:
+	static boolean isCopyableBook(BookMeta meta) {
+		Generation generation = getBookGeneration(meta);
 		return (generation == Generation.ORIGINAL || generation == Generation.COPY_OF_ORIGINAL);
 	}
 
@@ -176,7 +200,11 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 	}
 
 	protected static String getBookTitle(ItemStack item) {
-		BookMeta meta = getBookMeta(item);
+		return getBookTitle(getBookMeta(item));
+	}
+
+	// The given book meta can be null:
+	static String getBookTitle(BookMeta meta) {
 		if (meta == null) return null;
 		if (!meta.hasTitle()) return null;
 		String title = meta.getTitle(); // Not null, but can be empty!
@@ -186,15 +214,6 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 		return title;
 	}
 
-	protected boolean hasContainerBlankBooks() {
-		Block container = this.getContainer();
-		if (ShopContainers.isSupportedContainer(container.getType())) {
-			Inventory inventory = ShopContainers.getInventory(container);
-			return inventory.contains(Material.WRITABLE_BOOK);
-		}
-		return false;
-	}
-
 	protected ItemStack createDummyBook(String title) {
 		ItemStack item = new ItemStack(Material.WRITTEN_BOOK, 1);
 		BookMeta meta = (BookMeta) item.getItemMeta();
@@ -261,6 +280,7 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 		while (iterator.hasNext()) {
 			if (iterator.next().getBookTitle().equals(bookTitle)) {
 				iterator.remove();
+				this.onOffersChanged();
 				this.markDirty();
 				break;
 			}
@@ -275,6 +295,7 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 
 	private void _clearOffers() {
 		offers.clear();
+		this.onOffersChanged();
 	}
 
 	@Override
@@ -303,6 +324,7 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 		// Remove previous offer for the same book:
 		this.removeOffer(offer.getBookTitle());
 		offers.add(offer);
+		this.onOffersChanged();
 	}
 
 	@Override
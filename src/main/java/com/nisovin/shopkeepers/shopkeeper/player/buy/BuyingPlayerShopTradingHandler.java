@@ -7,6 +7,7 @@ import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.shopkeeper.offers.PriceOffer;
 import com.nisovin.shopkeepers.shopkeeper.player.PlayerShopTradingHandler;
+import com.nisovin.shopkeepers.util.ItemDataMatchCache;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Validate;
 
@@ -80,13 +81,15 @@ public class BuyingPlayerShopTradingHandler extends PlayerShopTradingHandler {
 		Validate.isTrue(amount >= 0, "Amount cannot be negative!");
 		if (amount == 0) return 0;
 		int remaining = amount;
+		// Each pass checks the same item stacks again:
+		ItemDataMatchCache currencyMatches = Settings.createCurrencyMatchCache();
 
 		// First pass: Remove as much low currency as available from partial stacks.
 		// Second pass: Remove as much low currency as available from full stacks.
 		for (int k = 0; k < 2; k++) {
 			for (int slot = 0; slot < contents.length; slot++) {
 				ItemStack itemStack = contents[slot];
-				if (!Settings.isCurrencyItem(itemStack)) continue;
+				if (!currencyMatches.matches(itemStack)) continue;
 
 				// Second pass, or the ItemStack is a partial one:
 				int itemAmount = itemStack.getAmount();
@@ -122,13 +125,14 @@ public class BuyingPlayerShopTradingHandler extends PlayerShopTradingHandler {
 		// needs to be added back:
 		remaining -= (remainingHigh * Settings.highCurrencyValue);
 		assert remaining <= 0;
+		ItemDataMatchCache highCurrencyMatches = Settings.createHighCurrencyMatchCache();
 
 		// First pass: Remove high currency from partial stacks.
 		// Second pass: Remove high currency from full stacks.
 		for (int k = 0; k < 2; k++) {
 			for (int slot = 0; slot < contents.length; slot++) {
 				ItemStack itemStack = contents[slot];
-				if (!Settings.isHighCurrencyItem(itemStack)) continue;
+				if (!highCurrencyMatches.matches(itemStack)) continue;
 
 				// Second pass, or the ItemStack is a partial one:
 				int itemAmount = itemStack.getAmount();
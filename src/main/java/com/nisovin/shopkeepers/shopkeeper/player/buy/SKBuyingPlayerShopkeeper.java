@@ -7,7 +7,6 @@ import java.util.List;
 
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import com.nisovin.shopkeepers.Settings;
@@ -102,7 +101,7 @@ public class SKBuyingPlayerShopkeeper extends AbstractPlayerShopkeeper implement
 	}
 
 	@Override
-	public List<TradingRecipe> getTradingRecipes(Player player) {
+	protected List<TradingRecipe> createTradingRecipes() {
 		List<TradingRecipe> recipes = new ArrayList<>();
 		int currencyInContainer = this.getCurrencyInContainer();
 		for (PriceOffer offer : this.getOffers()) {
@@ -143,6 +142,7 @@ public class SKBuyingPlayerShopkeeper extends AbstractPlayerShopkeeper implement
 		while (iterator.hasNext()) {
 			if (ItemUtils.isSimilar(iterator.next().getItem(), tradedItem)) {
 				iterator.remove();
+				this.onOffersChanged();
 				this.markDirty();
 				break;
 			}
@@ -157,6 +157,7 @@ public class SKBuyingPlayerShopkeeper extends AbstractPlayerShopkeeper implement
 
 	private void _clearOffers() {
 		offers.clear();
+		this.onOffersChanged();
 	}
 
 	@Override
@@ -185,6 +186,7 @@ public class SKBuyingPlayerShopkeeper extends AbstractPlayerShopkeeper implement
 		// Remove previous offer for the same item:
 		this.removeOffer(offer.getItem());
 		offers.add(offer);
+		this.onOffersChanged();
 	}
 
 	@Override
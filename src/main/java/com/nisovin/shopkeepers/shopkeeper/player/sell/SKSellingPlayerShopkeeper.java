@@ -6,7 +6,6 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import com.nisovin.shopkeepers.Settings;
@@ -99,7 +98,7 @@ public class SKSellingPlayerShopkeeper extends AbstractPlayerShopkeeper implemen
 	}
 
 	@Override
-	public List<TradingRecipe> getTradingRecipes(Player player) {
+	protected List<TradingRecipe> createTradingRecipes() {
 		List<TradingRecipe> recipes = new ArrayList<>();
 		List<ItemCount> containerItems = this.getItemsFromContainer();
 		for (PriceOffer offer : this.getOffers()) {
@@ -145,6 +144,7 @@ public class SKSellingPlayerShopkeeper extends AbstractPlayerShopkeeper implemen
 		while (iterator.hasNext()) {
 			if (ItemUtils.isSimilar(iterator.next().getItem(), tradedItem)) {
 				iterator.remove();
+				this.onOffersChanged();
 				this.markDirty();
 				break;
 			}
@@ -159,6 +159,7 @@ public class SKSellingPlayerShopkeeper extends AbstractPlayerShopkeeper implemen
 
 	private void _clearOffers() {
 		offers.clear();
+		this.onOffersChanged();
 	}
 
 	@Override
@@ -187,6 +188,7 @@ public class SKSellingPlayerShopkeeper extends AbstractPlayerShopkeeper implemen
 		// Remove previous offer for the same item:
 		this.removeOffer(offer.getItem());
 		offers.add(offer);
+		this.onOffersChanged();
 	}
 
 	@Override
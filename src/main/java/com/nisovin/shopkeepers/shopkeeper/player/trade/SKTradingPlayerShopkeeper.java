@@ -5,7 +5,6 @@ import java.util.Collections;
 import java.util.List;
 
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import com.nisovin.shopkeepers.api.ShopkeepersAPI;
@@ -91,7 +90,7 @@ public class SKTradingPlayerShopkeeper extends AbstractPlayerShopkeeper implemen
 	}
 
 	@Override
-	public List<TradingRecipe> getTradingRecipes(Player player) {
+	protected List<TradingRecipe> createTradingRecipes() {
 		List<TradingRecipe> recipes = new ArrayList<>();
 		List<ItemCount> containerItems = this.getItemsFromContainer();
 		for (TradingOffer offer : this.getOffers()) {
@@ -149,6 +148,7 @@ public class SKTradingPlayerShopkeeper extends AbstractPlayerShopkeeper implemen
 
 	private void _clearOffers() {
 		offers.clear();
+		this.onOffersChanged();
 	}
 
 	@Override
@@ -175,6 +175,7 @@ public class SKTradingPlayerShopkeeper extends AbstractPlayerShopkeeper implemen
 	private void _addOffer(TradingOffer offer) {
 		assert offer != null;
 		offers.add(offer);
+		this.onOffersChanged();
 	}
 
 	@Override
@@ -89,6 +89,18 @@ public abstract class AbstractShopObject implements ShopObject {
 	public void onChunkDeactivation() {
 	}
 
+	/**
+	 * Called after the shopkeeper has been registered as active under its current {@link #getId() object id}.
+	 */
+	public void onActivation() {
+	}
+
+	/**
+	 * Called after the shopkeeper has been unregistered as active.
+	 */
+	public void onDeactivation() {
+	}
+
 	@Override
 	public abstract boolean isActive();
 
@@ -1,6 +1,5 @@
 package com.nisovin.shopkeepers.shopobjects.living;
 
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -19,7 +18,8 @@ import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.compat.NMSManager;
-import com.nisovin.shopkeepers.util.MathUtils;
+import com.nisovin.shopkeepers.debug.timings.Timings;
+import com.nisovin.shopkeepers.debug.timings.TimingsRegistry;
 import com.nisovin.shopkeepers.util.Utils;
 import com.nisovin.shopkeepers.util.Validate;
 
@@ -105,96 +105,11 @@ public class LivingEntityAI {
 	private int activeGravityChunksCount = 0;
 	private int activeGravityEntityCount = 0;
 
-	public static class Timings {
-
-		private long[] timingsHistory;
-		private long maxTiming = 0L;
-		private int counter = 0;
-
-		// Current timing:
-		private boolean started = false;
-		private boolean paused = false;
-		private long startTime;
-		private long elapsedTime;
-
-		public Timings() {
-			this(100);
-		}
-
-		public Timings(int historySize) {
-			assert historySize > 0;
-			timingsHistory = new long[historySize];
-		}
-
-		void start() {
-			assert !started && !paused;
-			// Reset:
-			started = true;
-			paused = false;
-			elapsedTime = 0L;
-			// Start timing:
-			startTime = System.nanoTime();
-		}
-
-		void startPaused() {
-			this.start();
-			this.pause();
-		}
-
-		void pause() {
-			assert started && !paused;
-			paused = true;
-			// Update timing:
-			elapsedTime += (System.nanoTime() - startTime);
-		}
-
-		void resume() {
-			assert started && paused;
-			paused = false;
-			// Continue timing:
-			startTime = System.nanoTime();
-		}
-
-		void stop() {
-			assert started;
-			counter++;
-			if (!paused) {
-				// Update timing by pausing:
-				this.pause();
-			}
-			assert paused;
-
-			// Update timings history:
-			int historyIndex = (counter % timingsHistory.length);
-			timingsHistory[historyIndex] = elapsedTime;
-			// Reset/update max timing:
-			if (historyIndex == 0) maxTiming = elapsedTime;
-			else if (elapsedTime > maxTiming) maxTiming = elapsedTime;
-		}
-
-		public void reset() {
-			counter = 0;
-			Arrays.fill(timingsHistory, 0L);
-			maxTiming = 0L;
-		}
-
-		public int getCounter() {
-			return counter;
-		}
-
-		public double getAverageTimeMillis() {
-			return (MathUtils.average(timingsHistory) * 1.0E-6D);
-		}
-
-		public double getMaxTimeMillis() {
-			return (maxTiming * 1.0E-6D);
-		}
-	}
-
-	private final Timings totalTimings = new Timings();
-	private final Timings activationTimings = new Timings(10);
-	private final Timings gravityTimings = new Timings();
-	private final Timings aiTimings = new Timings();
+	private final Timings totalTimings = TimingsRegistry.create("AI total");
+	// Note: These are per activation, which happens only every AI_ACTIVATION_TICK_RATE ticks (not per tick).
+	private final Timings activationTimings = TimingsRegistry.create("AI activation (per " + AI_ACTIVATION_TICK_RATE + " ticks)");
+	private final Timings gravityTimings = TimingsRegistry.create("AI gravity");
+	private final Timings aiTimings = TimingsRegistry.create("AI ticking");
 
 	public LivingEntityAI(ShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -117,6 +117,11 @@ public class BabyableShop<E extends Ageable> extends SKLivingShopObject<E> {
 				return getBabyEditorItem();
 			}
 
+			@Override
+			protected Object getIconState(EditorHandler.Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected boolean runAction(InventoryClickEvent clickEvent, Player player) {
 				cycleBaby();
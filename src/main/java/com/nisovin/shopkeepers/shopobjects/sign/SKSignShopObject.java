@@ -43,6 +43,11 @@ public class SKSignShopObject extends AbstractBlockShopObject implements SignSho
 	// sign content:
 	private boolean updateSign = true;
 	private long lastFailedRespawnAttempt = 0;
+	// The position by which this sign shop is currently indexed, or null if not indexed:
+	private String indexedWorldName = null;
+	private int indexedX;
+	private int indexedY;
+	private int indexedZ;
 
 	protected SKSignShopObject(SignShops signShops, AbstractShopkeeper shopkeeper, ShopCreationData creationData) {
 		super(shopkeeper, creationData);
@@ -243,6 +248,28 @@ public class SKSignShopObject extends AbstractBlockShopObject implements SignSho
 		}
 	}
 
+	@Override
+	public void onActivation() {
+		// Remove any previous index entry, in case we missed the deactivation:
+		this.removeFromIndex();
+		indexedWorldName = shopkeeper.getWorldName();
+		indexedX = shopkeeper.getX();
+		indexedY = shopkeeper.getY();
+		indexedZ = shopkeeper.getZ();
+		signShops.addSignShop(indexedWorldName, indexedX, indexedY, indexedZ, shopkeeper);
+	}
+
+	@Override
+	public void onDeactivation() {
+		this.removeFromIndex();
+	}
+
+	private void removeFromIndex() {
+		if (indexedWorldName == null) return;
+		signShops.removeSignShop(indexedWorldName, indexedX, indexedY, indexedZ, shopkeeper);
+		indexedWorldName = null;
+	}
+
 	@Override
 	public Location getLocation() {
 		return shopkeeper.getLocation();
@@ -342,6 +369,11 @@ public class SKSignShopObject extends AbstractBlockShopObject implements SignSho
 				return getSignTypeEditorItem();
 			}
 
+			@Override
+			protected Object getIconState(EditorHandler.Session session) {
+				return signType;
+			}
+
 			@Override
 			protected boolean runAction(InventoryClickEvent clickEvent, Player player) {
 				boolean backwards = clickEvent.isRightClick();
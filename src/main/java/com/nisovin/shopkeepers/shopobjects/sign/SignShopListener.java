@@ -1,6 +1,6 @@
 package com.nisovin.shopkeepers.shopobjects.sign;
 
-import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 
 import org.bukkit.World;
@@ -22,10 +22,15 @@ import org.bukkit.inventory.EquipmentSlot;
 
 import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.debug.timings.Timings;
+import com.nisovin.shopkeepers.debug.timings.TimingsRegistry;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.util.BlockFaceUtils;
+import com.nisovin.shopkeepers.util.BlockKeys;
+import com.nisovin.shopkeepers.util.ExplosionFilter;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Log;
+import com.nisovin.shopkeepers.util.LongObjectHashMap;
 import com.nisovin.shopkeepers.util.TestPlayerInteractEvent;
 import com.nisovin.shopkeepers.util.TextUtils;
 import com.nisovin.shopkeepers.util.Utils;
@@ -36,6 +41,7 @@ class SignShopListener implements Listener {
 	private static final BlockFace[] BLOCK_SIDES = BlockFaceUtils.getBlockSides().toArray(new BlockFace[0]);
 
 	private final SignShops signShops;
+	private final Timings blockPhysicsTimings = TimingsRegistry.create("Sign shop block physics listener");
 
 	private static class ModifiableBlockPos {
 
@@ -57,6 +63,10 @@ class SignShopListener implements Listener {
 			}
 		}
 
+		public boolean isSet() {
+			return (worldId != null);
+		}
+
 		public boolean matches(UUID otherWorldId, int otherX, int otherY, int otherZ) {
 			assert otherWorldId != null;
 			// Comparing world ids by identity should work, since all world ids are retrieved from the same source.
@@ -172,59 +182,68 @@ class SignShopListener implements Listener {
 
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
 	void onBlockPhysics(BlockPhysicsEvent event) {
-		Block block = event.getBlock();
+		long startTime = System.nanoTime();
+		if (this.isPhysicsCancelled(event.getBlock())) {
+			event.setCancelled(true);
+		}
+		blockPhysicsTimings.record(System.nanoTime() - startTime);
+	}
+
+	private boolean isPhysicsCancelled(Block block) {
 		World world = block.getWorld();
 		String worldName = world.getName();
-		UUID worldId = world.getUID();
 		int blockX = block.getX();
 		int blockY = block.getY();
 		int blockZ = block.getZ();
-		if (this.checkCancelPhysics(worldName, worldId, blockX, blockY, blockZ)) {
-			event.setCancelled(true);
-			return;
-		}
+		// Check the block itself and its adjacent blocks:
 		// Spigot changed the behavior of this event in MC 1.13 to reduce the number of event calls:
 		// Related: https://hub.spigotmc.org/jira/browse/SPIGOT-4256
+		if (cancelNextBlockPhysics.isSet()) {
+			UUID worldId = world.getUID();
+			if (cancelNextBlockPhysics.matches(worldId, blockX, blockY, blockZ)) {
+				return true;
+			}
+			for (BlockFace blockFace : BLOCK_SIDES) {
+				// Note: Avoiding getting the adjacent block slightly improves performance of handling this event.
+				int adjacentX = blockX + blockFace.getModX();
+				int adjacentY = blockY + blockFace.getModY();
+				int adjacentZ = blockZ + blockFace.getModZ();
+				if (cancelNextBlockPhysics.matches(worldId, adjacentX, adjacentY, adjacentZ)) {
+					return true;
+				}
+			}
+		}
+
+		// Quickly rule out chunks which neither contain nor are adjacent to any sign shops:
+		if (!signShops.mightBeNearSignShop(worldName, blockX, blockZ)) return false;
+		LongObjectHashMap<AbstractShopkeeper> worldSignShops = signShops.getSignShops(worldName);
+		assert worldSignShops != null;
+		if (worldSignShops.containsKey(BlockKeys.getBlockKey(blockX, blockY, blockZ))) {
+			return true;
+		}
 		for (BlockFace blockFace : BLOCK_SIDES) {
-			// Note: Avoiding getting the adjacent block slightly improves performance of handling this event.
 			int adjacentX = blockX + blockFace.getModX();
 			int adjacentY = blockY + blockFace.getModY();
 			int adjacentZ = blockZ + blockFace.getModZ();
-			if (this.checkCancelPhysics(worldName, worldId, adjacentX, adjacentY, adjacentZ)) {
-				event.setCancelled(true);
-				return;
+			if (worldSignShops.containsKey(BlockKeys.getBlockKey(adjacentX, adjacentY, adjacentZ))) {
+				return true;
 			}
 		}
-	}
-
-	private boolean checkCancelPhysics(String worldName, UUID worldId, int blockX, int blockY, int blockZ) {
-		if (cancelNextBlockPhysics.matches(worldId, blockX, blockY, blockZ)) {
-			return true;
-		} else if (signShops.isSignShop(worldName, blockX, blockY, blockZ)) {
-			return true;
-		}
 		return false;
 	}
 
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
 	void onEntityExplosion(EntityExplodeEvent event) {
-		Iterator<Block> iterator = event.blockList().iterator();
-		while (iterator.hasNext()) {
-			Block block = iterator.next();
-			if (this.isProtectedBlock(block)) {
-				iterator.remove();
-			}
-		}
+		this.removeProtectedBlocks(event.blockList());
 	}
 
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
 	void onBlockExplosion(BlockExplodeEvent event) {
-		Iterator<Block> iterator = event.blockList().iterator();
-		while (iterator.hasNext()) {
-			Block block = iterator.next();
-			if (this.isProtectedBlock(block)) {
-				iterator.remove();
-			}
-		}
+		this.removeProtectedBlocks(event.blockList());
+	}
+
+	// Block list has to be modifiable.
+	private void removeProtectedBlocks(List<Block> blockList) {
+		ExplosionFilter.removeProtectedBlocks(blockList, signShops.getSignShopChunks(), this::isProtectedBlock);
 	}
 }
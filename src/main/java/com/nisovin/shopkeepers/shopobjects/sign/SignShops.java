@@ -1,5 +1,8 @@
 package com.nisovin.shopkeepers.shopobjects.sign;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.event.HandlerList;
@@ -7,12 +10,21 @@ import org.bukkit.event.HandlerList;
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.BlockKeys;
+import com.nisovin.shopkeepers.util.ChunkIndex;
+import com.nisovin.shopkeepers.util.LongObjectHashMap;
 
 public class SignShops {
 
 	private final SKShopkeepersPlugin plugin;
 	private final SKSignShopObjectType signShopObjectType = new SKSignShopObjectType(this);
 	private final SignShopListener signShopListener;
+	// Active sign shops by world name and block key:
+	private final Map<String, LongObjectHashMap<AbstractShopkeeper>> signShopsByBlock = new HashMap<>();
+	// The chunks containing or adjacent to active sign shops, by world name and chunk key. This allows quickly ruling
+	// out block physics and explosions inside chunks without any sign shops (including sign shops that are located
+	// adjacent to the affected blocks, but in a neighboring chunk):
+	private final ChunkIndex signShopChunks = new ChunkIndex();
 
 	public SignShops(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -27,35 +39,87 @@ public class SignShops {
 
 	public void onDisable() {
 		HandlerList.unregisterAll(signShopListener);
+		// Cleanup (all sign shops are expected to have been deactivated already):
+		signShopsByBlock.clear();
+		signShopChunks.clear();
 	}
 
 	public SKSignShopObjectType getSignShopObjectType() {
 		return signShopObjectType;
 	}
 
+	// SIGN SHOP INDEX
+
+	// Called by the sign shop object when it gets activated:
+	void addSignShop(String worldName, int blockX, int blockY, int blockZ, AbstractShopkeeper shopkeeper) {
+		assert worldName != null && shopkeeper != null;
+		LongObjectHashMap<AbstractShopkeeper> worldSignShops = signShopsByBlock.get(worldName);
+		if (worldSignShops == null) {
+			worldSignShops = new LongObjectHashMap<>();
+			signShopsByBlock.put(worldName, worldSignShops);
+		}
+		AbstractShopkeeper previous = worldSignShops.put(BlockKeys.getBlockKey(blockX, blockY, blockZ), shopkeeper);
+		if (previous == null) {
+			signShopChunks.addBlock(worldName, blockX, blockZ);
+		}
+	}
+
+	// Called by the sign shop object when it gets deactivated:
+	void removeSignShop(String worldName, int blockX, int blockY, int blockZ, AbstractShopkeeper shopkeeper) {
+		assert worldName != null && shopkeeper != null;
+		LongObjectHashMap<AbstractShopkeeper> worldSignShops = signShopsByBlock.get(worldName);
+		if (worldSignShops == null) return;
+		long blockKey = BlockKeys.getBlockKey(blockX, blockY, blockZ);
+		if (worldSignShops.get(blockKey) != shopkeeper) return; // Not indexed, or replaced by another shopkeeper
+		worldSignShops.remove(blockKey);
+		signShopChunks.removeBlock(worldName, blockX, blockZ);
+		if (worldSignShops.isEmpty()) {
+			signShopsByBlock.remove(worldName);
+		}
+	}
+
+	/**
+	 * Quickly checks if the block at the specified coordinates might be, or be adjacent to, a sign shop.
+	 * <p>
+	 * This only checks if the block's chunk contains, or is adjacent to, any active sign shops. If this returns
+	 * <code>false</code>, neither the block nor any of its adjacent blocks are sign shops.
+	 * 
+	 * @param worldName
+	 *            the world name
+	 * @param blockX
+	 *            the block's x coordinate
+	 * @param blockZ
+	 *            the block's z coordinate
+	 * @return <code>false</code> if there are definitely no sign shops at or adjacent to the block
+	 */
+	boolean mightBeNearSignShop(String worldName, int blockX, int blockZ) {
+		return signShopChunks.containsBlockChunk(worldName, blockX, blockZ);
+	}
+
+	ChunkIndex getSignShopChunks() {
+		return signShopChunks;
+	}
+
+	// Gets the active sign shops of the specified world, or null if there are none:
+	LongObjectHashMap<AbstractShopkeeper> getSignShops(String worldName) {
+		return signShopsByBlock.get(worldName);
+	}
+
 	public AbstractShopkeeper getSignShop(Block block) {
 		if (block == null) return null;
 		return this.getSignShop(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
 	}
 
 	AbstractShopkeeper getSignShop(String worldName, int blockX, int blockY, int blockZ) {
-		String objectId = signShopObjectType.createObjectId(worldName, blockX, blockY, blockZ);
-		AbstractShopkeeper shopkeeper = plugin.getShopkeeperRegistry().getActiveShopkeeper(objectId);
-		if (shopkeeper != null && shopkeeper.getShopObject() instanceof SKSignShopObject) {
-			return shopkeeper;
-		} else {
-			return null;
-		}
+		LongObjectHashMap<AbstractShopkeeper> worldSignShops = signShopsByBlock.get(worldName);
+		if (worldSignShops == null) return null;
+		return worldSignShops.get(BlockKeys.getBlockKey(blockX, blockY, blockZ));
 	}
 
 	public boolean isSignShop(Block block) {
 		return (this.getSignShop(block) != null);
 	}
 
-	boolean isSignShop(String worldName, int blockX, int blockY, int blockZ) {
-		return (this.getSignShop(worldName, blockX, blockY, blockZ) != null);
-	}
-
 	void cancelNextBlockPhysics(Block block) {
 		signShopListener.cancelNextBlockPhysics(block);
 	}
@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.spigot.text;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
@@ -10,6 +12,7 @@ import com.nisovin.shopkeepers.text.ClickEventText;
 import com.nisovin.shopkeepers.text.FormattingText;
 import com.nisovin.shopkeepers.text.HoverEventText;
 import com.nisovin.shopkeepers.text.InsertionText;
+import com.nisovin.shopkeepers.text.MessageTemplate;
 import com.nisovin.shopkeepers.text.PlaceholderText;
 import com.nisovin.shopkeepers.text.PlainText;
 import com.nisovin.shopkeepers.text.Text;
@@ -42,6 +45,24 @@ public class SpigotText {
 		}
 	}
 
+	// Note: This is not intended to be called directly, but only via TextUtils.
+	// This does not modify any shared state and can therefore also be called from other threads than the main thread.
+	public static void sendMessage(CommandSender recipient, MessageTemplate template, Text[] arguments) {
+		Validate.notNull(recipient, "Recipient is null!");
+		Validate.notNull(template, "Template is null!");
+		// Skip sending if the (plain) message is empty: Allows disabling of messages.
+		if (template.isPlainTextEmpty(arguments)) return;
+
+		if (SpigotFeatures.isSpigotAvailable()) {
+			// Send message with additional text features:
+			Internal.sendMessage(recipient, template, arguments);
+		} else {
+			// Fallback: Send message as plain text.
+			String plainMessage = template.toPlainText(arguments);
+			TextUtils.sendMessage(recipient, plainMessage);
+		}
+	}
+
 	public static boolean debugging = false;
 
 	// Separate class that gets only accessed if Spigot is present. Avoids class loading issues.
@@ -61,6 +82,100 @@ public class SpigotText {
 			recipient.spigot().sendMessage(component);
 		}
 
+		public static void sendMessage(CommandSender recipient, MessageTemplate template, Text[] arguments) {
+			assert recipient != null && template != null && arguments != null;
+			BaseComponent[] components = toSpigot(template, arguments);
+			if (components == null) {
+				// Fallback: Convert a copy of the Text with the bound arguments.
+				sendMessage(recipient, template.bind(arguments));
+				return;
+			}
+			if (debugging) {
+				System.out.println("Template: " + template);
+				System.out.println("Plain text: " + template.toPlainText(arguments));
+				System.out.println("Components: " + Arrays.toString(components));
+			}
+			recipient.spigot().sendMessage(components);
+		}
+
+		// TEMPLATES
+
+		// The pre-built components of a MessageTemplate:
+		private static final class CompiledTemplate {
+
+			// By segment index:
+			// The pre-built components of the constant segments. Null for placeholder segments.
+			// Note: These components are not sent directly, but are duplicated for every sent message: Spigot adds
+			// the sent components as children to a new root component (which modifies their parent), and the
+			// components are serialized asynchronously by the network threads.
+			private final BaseComponent[] constantComponents;
+			// The text styles at the start of the placeholder segments. Null for constant segments.
+			private final TextStyle[] placeholderStyles;
+
+			CompiledTemplate(MessageTemplate template) {
+				List<MessageTemplate.Segment> segments = template.getSegments();
+				int segmentsCount = segments.size();
+				constantComponents = new BaseComponent[segmentsCount];
+				placeholderStyles = new TextStyle[segmentsCount];
+				TextStyle textStyle = new TextStyle();
+				for (int i = 0; i < segmentsCount; ++i) {
+					MessageTemplate.Segment segment = segments.get(i);
+					if (segment.isPlaceholder()) {
+						placeholderStyles[i] = textStyle.copy();
+					} else {
+						// This modifies the TextStyle to contain the last encountered style:
+						BaseComponent root = new TextComponent();
+						toSpigot(segment.getStart(), null, root, textStyle, segment.getEnd());
+						constantComponents[i] = root;
+					}
+				}
+			}
+		}
+
+		private static CompiledTemplate getCompiledTemplate(MessageTemplate template) {
+			Object rendererData = template.getRendererData();
+			if (rendererData instanceof CompiledTemplate) {
+				return (CompiledTemplate) rendererData;
+			}
+			CompiledTemplate compiledTemplate = new CompiledTemplate(template);
+			template.setRendererData(compiledTemplate);
+			return compiledTemplate;
+		}
+
+		// Returns null if the message cannot be created from the pre-built components of the template.
+		private static BaseComponent[] toSpigot(MessageTemplate template, Text[] arguments) {
+			if (template.isDynamic()) return null;
+			CompiledTemplate compiledTemplate = getCompiledTemplate(template);
+			List<MessageTemplate.Segment> segments = template.getSegments();
+			int segmentsCount = segments.size();
+			BaseComponent[] components = new BaseComponent[segmentsCount];
+			int argumentIndex = 0;
+			for (int i = 0; i < segmentsCount; ++i) {
+				BaseComponent constantComponent = compiledTemplate.constantComponents[i];
+				if (constantComponent != null) {
+					// Duplicating the pre-built component is still cheaper than converting the segment again:
+					components[i] = constantComponent.duplicate();
+					continue;
+				}
+
+				TextStyle placeholderStyle = compiledTemplate.placeholderStyles[i];
+				TextStyle textStyle = placeholderStyle.copy();
+				BaseComponent root = new TextComponent();
+				Text argument = arguments[argumentIndex++];
+				if (argument == null) {
+					// Missing argument: Use the formatted placeholder key.
+					newTextComponent(root, textStyle).setText(segments.get(i).getPlainText());
+				} else {
+					toSpigot(argument, null, root, textStyle, null);
+					// The components of the subsequent constant segments have been built with the text style at the
+					// start of the placeholder. If the argument changed the text style, we cannot use them:
+					if (!textStyle.isSimilar(placeholderStyle)) return null;
+				}
+				components[i] = root;
+			}
+			return components;
+		}
+
 		// CONVERSION
 
 		private static final class TextStyle {
@@ -101,6 +216,27 @@ public class SpigotText {
 				}
 			}
 
+			public TextStyle copy() {
+				TextStyle copy = new TextStyle();
+				copy.color = color;
+				copy.bold = bold;
+				copy.italic = italic;
+				copy.underlined = underlined;
+				copy.strikethrough = strikethrough;
+				copy.obfuscated = obfuscated;
+				return copy;
+			}
+
+			public boolean isSimilar(TextStyle other) {
+				assert other != null;
+				return color == other.color
+						&& Objects.equals(bold, other.bold)
+						&& Objects.equals(italic, other.italic)
+						&& Objects.equals(underlined, other.underlined)
+						&& Objects.equals(strikethrough, other.strikethrough)
+						&& Objects.equals(obfuscated, other.obfuscated);
+			}
+
 			public void reset() {
 				color = null;
 				bold = null;
@@ -124,11 +260,12 @@ public class SpigotText {
 		private static BaseComponent toSpigot(Text text) {
 			if (text == null) return null;
 			BaseComponent root = new TextComponent();
-			toSpigot(text, null, root, new TextStyle());
+			toSpigot(text, null, root, new TextStyle(), null);
 			return root;
 		}
 
-		private static BaseComponent toSpigot(Text text, TextComponent current, BaseComponent parent, TextStyle textStyle) {
+		// Stops the conversion of subsequent Texts once the given end Text is reached (can be null).
+		private static BaseComponent toSpigot(Text text, TextComponent current, BaseComponent parent, TextStyle textStyle, Text end) {
 			assert text != null && parent != null && textStyle != null;
 
 			// Conversion depending on type of Text and whether it can be combined with the current component or a new
@@ -223,13 +360,13 @@ public class SpigotText {
 			Text child = text.getChild();
 			if (child != null) {
 				// This modifies the passed TextStyle to contain the last encountered style:
-				toSpigot(child, current, component, textStyle);
+				toSpigot(child, current, component, textStyle, null);
 			}
 
 			// Next: Add as child to parent component to not inherit the features of the current component.
 			Text next = text.getNext();
-			if (next != null) {
-				toSpigot(next, current, parent, textStyle);
+			if (next != null && next != end) {
+				toSpigot(next, current, parent, textStyle, end);
 			}
 			return component;
 		}
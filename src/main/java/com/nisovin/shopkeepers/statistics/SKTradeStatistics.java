@@ -0,0 +1,418 @@
+package com.nisovin.shopkeepers.statistics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.Settings;
+import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.player.buy.BuyingPlayerShopkeeper;
+import com.nisovin.shopkeepers.api.statistics.TradeStatistics;
+import com.nisovin.shopkeepers.util.ConversionUtils;
+import com.nisovin.shopkeepers.util.Log;
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Aggregates the trades of shopkeepers and shop owners into hourly and daily buckets.
+ * <p>
+ * The statistics of shopkeepers are stored by shopkeeper id, and the statistics of shop owners by an index that gets
+ * assigned to each owner. Changes are periodically appended to daily CSV files inside the 'trade-statistics' folder,
+ * which are replayed when the statistics are enabled. Only the changes since the last flush get written.
+ * <p>
+ * The statistics are only accessed and updated on the server's main thread.
+ */
+public class SKTradeStatistics implements TradeStatistics, Listener {
+
+	private static final String FOLDER_NAME = "trade-statistics";
+	private static final String FILE_EXTENSION = ".csv";
+	private static final String HEADER = "HOUR,SHOP,OWNER,TRADES,ITEMS,CURRENCY";
+	private static final long FLUSH_PERIOD_TICKS = 6000L; // 5 minutes
+	private static final int STATISTICS = Statistic.values().length;
+
+	// The changes of a shopkeeper during a specific hour that have not yet been written:
+	private static class PendingKey {
+
+		private final long hour;
+		private final UUID shopUUID;
+		private final UUID ownerUUID; // Can be null
+
+		PendingKey(long hour, UUID shopUUID, UUID ownerUUID) {
+			this.hour = hour;
+			this.shopUUID = shopUUID;
+			this.ownerUUID = ownerUUID;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(hour, shopUUID, ownerUUID);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof PendingKey)) return false;
+			PendingKey other = (PendingKey) obj;
+			return hour == other.hour && shopUUID.equals(other.shopUUID) && Objects.equals(ownerUUID, other.ownerUUID);
+		}
+	}
+
+	private final SKShopkeepersPlugin plugin;
+	private final Object fileLock = new Object(); // Serializes the writing of changes
+	private boolean enabled = false;
+	private BukkitTask flushTask = null;
+
+	// Rows: Shopkeeper ids
+	private StatisticsTable shopkeeperStatistics = new StatisticsTable();
+	// Rows: Owner indices
+	private StatisticsTable ownerStatistics = new StatisticsTable();
+	private final Map<UUID, Integer> ownerRows = new HashMap<>();
+	// The local hour (hours since the epoch, based on the local date and time) of the current buckets:
+	private long currentHour;
+	private Map<PendingKey, int[]> pendingChanges = new LinkedHashMap<>();
+
+	public SKTradeStatistics(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		if (!Settings.enableTradeStatistics) return;
+		if (enabled) return; // Already enabled
+		enabled = true;
+		currentHour = getCurrentHour();
+		this.load();
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+		flushTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> this.flush(true), FLUSH_PERIOD_TICKS, FLUSH_PERIOD_TICKS);
+	}
+
+	public void onDisable() {
+		if (!enabled) return; // Not enabled
+		HandlerList.unregisterAll(this);
+		flushTask.cancel();
+		flushTask = null;
+		// Write the remaining changes synchronously:
+		this.flush(false);
+		enabled = false;
+		shopkeeperStatistics = new StatisticsTable();
+		ownerStatistics = new StatisticsTable();
+		ownerRows.clear();
+	}
+
+	// BUCKETS
+
+	private static long getCurrentHour() {
+		LocalDateTime now = LocalDateTime.now();
+		return now.toLocalDate().toEpochDay() * 24 + now.getHour();
+	}
+
+	private static LocalDateTime toDateTime(long hour) {
+		return LocalDate.ofEpochDay(Math.floorDiv(hour, 24)).atTime((int) Math.floorMod(hour, 24), 0);
+	}
+
+	private static long toHour(LocalDateTime dateTime) {
+		return dateTime.toLocalDate().toEpochDay() * 24 + dateTime.getHour();
+	}
+
+	private static int getHourlyBucket(long hour) {
+		return (int) Math.floorMod(hour, StatisticsTable.HOURLY_BUCKETS);
+	}
+
+	private static int getDailyBucket(long day) {
+		return (int) Math.floorMod(day, StatisticsTable.DAILY_BUCKETS);
+	}
+
+	// Clears the buckets of the hours and days that have passed since the last update:
+	private void updateBuckets() {
+		long hour = getCurrentHour();
+		// This also ignores clock changes into the past:
+		if (hour <= currentHour) return;
+
+		long firstHour = Math.max(currentHour + 1, hour - StatisticsTable.HOURLY_BUCKETS + 1);
+		for (long clearedHour = firstHour; clearedHour <= hour; ++clearedHour) {
+			shopkeeperStatistics.clearHourly(getHourlyBucket(clearedHour));
+			ownerStatistics.clearHourly(getHourlyBucket(clearedHour));
+		}
+
+		long currentDay = Math.floorDiv(currentHour, 24);
+		long day = Math.floorDiv(hour, 24);
+		long firstDay = Math.max(currentDay + 1, day - StatisticsTable.DAILY_BUCKETS + 1);
+		for (long clearedDay = firstDay; clearedDay <= day; ++clearedDay) {
+			shopkeeperStatistics.clearDaily(getDailyBucket(clearedDay));
+			ownerStatistics.clearDaily(getDailyBucket(clearedDay));
+		}
+		currentHour = hour;
+	}
+
+	private int getOwnerRow(UUID ownerUUID) {
+		return ownerRows.computeIfAbsent(ownerUUID, uuid -> ownerRows.size());
+	}
+
+	// Adds the given values to the buckets of the given hour. Returns false if the hour is out of range.
+	private boolean addValues(long hour, Shopkeeper shopkeeper, UUID ownerUUID, int[] values) {
+		if (hour > currentHour) return false;
+		int hourlyBucket = (currentHour - hour < StatisticsTable.HOURLY_BUCKETS) ? getHourlyBucket(hour) : -1;
+		long day = Math.floorDiv(hour, 24);
+		int dailyBucket = (Math.floorDiv(currentHour, 24) - day < StatisticsTable.DAILY_BUCKETS) ? getDailyBucket(day) : -1;
+		if (dailyBucket == -1) return false;
+
+		if (shopkeeper != null) {
+			shopkeeperStatistics.add(shopkeeper.getId(), hourlyBucket, dailyBucket, values);
+		}
+		if (ownerUUID != null) {
+			ownerStatistics.add(this.getOwnerRow(ownerUUID), hourlyBucket, dailyBucket, values);
+		}
+		return true;
+	}
+
+	// TRADES
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onTradeCompleted(ShopkeeperTradeEvent event) {
+		Shopkeeper shopkeeper = event.getShopkeeper();
+		UUID ownerUUID = (shopkeeper instanceof PlayerShopkeeper) ? ((PlayerShopkeeper) shopkeeper).getOwnerUUID() : null;
+		TradingRecipe tradingRecipe = event.getTradingRecipe();
+
+		int[] values = new int[STATISTICS];
+		values[Statistic.TRADES.ordinal()] = 1;
+		// The traded items are counted from the side of the trade that contains the goods, and the currency from the
+		// side that contains the payment. Buying shops pay for the items they receive, whereas all other shops receive
+		// the payment for the items they give away:
+		if (shopkeeper instanceof BuyingPlayerShopkeeper) {
+			addItems(values, tradingRecipe.getItem1());
+			addItems(values, tradingRecipe.getItem2());
+			addCurrency(values, tradingRecipe.getResultItem());
+		} else {
+			addItems(values, tradingRecipe.getResultItem());
+			addCurrency(values, tradingRecipe.getItem1());
+			addCurrency(values, tradingRecipe.getItem2());
+		}
+
+		this.updateBuckets();
+		this.addValues(currentHour, shopkeeper, ownerUUID, values);
+
+		// Remember the change for the next flush:
+		PendingKey key = new PendingKey(currentHour, shopkeeper.getUniqueId(), ownerUUID);
+		int[] pendingValues = pendingChanges.computeIfAbsent(key, k -> new int[STATISTICS]);
+		for (int statistic = 0; statistic < STATISTICS; ++statistic) {
+			pendingValues[statistic] += values[statistic];
+		}
+	}
+
+	// Currency items are not counted as traded items:
+	private static void addItems(int[] values, ItemStack item) {
+		if (item == null) return;
+		if (Settings.isCurrencyItem(item) || Settings.isHighCurrencyItem(item)) return;
+		values[Statistic.ITEMS.ordinal()] += item.getAmount();
+	}
+
+	private static void addCurrency(int[] values, ItemStack item) {
+		if (item == null) return;
+		if (Settings.isCurrencyItem(item)) {
+			values[Statistic.CURRENCY.ordinal()] += item.getAmount();
+		} else if (Settings.isHighCurrencyItem(item)) {
+			values[Statistic.CURRENCY.ordinal()] += item.getAmount() * Settings.highCurrencyValue;
+		}
+	}
+
+	// QUERIES
+
+	@Override
+	public long getShopkeeperStatistic(Shopkeeper shopkeeper, Statistic statistic, Period period) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		return this.getStatistic(shopkeeperStatistics, shopkeeper.getId(), statistic, period);
+	}
+
+	@Override
+	public long getOwnerStatistic(UUID ownerUUID, Statistic statistic, Period period) {
+		Validate.notNull(ownerUUID, "ownerUUID is null");
+		Integer row = ownerRows.get(ownerUUID);
+		if (row == null) return 0L;
+		return this.getStatistic(ownerStatistics, row, statistic, period);
+	}
+
+	private long getStatistic(StatisticsTable statistics, int row, Statistic statistic, Period period) {
+		Validate.notNull(statistic, "statistic is null");
+		Validate.notNull(period, "period is null");
+		if (!enabled) return 0L;
+		this.updateBuckets();
+		int hourlyBucket = getHourlyBucket(currentHour);
+		int dailyBucket = getDailyBucket(Math.floorDiv(currentHour, 24));
+		switch (period) {
+		case CURRENT_HOUR:
+			return statistics.sumHourly(row, statistic, hourlyBucket, 1);
+		case LAST_24_HOURS:
+			return statistics.sumHourly(row, statistic, hourlyBucket, 24);
+		case LAST_7_DAYS:
+			return statistics.sumDaily(row, statistic, dailyBucket, 7);
+		case LAST_30_DAYS:
+			return statistics.sumDaily(row, statistic, dailyBucket, 30);
+		default:
+			throw new IllegalArgumentException("Unsupported period: " + period);
+		}
+	}
+
+	@Override
+	public List<Shopkeeper> getTopShopkeepers(Statistic statistic, Period period, int limit) {
+		Validate.isTrue(limit > 0, "limit has to be positive");
+		if (!enabled) return Collections.emptyList();
+		// Keeps the top shopkeepers, with the lowest value at the head:
+		Map<Shopkeeper, Long> values = new HashMap<>();
+		PriorityQueue<Shopkeeper> topShopkeepers = new PriorityQueue<>(limit + 1, (s1, s2) -> Long.compare(values.get(s1), values.get(s2)));
+		for (Shopkeeper shopkeeper : plugin.getShopkeeperRegistry().getAllShopkeepers()) {
+			long value = this.getShopkeeperStatistic(shopkeeper, statistic, period);
+			if (value <= 0L) continue;
+			values.put(shopkeeper, value);
+			topShopkeepers.add(shopkeeper);
+			if (topShopkeepers.size() > limit) {
+				values.remove(topShopkeepers.poll());
+			}
+		}
+		List<Shopkeeper> result = new ArrayList<>(topShopkeepers);
+		result.sort((s1, s2) -> Long.compare(values.get(s2), values.get(s1)));
+		return result;
+	}
+
+	// PERSISTENCE
+
+	private File getFolder() {
+		return new File(plugin.getSKDataFolder(), FOLDER_NAME);
+	}
+
+	private File getFile(LocalDate date) {
+		return new File(this.getFolder(), date.format(DateTimeFormatter.ISO_LOCAL_DATE) + FILE_EXTENSION);
+	}
+
+	// Replays the changes of the days that are covered by the daily buckets:
+	private void load() {
+		LocalDate today = LocalDate.ofEpochDay(Math.floorDiv(currentHour, 24));
+		for (int days = StatisticsTable.DAILY_BUCKETS - 1; days >= 0; --days) {
+			File file = this.getFile(today.minusDays(days));
+			if (!file.exists()) continue;
+			List<String> lines;
+			try {
+				lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			} catch (IOException e) {
+				Log.warning("Could not read trade statistics file '" + file.getName() + "'!", e);
+				continue;
+			}
+			int invalidLines = 0;
+			for (String line : lines) {
+				if (line.isEmpty() || line.equals(HEADER)) continue;
+				if (!this.loadLine(line)) {
+					invalidLines++;
+				}
+			}
+			if (invalidLines > 0) {
+				Log.warning("Ignored " + invalidLines + " invalid lines of trade statistics file '" + file.getName() + "'.");
+			}
+		}
+	}
+
+	// Returns false if the line is invalid:
+	private boolean loadLine(String line) {
+		String[] columns = line.split(",", -1);
+		if (columns.length != 3 + STATISTICS) return false;
+		long hour;
+		try {
+			hour = toHour(LocalDateTime.parse(columns[0], DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+		UUID shopUUID = ConversionUtils.parseUUID(columns[1]);
+		if (shopUUID == null) return false;
+		UUID ownerUUID = null;
+		if (!columns[2].isEmpty()) {
+			ownerUUID = ConversionUtils.parseUUID(columns[2]);
+			if (ownerUUID == null) return false;
+		}
+		int[] values = new int[STATISTICS];
+		for (int statistic = 0; statistic < STATISTICS; ++statistic) {
+			Integer value = ConversionUtils.parseInt(columns[3 + statistic]);
+			if (value == null) return false;
+			values[statistic] = value;
+		}
+		// The shopkeeper might no longer exist:
+		Shopkeeper shopkeeper = plugin.getShopkeeperRegistry().getShopkeeperByUniqueId(shopUUID);
+		this.addValues(hour, shopkeeper, ownerUUID, values);
+		return true;
+	}
+
+	private void flush(boolean async) {
+		if (pendingChanges.isEmpty()) return;
+		// Capture the changes on the main thread:
+		Map<LocalDate, List<String>> linesByDate = new LinkedHashMap<>();
+		for (Entry<PendingKey, int[]> entry : pendingChanges.entrySet()) {
+			PendingKey key = entry.getKey();
+			int[] values = entry.getValue();
+			LocalDateTime dateTime = toDateTime(key.hour);
+			StringBuilder line = new StringBuilder();
+			line.append(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+			line.append(',').append(key.shopUUID);
+			line.append(',').append(key.ownerUUID != null ? key.ownerUUID : "");
+			for (int value : values) {
+				line.append(',').append(value);
+			}
+			linesByDate.computeIfAbsent(dateTime.toLocalDate(), date -> new ArrayList<>()).add(line.toString());
+		}
+		pendingChanges = new LinkedHashMap<>();
+
+		if (async) {
+			Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> this.write(linesByDate));
+		} else {
+			this.write(linesByDate);
+		}
+	}
+
+	private void write(Map<LocalDate, List<String>> linesByDate) {
+		synchronized (fileLock) {
+			for (Entry<LocalDate, List<String>> entry : linesByDate.entrySet()) {
+				File file = this.getFile(entry.getKey());
+				try {
+					boolean isNew = !file.exists();
+					file.getParentFile().mkdirs();
+					try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+							StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+						if (isNew) {
+							writer.write(HEADER);
+							writer.newLine();
+						}
+						for (String line : entry.getValue()) {
+							writer.write(line);
+							writer.newLine();
+						}
+					}
+				} catch (IOException e) {
+					Log.warning("Could not write trade statistics to '" + file.getName() + "'!", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.nisovin.shopkeepers.statistics;
+
+import java.util.Arrays;
+
+import com.nisovin.shopkeepers.api.statistics.TradeStatistics.Statistic;
+
+/**
+ * Stores the values of all {@link Statistic statistics} of a number of rows (eg. shopkeepers) in hourly and daily
+ * buckets.
+ * <p>
+ * The values are stored in a single primitive array, which grows as rows with higher indices get used. The buckets are
+ * used as ring buffers: The caller is responsible for clearing the buckets of hours and days that have passed, before
+ * their buckets get reused.
+ */
+class StatisticsTable {
+
+	static final int HOURLY_BUCKETS = 24;
+	static final int DAILY_BUCKETS = 30;
+
+	private static final int STATISTICS = Statistic.values().length;
+	private static final int BUCKETS = HOURLY_BUCKETS + DAILY_BUCKETS;
+	private static final int ROW_SIZE = BUCKETS * STATISTICS;
+	private static final int DEFAULT_ROWS = 16;
+
+	private int[] values = new int[DEFAULT_ROWS * ROW_SIZE];
+
+	private static int getIndex(int row, int bucket, int statistic) {
+		return (row * ROW_SIZE) + (bucket * STATISTICS) + statistic;
+	}
+
+	private void ensureCapacity(int row) {
+		int requiredLength = (row + 1) * ROW_SIZE;
+		if (requiredLength <= values.length) return;
+		int newLength = Math.max(requiredLength, values.length * 2);
+		values = Arrays.copyOf(values, newLength);
+	}
+
+	/**
+	 * Adds the given values to the specified hourly and daily buckets of the specified row.
+	 *
+	 * @param row
+	 *            the row
+	 * @param hourlyBucket
+	 *            the hourly bucket, or <code>-1</code> to skip
+	 * @param dailyBucket
+	 *            the daily bucket, or <code>-1</code> to skip
+	 * @param values
+	 *            the values, indexed by the ordinals of the statistics
+	 */
+	void add(int row, int hourlyBucket, int dailyBucket, int[] values) {
+		assert row >= 0 && values.length == STATISTICS;
+		this.ensureCapacity(row);
+		if (hourlyBucket >= 0) {
+			this.add(getIndex(row, hourlyBucket, 0), values);
+		}
+		if (dailyBucket >= 0) {
+			this.add(getIndex(row, HOURLY_BUCKETS + dailyBucket, 0), values);
+		}
+	}
+
+	private void add(int index, int[] values) {
+		for (int statistic = 0; statistic < STATISTICS; ++statistic) {
+			this.values[index + statistic] += values[statistic];
+		}
+	}
+
+	/**
+	 * Sums the values of the specified statistic of the given number of most recent hourly buckets.
+	 *
+	 * @param row
+	 *            the row
+	 * @param statistic
+	 *            the statistic
+	 * @param currentBucket
+	 *            the hourly bucket of the current hour
+	 * @param bucketCount
+	 *            the number of buckets to sum, starting at the current bucket and going backwards in time
+	 * @return the sum
+	 */
+	long sumHourly(int row, Statistic statistic, int currentBucket, int bucketCount) {
+		return this.sum(row, statistic, 0, HOURLY_BUCKETS, currentBucket, bucketCount);
+	}
+
+	/**
+	 * Sums the values of the specified statistic of the given number of most recent daily buckets.
+	 *
+	 * @param row
+	 *            the row
+	 * @param statistic
+	 *            the statistic
+	 * @param currentBucket
+	 *            the daily bucket of the current day
+	 * @param bucketCount
+	 *            the number of buckets to sum, starting at the current bucket and going backwards in time
+	 * @return the sum
+	 */
+	long sumDaily(int row, Statistic statistic, int currentBucket, int bucketCount) {
+		return this.sum(row, statistic, HOURLY_BUCKETS, DAILY_BUCKETS, currentBucket, bucketCount);
+	}
+
+	private long sum(int row, Statistic statistic, int firstBucket, int buckets, int currentBucket, int bucketCount) {
+		assert bucketCount <= buckets;
+		if ((row + 1) * ROW_SIZE > values.length) return 0L; // No values for this row
+		long sum = 0L;
+		int bucket = currentBucket;
+		for (int i = 0; i < bucketCount; ++i) {
+			sum += values[getIndex(row, firstBucket + bucket, statistic.ordinal())];
+			bucket = (bucket == 0) ? (buckets - 1) : (bucket - 1);
+		}
+		return sum;
+	}
+
+	/**
+	 * Clears the specified hourly bucket of all rows.
+	 *
+	 * @param bucket
+	 *            the hourly bucket
+	 */
+	void clearHourly(int bucket) {
+		this.clear(bucket);
+	}
+
+	/**
+	 * Clears the specified daily bucket of all rows.
+	 *
+	 * @param bucket
+	 *            the daily bucket
+	 */
+	void clearDaily(int bucket) {
+		this.clear(HOURLY_BUCKETS + bucket);
+	}
+
+	private void clear(int bucket) {
+		for (int index = bucket * STATISTICS; index < values.length; index += ROW_SIZE) {
+			Arrays.fill(values, index, index + STATISTICS, 0);
+		}
+	}
+}
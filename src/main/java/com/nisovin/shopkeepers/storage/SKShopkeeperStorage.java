@@ -23,6 +23,8 @@ import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperCreateException;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
+import com.nisovin.shopkeepers.debug.timings.Timings;
+import com.nisovin.shopkeepers.debug.timings.TimingsRegistry;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKShopkeeperRegistry;
@@ -70,6 +72,9 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	private final int minecraftDataVersion;
 	private final DataVersion currentDataVersion;
 
+	private final Timings packingTimings = TimingsRegistry.create("Save data packing");
+	private final Timings ioTimings = TimingsRegistry.create("Save IO");
+
 	/*
 	 * Holds the data that gets used by the current/next (possibly async) save task.
 	 * This also contains any data of shopkeepers that could not be loaded correctly.
@@ -606,6 +611,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		saveResult.reset();
 		saveResult.async = async;
 		saveResult.startTime = System.currentTimeMillis();
+		packingTimings.start();
 
 		// Setup the file header:
 		// This replaces any previously existing and loaded header and thereby ensures that it is always up-to-date
@@ -646,6 +652,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 		// Time to store shopkeeper data in memory configuration:
 		saveResult.packingDuration = System.currentTimeMillis() - saveResult.startTime;
+		packingTimings.stop();
 
 		// Note: The dirty flag might get reverted again after saving, if saving failed.
 		// However, the flag gets reset here (and not just after successful saving), so that any saving requests that
@@ -701,6 +708,8 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 				if (saveResult.state == SaveResult.State.SUCCESS || saveResult.state == SaveResult.State.FAILURE) {
 					// Print debug info:
 					saveResult.printDebugInfo();
+					// The IO might have happened async, so we record its timing here on the main thread:
+					ioTimings.record(saveResult.ioDurationNanos);
 
 					// saving failed?
 					if (saveResult.state != SaveResult.State.SUCCESS) {
@@ -787,6 +796,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		assert config != null;
 		// Actual IO:
 		final long ioStartTime = System.currentTimeMillis();
+		final long ioStartTimeNanos = System.nanoTime();
 
 		File saveFile = this.getSaveFile();
 		File tempSaveFile = this.getTempSaveFile();
@@ -959,6 +969,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 		final long now = System.currentTimeMillis();
 		saveResult.ioDuration = now - ioStartTime; // Time for pure io
+		saveResult.ioDurationNanos = System.nanoTime() - ioStartTimeNanos;
 		saveResult.totalDuration = now - saveResult.startTime; // Time from saveReal() call to finished save
 
 		// File IO is over.
@@ -991,6 +1002,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		private long asyncTaskDelay;
 		private long ioLockAcquireDuration;
 		private long ioDuration;
+		private long ioDurationNanos;
 		private long totalDuration;
 
 		public void reset() {
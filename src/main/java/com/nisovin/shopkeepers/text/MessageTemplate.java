@@ -0,0 +1,416 @@
+package com.nisovin.shopkeepers.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * An immutable, pre-processed form of a {@link Text} that can be rendered with different placeholder arguments.
+ * <p>
+ * Unlike {@link Text#setPlaceholderArguments(Map)}, binding arguments to a template does not modify any shared state.
+ * Templates can therefore be safely shared and rendered by multiple threads at the same time.
+ * <p>
+ * The template splits the top-level chain of its Text into {@link Segment segments}: Constant segments, which contain
+ * no placeholders and can be rendered once up front, and placeholder segments, which get replaced with the
+ * corresponding arguments during rendering. If the Text contains placeholders that are not part of its top-level chain
+ * (eg. placeholders inside a hover event), the template is {@link #isDynamic() dynamic} and rendering falls back to
+ * binding the arguments to a private copy of the Text.
+ */
+public final class MessageTemplate {
+
+	/**
+	 * A segment of a {@link MessageTemplate}.
+	 */
+	public static final class Segment {
+
+		private final Text start; // Not null
+		private final Text end; // Exclusive, null if the segment extends to the end of the chain
+		private final String placeholderKey; // Null for constant segments
+		private final String plainText; // The plain text, or the formatted placeholder key for placeholder segments
+
+		private Segment(Text start, Text end, String placeholderKey, String plainText) {
+			this.start = start;
+			this.end = end;
+			this.placeholderKey = placeholderKey;
+			this.plainText = plainText;
+		}
+
+		/**
+		 * Gets the first {@link Text} of this segment.
+		 * <p>
+		 * The returned Text is owned by the template and must not be modified.
+		 *
+		 * @return the first Text of this segment
+		 */
+		public Text getStart() {
+			return start;
+		}
+
+		/**
+		 * Gets the {@link Text} that follows the last Text of this segment.
+		 *
+		 * @return the Text after this segment, or <code>null</code> if this is the last segment
+		 */
+		public Text getEnd() {
+			return end;
+		}
+
+		public boolean isPlaceholder() {
+			return (placeholderKey != null);
+		}
+
+		/**
+		 * Gets the placeholder key.
+		 *
+		 * @return the placeholder key, or <code>null</code> if this is a constant segment
+		 */
+		public String getPlaceholderKey() {
+			return placeholderKey;
+		}
+
+		/**
+		 * Gets the plain text of this constant segment, or the formatted placeholder key of this placeholder segment.
+		 *
+		 * @return the plain text
+		 */
+		public String getPlainText() {
+			return plainText;
+		}
+	}
+
+	/**
+	 * Compiles the given {@link Text} into a {@link MessageTemplate}.
+	 * <p>
+	 * The template is based on a copy of the given Text, without any currently assigned placeholder arguments.
+	 * Subsequent changes to the given Text do not affect the template.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the template
+	 */
+	public static MessageTemplate compile(Text text) {
+		Validate.notNull(text, "text is null");
+		return new MessageTemplate(text);
+	}
+
+	private final Text text; // Private copy, not modified after construction
+	private final List<Segment> segments;
+	private final int placeholderCount;
+	private final boolean dynamic;
+	private final boolean constantPlainTextEmpty;
+	// Renderer-specific pre-processed data, created lazily. Created and published without synchronization: In case of
+	// a race, the data might get created more than once, but each instance is complete and equivalent.
+	private volatile Object rendererData = null;
+
+	private MessageTemplate(Text text) {
+		Text copy = text.copy();
+		copy.clearPlaceholderArguments();
+		this.text = copy;
+
+		List<Segment> segments = new ArrayList<>();
+		int placeholderCount = 0;
+		boolean dynamic = false;
+		Text constantStart = null;
+		Text current = copy;
+		while (current != null) {
+			Text next = current.getNext();
+			if (current instanceof PlaceholderText) {
+				if (constantStart != null) {
+					segments.add(createConstantSegment(constantStart, current));
+					constantStart = null;
+				}
+				PlaceholderText placeholderText = (PlaceholderText) current;
+				segments.add(new Segment(current, next, placeholderText.getPlaceholderKey(), placeholderText.getFormattedPlaceholderKey()));
+				placeholderCount++;
+			} else {
+				if (containsPlaceholders(current, false)) {
+					dynamic = true;
+				}
+				if (constantStart == null) {
+					constantStart = current;
+				}
+			}
+			current = next;
+		}
+		if (constantStart != null) {
+			segments.add(createConstantSegment(constantStart, null));
+		}
+
+		boolean constantPlainTextEmpty = true;
+		for (Segment segment : segments) {
+			if (!segment.isPlaceholder() && !segment.getPlainText().isEmpty()) {
+				constantPlainTextEmpty = false;
+				break;
+			}
+		}
+
+		this.segments = Collections.unmodifiableList(segments);
+		this.placeholderCount = placeholderCount;
+		this.dynamic = dynamic;
+		this.constantPlainTextEmpty = constantPlainTextEmpty;
+	}
+
+	private static Segment createConstantSegment(Text start, Text end) {
+		// The plain text of the segment is the plain text of the chain starting at the segment, without the plain text
+		// of the chain that follows the segment:
+		String plainText = start.toPlainText();
+		if (end != null) {
+			plainText = plainText.substring(0, plainText.length() - end.toPlainText().length());
+		}
+		return new Segment(start, end, null, plainText);
+	}
+
+	// Checks if the given Text or its childs (and optionally its subsequent Texts) contain any placeholders:
+	private static boolean containsPlaceholders(Text text, boolean checkNext) {
+		if (text == null) return false;
+		if (text instanceof PlaceholderText) return true;
+		if (text instanceof HoverEventText && containsPlaceholders(((HoverEventText) text).getValue(), true)) {
+			return true;
+		}
+		if (text instanceof TranslatableText) {
+			for (Text translationArgument : ((TranslatableText) text).getTranslationArguments()) {
+				if (containsPlaceholders(translationArgument, true)) return true;
+			}
+		}
+		if (containsPlaceholders(text.getChild(), true)) return true;
+		return checkNext && containsPlaceholders(text.getNext(), true);
+	}
+
+	/**
+	 * Gets a copy of the template's {@link Text}.
+	 *
+	 * @return a copy of the Text
+	 */
+	public Text getText() {
+		return text.copy();
+	}
+
+	/**
+	 * Gets the segments of this template.
+	 *
+	 * @return an unmodifiable view on the segments
+	 */
+	public List<Segment> getSegments() {
+		return segments;
+	}
+
+	/**
+	 * Gets the number of placeholder segments.
+	 *
+	 * @return the number of placeholder segments
+	 */
+	public int getPlaceholderCount() {
+		return placeholderCount;
+	}
+
+	/**
+	 * Checks whether this template contains placeholders outside of its top-level chain of Texts.
+	 * <p>
+	 * Dynamic templates cannot be rendered segment by segment, but require the arguments to be {@link #bind(Text[])
+	 * bound} to a copy of the template's Text.
+	 *
+	 * @return <code>true</code> if this template is dynamic
+	 */
+	public boolean isDynamic() {
+		return dynamic;
+	}
+
+	// REGISTERED TEMPLATES
+
+	// The registered templates by the identity of their Texts. Replaced as a whole whenever the templates get
+	// registered, so that it can be safely read by other threads.
+	private static volatile Map<Text, MessageTemplate> registeredTemplates = Collections.emptyMap();
+
+	/**
+	 * Replaces the registered message templates.
+	 * <p>
+	 * Sending one of the registered message Texts uses its registered template.
+	 * 
+	 * @param templates
+	 *            the templates by the identity of their message Texts, not modified afterwards
+	 */
+	public static void setRegisteredTemplates(Map<Text, MessageTemplate> templates) {
+		Validate.notNull(templates, "templates is null");
+		registeredTemplates = templates;
+	}
+
+	/**
+	 * Gets the registered {@link MessageTemplate} of the given message.
+	 * 
+	 * @param message
+	 *            the message Text
+	 * @return the message template, or <code>null</code> if there is no template registered for the given Text
+	 */
+	public static MessageTemplate getRegisteredTemplate(Text message) {
+		return registeredTemplates.get(message);
+	}
+
+	// Only intended to be used by renderers.
+	public Object getRendererData() {
+		return rendererData;
+	}
+
+	// Only intended to be used by renderers.
+	public void setRendererData(Object rendererData) {
+		this.rendererData = rendererData;
+	}
+
+	// ARGUMENTS
+
+	/**
+	 * Resolves the arguments for the placeholder segments of this template.
+	 * <p>
+	 * {@link java.util.function.Supplier Suppliers} get invoked to obtain the actual arguments. Non-{@link Text}
+	 * arguments are converted to Texts by using their String representation.
+	 *
+	 * @param arguments
+	 *            a mapping between placeholder keys and their arguments
+	 * @return the resolved arguments, indexed by the placeholder segments in order, <code>null</code> elements
+	 *         indicate missing arguments
+	 */
+	public Text[] resolveArguments(Map<String, ?> arguments) {
+		Validate.notNull(arguments, "arguments is null");
+		Text[] resolved = new Text[placeholderCount];
+		if (placeholderCount == 0) return resolved;
+		int index = 0;
+		for (Segment segment : segments) {
+			if (!segment.isPlaceholder()) continue;
+			resolved[index++] = toArgumentText(arguments.get(segment.getPlaceholderKey()));
+		}
+		return resolved;
+	}
+
+	/**
+	 * Resolves the arguments for the placeholder segments of this template.
+	 *
+	 * @param argumentPairs
+	 *            an array that pairwise contains placeholder keys (of type String) and their arguments in the format
+	 *            <code>[key1, value1, key2, value2, ...]</code>
+	 * @return the resolved arguments
+	 * @see #resolveArguments(Map)
+	 */
+	public Text[] resolveArguments(Object... argumentPairs) {
+		Validate.notNull(argumentPairs, "argumentPairs is null");
+		Validate.isTrue(argumentPairs.length % 2 == 0, "argumentPairs.length is not a multiple of 2");
+		Text[] resolved = new Text[placeholderCount];
+		if (placeholderCount == 0) return resolved;
+		int index = 0;
+		for (Segment segment : segments) {
+			if (!segment.isPlaceholder()) continue;
+			resolved[index++] = toArgumentText(getArgument(argumentPairs, segment.getPlaceholderKey()));
+		}
+		return resolved;
+	}
+
+	// Searching the few argument pairs directly is faster than preparing a Map:
+	private static Object getArgument(Object[] argumentPairs, String key) {
+		for (int i = 0; i < argumentPairs.length; i += 2) {
+			if (key.equals(argumentPairs[i])) {
+				return argumentPairs[i + 1];
+			}
+		}
+		return null;
+	}
+
+	private static Text toArgumentText(Object argument) {
+		if (argument == null) return null;
+		Text argumentText = Text.of(argument);
+		Validate.isTrue(argumentText.getParent() == null, "Cannot use non-root Text as placeholder argument!");
+		TextBuilder.buildIfRequired(argumentText);
+		return argumentText;
+	}
+
+	// RENDERING
+
+	/**
+	 * Creates a new {@link Text} with the given arguments.
+	 * <p>
+	 * The returned Text is a copy of the template's Text with the given placeholder arguments assigned.
+	 *
+	 * @param arguments
+	 *            the {@link #resolveArguments(Map) resolved} arguments
+	 * @return the new Text
+	 */
+	public Text bind(Text[] arguments) {
+		this.validateArguments(arguments);
+		Text copy = text.copy();
+		int index = 0;
+		Text current = copy;
+		while (current != null) {
+			if (current instanceof PlaceholderText) {
+				Text argument = arguments[index++];
+				if (argument != null) {
+					((PlaceholderText) current).setPlaceholderArgument(argument);
+				}
+			}
+			current = current.getNext();
+		}
+		return copy;
+	}
+
+	private void validateArguments(Text[] arguments) {
+		Validate.notNull(arguments, "arguments is null");
+		Validate.isTrue(arguments.length == placeholderCount, "arguments.length does not match the placeholder count");
+	}
+
+	/**
+	 * Renders this template with the given arguments to plain text, including color and formatting codes.
+	 * <p>
+	 * Missing arguments are rendered as their formatted placeholder keys.
+	 *
+	 * @param arguments
+	 *            the {@link #resolveArguments(Map) resolved} arguments
+	 * @return the plain text
+	 * @see Text#toPlainText()
+	 */
+	public String toPlainText(Text[] arguments) {
+		this.validateArguments(arguments);
+		if (dynamic) {
+			return this.bind(arguments).toPlainText();
+		}
+		StringBuilder builder = new StringBuilder();
+		int index = 0;
+		for (Segment segment : segments) {
+			if (segment.isPlaceholder()) {
+				Text argument = arguments[index++];
+				if (argument != null) {
+					((AbstractText) argument).appendPlainText(builder, false);
+					continue;
+				}
+			}
+			builder.append(segment.getPlainText());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Checks if the plain text of this template with the given arguments is empty.
+	 *
+	 * @param arguments
+	 *            the {@link #resolveArguments(Map) resolved} arguments
+	 * @return <code>true</code> if the plain text is empty
+	 * @see Text#isPlainTextEmpty()
+	 */
+	public boolean isPlainTextEmpty(Text[] arguments) {
+		this.validateArguments(arguments);
+		if (dynamic) {
+			return this.bind(arguments).isPlainTextEmpty();
+		}
+		if (!constantPlainTextEmpty) return false;
+		for (Text argument : arguments) {
+			// Missing arguments are rendered as the non-empty formatted placeholder key:
+			if (argument == null || !argument.isPlainTextEmpty()) return false;
+		}
+		return true;
+	}
+
+	// JAVA OBJECT
+
+	@Override
+	public String toString() {
+		return "MessageTemplate [text=" + text.toPlainFormatText() + ", segments=" + segments.size() + "]";
+	}
+}
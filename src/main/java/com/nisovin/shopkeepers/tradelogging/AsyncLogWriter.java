@@ -0,0 +1,457 @@
+package com.nisovin.shopkeepers.tradelogging;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+import com.nisovin.shopkeepers.util.Log;
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Appends lines to daily log files on a separate writer thread.
+ * <p>
+ * Log lines are put on a bounded queue and then written by a single writer thread to a file that is kept open until
+ * the next day's file is started. The writer thread flushes the written lines after a certain number of lines, or once
+ * a certain time has passed since the last flush. If enabled, log files of previous days get compressed via gzip once
+ * they have been closed.
+ * <p>
+ * {@link #log(LocalDate, String)} can be called from any thread. {@link #start()} and {@link #stop()} are expected to
+ * be called from the server's main thread.
+ * <p>
+ * Subclasses can keep track of the file offsets of the written lines (eg. to build an index of the log file) and append
+ * a footer to the log file before the written lines get flushed, and before the log file is closed. These hooks are
+ * invoked on the writer thread.
+ */
+public class AsyncLogWriter {
+
+	private static final int QUEUE_CAPACITY = 10000;
+	private static final int FLUSH_LINES = 64;
+	private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1L);
+	private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10L);
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String COMPRESSED_FILE_SUFFIX = ".gz";
+
+	private static class LogEntry {
+
+		private final LocalDate date;
+		private final String line;
+		private final Object attachment; // Can be null
+
+		LogEntry(LocalDate date, String line, Object attachment) {
+			this.date = date;
+			this.line = line;
+			this.attachment = attachment;
+		}
+	}
+
+	private final File folder;
+	private final String fileNamePrefix;
+	private final String fileExtension;
+	private final String header; // Can be null
+	private final boolean compressOldFiles;
+
+	private final Queue<LogEntry> queue = new ConcurrentLinkedQueue<>();
+	// Bounds the queue size (ConcurrentLinkedQueue#size() is not constant-time):
+	private final AtomicInteger queueSize = new AtomicInteger();
+	private final AtomicInteger droppedLines = new AtomicInteger();
+	private volatile boolean running = false;
+	private Thread writerThread = null;
+
+	// Only accessed by the writer thread:
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private FileChannel channel = null;
+	private Path currentFile = null;
+	private LocalDate currentDate = null;
+	// The file offset at which the next appended text starts:
+	private long filePosition = 0L;
+	private int unflushedLines = 0;
+	private long lastFlushTime;
+
+	/**
+	 * Creates a new {@link AsyncLogWriter}.
+	 *
+	 * @param folder
+	 *            the folder containing the log files
+	 * @param fileNamePrefix
+	 *            the prefix of the log file names, which get suffixed by the date
+	 * @param fileExtension
+	 *            the file extension, including the dot
+	 * @param header
+	 *            the header line that gets written to new log files, or <code>null</code>
+	 * @param compressOldFiles
+	 *            whether to compress the log files of previous days
+	 */
+	public AsyncLogWriter(File folder, String fileNamePrefix, String fileExtension, String header, boolean compressOldFiles) {
+		Validate.notNull(folder, "folder is null");
+		Validate.notEmpty(fileNamePrefix, "fileNamePrefix is empty");
+		Validate.notEmpty(fileExtension, "fileExtension is empty");
+		this.folder = folder;
+		this.fileNamePrefix = fileNamePrefix;
+		this.fileExtension = fileExtension;
+		this.header = header;
+		this.compressOldFiles = compressOldFiles;
+	}
+
+	public void start() {
+		if (writerThread != null) return; // Already started
+		running = true;
+		writerThread = new Thread(this::run, "Shopkeepers-" + fileNamePrefix + "writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Stops the writer thread, after it has written all queued log lines.
+	 * <p>
+	 * This blocks until the writer thread has finished, or a timeout has been reached.
+	 */
+	public void stop() {
+		if (writerThread == null) return; // Not started
+		running = false;
+		LockSupport.unpark(writerThread);
+		try {
+			writerThread.join(STOP_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writerThread.isAlive()) {
+			Log.warning("The writer thread for '" + fileNamePrefix + "' log files did not finish in time!");
+		}
+		writerThread = null;
+	}
+
+	/**
+	 * Queues the given line to be appended to the log file of the given date.
+	 * <p>
+	 * If the queue is full, the line gets dropped.
+	 *
+	 * @param date
+	 *            the date
+	 * @param line
+	 *            the line, without line terminator
+	 * @return <code>true</code> if the line got queued
+	 */
+	public boolean log(LocalDate date, String line) {
+		return this.log(date, line, null);
+	}
+
+	/**
+	 * Queues the given line to be appended to the log file of the given date.
+	 * <p>
+	 * The given attachment is passed to {@link #onLineWritten(long, Object)} once the line has been written.
+	 *
+	 * @param date
+	 *            the date
+	 * @param line
+	 *            the line, without line terminator
+	 * @param attachment
+	 *            the attachment, can be <code>null</code>
+	 * @return <code>true</code> if the line got queued
+	 */
+	protected boolean log(LocalDate date, String line, Object attachment) {
+		Validate.notNull(date, "date is null");
+		Validate.notNull(line, "line is null");
+		if (!running) return false;
+		if (queueSize.incrementAndGet() > QUEUE_CAPACITY) {
+			queueSize.decrementAndGet();
+			droppedLines.incrementAndGet();
+			return false;
+		}
+		queue.offer(new LogEntry(date, line, attachment));
+		return true;
+	}
+
+	protected Path getFile(LocalDate date) {
+		return new File(folder, fileNamePrefix + date.format(DateTimeFormatter.ISO_LOCAL_DATE) + fileExtension).toPath();
+	}
+
+	// HOOKS
+
+	/**
+	 * This is called on the writer thread when a log file has been opened.
+	 *
+	 * @param file
+	 *            the log file
+	 * @param position
+	 *            the file offset at which the next written line will start
+	 */
+	protected void onFileOpened(Path file, long position) {
+	}
+
+	/**
+	 * This is called on the writer thread when a line has been written to the current log file.
+	 * <p>
+	 * The line might not have been flushed to the file yet.
+	 *
+	 * @param position
+	 *            the file offset at which the line starts
+	 * @param attachment
+	 *            the attachment of the line, can be <code>null</code>
+	 */
+	protected void onLineWritten(long position, Object attachment) {
+	}
+
+	/**
+	 * This is called on the writer thread before the current log file gets closed.
+	 * <p>
+	 * This is not called if the log file gets closed due to an error.
+	 *
+	 * @param position
+	 *            the file offset at which the footer would start
+	 * @return the footer line that gets appended to the log file, or <code>null</code>
+	 */
+	protected String getFooter(long position) {
+		return null;
+	}
+
+	/**
+	 * This is called on the writer thread before the written lines get flushed to the current log file.
+	 * <p>
+	 * This allows appending a footer for the lines that have been written so far, so that they can be looked up before
+	 * the log file gets closed.
+	 *
+	 * @param position
+	 *            the file offset at which the footer would start
+	 * @return the footer line that gets appended to the log file, or <code>null</code>
+	 */
+	protected String getSegmentFooter(long position) {
+		return null;
+	}
+
+	// WRITER THREAD
+
+	// Unexpected exceptions (eg. thrown by the hooks) are logged and do not stop the writer thread, so that subsequent
+	// lines still get written.
+	private void run() {
+		if (compressOldFiles) {
+			try {
+				this.compressOldFiles();
+			} catch (RuntimeException e) {
+				this.logUnexpectedError(e);
+			}
+		}
+		lastFlushTime = System.nanoTime();
+		while (true) {
+			// Read the running state before draining the queue, so that no lines logged before stop() are missed:
+			boolean stopping = !running;
+			LogEntry entry;
+			while ((entry = queue.poll()) != null) {
+				queueSize.decrementAndGet();
+				try {
+					this.write(entry);
+					if (unflushedLines >= FLUSH_LINES) {
+						this.flush();
+					}
+				} catch (RuntimeException e) {
+					this.logUnexpectedError(e);
+				}
+			}
+			int dropped = droppedLines.getAndSet(0);
+			if (dropped > 0) {
+				Log.warning("Dropped " + dropped + " lines for '" + fileNamePrefix + "' log files: The queue is full!");
+			}
+			if (stopping) break;
+
+			long sinceLastFlush = System.nanoTime() - lastFlushTime;
+			if (unflushedLines > 0 && sinceLastFlush >= FLUSH_INTERVAL_NANOS) {
+				try {
+					this.flush();
+				} catch (RuntimeException e) {
+					this.logUnexpectedError(e);
+				}
+			}
+			LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+		}
+		try {
+			this.closeFile();
+		} catch (RuntimeException e) {
+			this.logUnexpectedError(e);
+			// Make sure that the file gets closed:
+			this.discardFile();
+		}
+	}
+
+	private void logUnexpectedError(RuntimeException e) {
+		Log.severe("Unexpected error in the writer thread for '" + fileNamePrefix + "' log files!", e);
+	}
+
+	private void write(LogEntry entry) {
+		if (!entry.date.equals(currentDate)) {
+			// Rotate to the log file of the new date:
+			Path previousFile = currentFile;
+			LocalDate previousDate = currentDate; // Null if there was an error with the previous file
+			this.closeFile();
+			if (compressOldFiles && previousDate != null && previousDate.isBefore(entry.date)) {
+				this.compress(previousFile);
+			}
+			this.openFile(entry.date);
+		}
+		if (channel == null) return; // Could not open the log file
+		long position = filePosition;
+		if (this.append(entry.line + "\n")) {
+			this.onLineWritten(position, entry.attachment);
+		} else {
+			this.discardFile();
+		}
+	}
+
+	private void openFile(LocalDate date) {
+		currentDate = date;
+		currentFile = this.getFile(date);
+		try {
+			Files.createDirectories(folder.toPath());
+			channel = FileChannel.open(currentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			filePosition = channel.size();
+			if (header != null && filePosition == 0L) {
+				this.append(header + "\n");
+			}
+		} catch (IOException e) {
+			Log.severe("Could not open log file '" + currentFile.getFileName() + "'!", e);
+			this.discardFile(); // Try to open the file again for the next line
+			return;
+		}
+		this.onFileOpened(currentFile, filePosition);
+	}
+
+	// Returns false if there was an IO error.
+	private boolean append(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		try {
+			int offset = 0;
+			while (offset < bytes.length) {
+				if (!buffer.hasRemaining()) {
+					this.writeBuffer();
+				}
+				int length = Math.min(buffer.remaining(), bytes.length - offset);
+				buffer.put(bytes, offset, length);
+				offset += length;
+			}
+		} catch (IOException e) {
+			Log.severe("Could not write to log file '" + currentFile.getFileName() + "'!", e);
+			return false;
+		}
+		filePosition += bytes.length;
+		unflushedLines++;
+		return true;
+	}
+
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void flush() {
+		if (channel != null && unflushedLines > 0) {
+			String footer = this.getSegmentFooter(filePosition);
+			if (footer != null && !this.append(footer + "\n")) {
+				unflushedLines = 0;
+				lastFlushTime = System.nanoTime();
+				this.discardFile();
+				return;
+			}
+		}
+		unflushedLines = 0;
+		lastFlushTime = System.nanoTime();
+		if (channel == null) return;
+		try {
+			this.writeBuffer();
+		} catch (IOException e) {
+			Log.severe("Could not write to log file '" + currentFile.getFileName() + "'!", e);
+			this.closeChannel();
+			currentDate = null; // Try to reopen the file for the next line
+		}
+	}
+
+	private void closeFile() {
+		if (channel != null) {
+			String footer = this.getFooter(filePosition);
+			if (footer != null && !this.append(footer + "\n")) {
+				this.discardFile();
+				return;
+			}
+		}
+		this.flush();
+		this.discardFile();
+	}
+
+	// Closes the file without flushing any pending data:
+	private void discardFile() {
+		this.closeChannel();
+		currentFile = null;
+		currentDate = null;
+	}
+
+	private void closeChannel() {
+		buffer.clear(); // Discard any data that could not be written
+		if (channel == null) return;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			Log.severe("Could not close log file '" + currentFile.getFileName() + "'!", e);
+		}
+		channel = null;
+	}
+
+	// Compresses the uncompressed log files of previous days (eg. left over from previous server sessions):
+	private void compressOldFiles() {
+		File[] files = folder.listFiles();
+		if (files == null) return;
+		LocalDate today = LocalDate.now();
+		for (File file : files) {
+			String fileName = file.getName();
+			if (!fileName.startsWith(fileNamePrefix) || !fileName.endsWith(fileExtension)) continue;
+			String dateString = fileName.substring(fileNamePrefix.length(), fileName.length() - fileExtension.length());
+			try {
+				if (!LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE).isBefore(today)) continue;
+			} catch (DateTimeParseException e) {
+				continue; // Not a log file
+			}
+			this.compress(file.toPath());
+		}
+	}
+
+	private void compress(Path file) {
+		Path compressedFile = file.resolveSibling(file.getFileName() + COMPRESSED_FILE_SUFFIX);
+		if (Files.exists(compressedFile)) {
+			Log.warning("Could not compress log file '" + file.getFileName() + "': File '" + compressedFile.getFileName() + "' already exists!");
+			return;
+		}
+		try {
+			try (InputStream in = Files.newInputStream(file);
+					OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressedFile))) {
+				byte[] bytes = new byte[BUFFER_SIZE];
+				int length;
+				while ((length = in.read(bytes)) != -1) {
+					out.write(bytes, 0, length);
+				}
+			}
+			Files.delete(file);
+		} catch (IOException e) {
+			Log.severe("Could not compress log file '" + file.getFileName() + "'!", e);
+			try {
+				Files.deleteIfExists(compressedFile);
+			} catch (IOException e2) {
+				// Ignored
+			}
+		}
+	}
+}
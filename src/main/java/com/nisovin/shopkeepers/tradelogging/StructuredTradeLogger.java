@@ -0,0 +1,202 @@
+package com.nisovin.shopkeepers.tradelogging;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.Settings;
+import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.tradelogging.TradeLogIndex.RecordKeys;
+import com.nisovin.shopkeepers.util.ItemData;
+import com.nisovin.shopkeepers.util.ItemUtils;
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Logs trades, including the full data of the traded items, to structured trade log files.
+ * <p>
+ * Each trade is written as one JSON object per line to the log file of the current day. The log files contain indices
+ * of their records by shop and by trading player, which are used to quickly read the trades of a specific shop or
+ * player (see {@link #readTrades(TradeLogQuery, Consumer)}).
+ */
+public class StructuredTradeLogger implements Listener {
+
+	private static final String FILE_NAME_PREFIX = "trades-";
+	private static final String FILE_EXTENSION = ".jsonl";
+
+	private final SKShopkeepersPlugin plugin;
+	private TradeLogWriter writer = null; // Null if not enabled
+
+	public StructuredTradeLogger(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		if (!Settings.enableStructuredTradeLogging) return;
+		writer = new TradeLogWriter(plugin.getSKDataFolder(), FILE_NAME_PREFIX, FILE_EXTENSION);
+		writer.start();
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+	}
+
+	public void onDisable() {
+		HandlerList.unregisterAll(this);
+		if (writer != null) {
+			// Writes all remaining records and the indices:
+			writer.stop();
+			writer = null;
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onTradeCompleted(ShopkeeperTradeEvent event) {
+		if (writer == null) return;
+		Player player = event.getPlayer();
+		Shopkeeper shopkeeper = event.getShopkeeper();
+		TradingRecipe tradingRecipe = event.getTradingRecipe();
+		ItemStack requiredItem1 = tradingRecipe.getItem1();
+		ItemStack requiredItem2 = tradingRecipe.getItem2();
+
+		Inventory inventory = event.getClickEvent().getInventory();
+		ItemStack usedItem1 = inventory.getItem(0);
+		ItemStack usedItem2 = ItemUtils.getNullIfEmpty(inventory.getItem(1));
+		if (ItemUtils.isEmpty(usedItem1)) {
+			usedItem1 = usedItem2;
+			usedItem2 = null;
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		JsonObject record = new JsonObject();
+		record.addProperty(TradeLogRecord.KEY_TIME, now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+		record.addProperty(TradeLogRecord.KEY_PLAYER_NAME, player.getName());
+		record.addProperty(TradeLogRecord.KEY_PLAYER_UUID, player.getUniqueId().toString());
+		record.addProperty(TradeLogRecord.KEY_SHOP_UUID, shopkeeper.getUniqueId().toString());
+		record.addProperty(TradeLogRecord.KEY_SHOP_ID, shopkeeper.getId());
+		record.addProperty(TradeLogRecord.KEY_SHOP_TYPE, shopkeeper.getType().getIdentifier());
+		record.addProperty(TradeLogRecord.KEY_SHOP_POSITION, shopkeeper.getPositionString());
+		if (shopkeeper instanceof PlayerShopkeeper) {
+			PlayerShopkeeper playerShopkeeper = (PlayerShopkeeper) shopkeeper;
+			record.addProperty(TradeLogRecord.KEY_OWNER_NAME, playerShopkeeper.getOwnerName());
+			record.addProperty(TradeLogRecord.KEY_OWNER_UUID, playerShopkeeper.getOwnerUUID().toString());
+		}
+		record.add(TradeLogRecord.KEY_RESULT_ITEM, toJson(tradingRecipe.getResultItem(), tradingRecipe.getResultItem().getAmount()));
+		// The used items might differ from the required items, but only the required amounts get used up:
+		record.add(TradeLogRecord.KEY_ITEM1, toJson(usedItem1, requiredItem1.getAmount()));
+		if (usedItem2 != null && requiredItem2 != null) {
+			record.add(TradeLogRecord.KEY_ITEM2, toJson(usedItem2, requiredItem2.getAmount()));
+		}
+
+		RecordKeys keys = new RecordKeys(shopkeeper.getUniqueId(), player.getUniqueId());
+		writer.log(now.toLocalDate(), record.toString(), keys);
+	}
+
+	private static JsonObject toJson(ItemStack item, int amount) {
+		JsonObject itemJson = new JsonObject();
+		itemJson.addProperty(TradeLogRecord.KEY_ITEM_AMOUNT, amount);
+		itemJson.add(TradeLogRecord.KEY_ITEM_DATA, toJson(new ItemData(item).serialize()));
+		return itemJson;
+	}
+
+	// Converts the serialized item data to json. Configuration serializable objects are represented in the same way
+	// as inside the save data.
+	private static JsonElement toJson(Object object) {
+		if (object == null) {
+			return JsonNull.INSTANCE;
+		} else if (object instanceof Map) {
+			JsonObject json = new JsonObject();
+			for (Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+				json.add(String.valueOf(entry.getKey()), toJson(entry.getValue()));
+			}
+			return json;
+		} else if (object instanceof Collection) {
+			JsonArray json = new JsonArray();
+			for (Object element : (Collection<?>) object) {
+				json.add(toJson(element));
+			}
+			return json;
+		} else if (object instanceof ConfigurationSerializable) {
+			ConfigurationSerializable serializable = (ConfigurationSerializable) object;
+			Map<String, Object> data = new LinkedHashMap<>();
+			data.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+			data.putAll(serializable.serialize());
+			return toJson(data);
+		} else if (object instanceof Number) {
+			return new JsonPrimitive((Number) object);
+		} else if (object instanceof Boolean) {
+			return new JsonPrimitive((Boolean) object);
+		} else {
+			return new JsonPrimitive(object.toString());
+		}
+	}
+
+	/**
+	 * Reads the logged trades that match the given query, in the order in which they were logged.
+	 * <p>
+	 * This reads the log files from disk and can therefore be called asynchronously. Trades that have been logged only
+	 * recently might not yet have been written to disk.
+	 *
+	 * @param query
+	 *            the query
+	 * @param consumer
+	 *            receives the matching trades
+	 * @throws IOException
+	 *             if a log file cannot be read
+	 */
+	public void readTrades(TradeLogQuery query, Consumer<TradeLogRecord> consumer) throws IOException {
+		Validate.notNull(query, "query is null");
+		Validate.notNull(consumer, "consumer is null");
+		for (File file : this.getLogFiles(query.getSince())) {
+			TradeLogReader.readRecords(file.toPath(), query, consumer);
+		}
+	}
+
+	// Gets the log files of the days since the given date, sorted by date:
+	private List<File> getLogFiles(LocalDate since) {
+		File[] files = plugin.getSKDataFolder().listFiles();
+		if (files == null) return Collections.emptyList();
+		List<File> logFiles = new ArrayList<>();
+		for (File file : files) {
+			String fileName = file.getName();
+			if (!fileName.startsWith(FILE_NAME_PREFIX) || !fileName.endsWith(FILE_EXTENSION)) continue;
+			String dateString = fileName.substring(FILE_NAME_PREFIX.length(), fileName.length() - FILE_EXTENSION.length());
+			try {
+				if (LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE).isBefore(since)) continue;
+			} catch (DateTimeParseException e) {
+				continue; // Not a log file
+			}
+			logFiles.add(file);
+		}
+		// The ISO dates sort chronologically:
+		logFiles.sort((file1, file2) -> file1.getName().compareTo(file2.getName()));
+		return logFiles;
+	}
+}
@@ -1,49 +1,64 @@
 package com.nisovin.shopkeepers.tradelogging;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.util.ItemUtils;
-import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.TextUtils;
 
 /**
  * Logs purchases to files.
+ * <p>
+ * The log lines are prepared on the main thread and then written asynchronously by an {@link AsyncLogWriter}.
  */
 public class TradeFileLogger implements Listener {
 
 	private static final String FILE_NAME_PREFIX = "purchases-";
-	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-	private static final DateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss");
+	private static final String FILE_EXTENSION = ".csv";
+	private static final String HEADER = "TIME,PLAYER,SHOP ID,SHOP TYPE,SHOP POS,OWNER,ITEM TYPE,DATA,QUANTITY,CURRENCY 1,CURRENCY 1 AMOUNT,CURRENCY 2,CURRENCY 2 AMOUNT";
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
 
-	private final File dataFolder;
+	private final SKShopkeepersPlugin plugin;
+	private AsyncLogWriter writer = null; // Null if not enabled
 
-	public TradeFileLogger(File dataFolder) {
-		this.dataFolder = dataFolder;
+	public TradeFileLogger(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		if (!Settings.enablePurchaseLogging) return;
+		writer = new AsyncLogWriter(plugin.getSKDataFolder(), FILE_NAME_PREFIX, FILE_EXTENSION, HEADER, Settings.compressPurchaseLogs);
+		writer.start();
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+	}
+
+	public void onDisable() {
+		HandlerList.unregisterAll(this);
+		if (writer != null) {
+			// Writes all remaining log lines:
+			writer.stop();
+			writer = null;
+		}
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onTradeCompleted(ShopkeeperTradeEvent event) {
-		if (!Settings.enablePurchaseLogging) {
-			return;
-		}
+		if (writer == null) return;
 		Player player = event.getPlayer();
 		Shopkeeper shopkeeper = event.getShopkeeper();
 		String ownerString = (shopkeeper instanceof PlayerShopkeeper) ? ((PlayerShopkeeper) shopkeeper).getOwnerString() : "[Admin]";
@@ -62,22 +77,15 @@ public class TradeFileLogger implements Listener {
 		}
 
 		// TODO fully serialize the traded items? (metadata)
-		// TODO do the file writing async
-		Date now = new Date();
-		File file = new File(dataFolder, FILE_NAME_PREFIX + DATE_FORMAT.format(now) + ".csv");
-		boolean isNew = !file.exists();
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
-			if (isNew) writer.append("TIME,PLAYER,SHOP ID,SHOP TYPE,SHOP POS,OWNER,ITEM TYPE,DATA,QUANTITY,CURRENCY 1,CURRENCY 1 AMOUNT,CURRENCY 2,CURRENCY 2 AMOUNT\n");
-			writer.append("\"" + TIME_FORMAT.format(now) + "\",\"" + TextUtils.getPlayerString(player) + "\",\"" + shopkeeper.getUniqueId()
-					+ "\",\"" + shopkeeper.getType().getIdentifier() + "\",\"" + shopkeeper.getPositionString() + "\",\"" + ownerString
-					+ "\",\"" + resultItem.getType().name() + "\",\"" + ItemUtils.getDurability(resultItem) + "\",\"" + resultItem.getAmount()
-					+ "\",\"" + (usedItem1 != null ? usedItem1.getType().name() + ":" + ItemUtils.getDurability(usedItem1) : "")
-					+ "\",\"" + (requiredItem1.getAmount())
-					+ "\",\"" + (usedItem2 != null ? usedItem2.getType().name() + ":" + ItemUtils.getDurability(usedItem2) : "")
-					+ "\",\"" + (requiredItem2 != null ? requiredItem2.getAmount() : "")
-					+ "\"\n");
-		} catch (IOException e) {
-			Log.severe("IO exception while trying to log purchase", e);
-		}
+		LocalDateTime now = LocalDateTime.now();
+		String line = "\"" + TIME_FORMAT.format(now) + "\",\"" + TextUtils.getPlayerString(player) + "\",\"" + shopkeeper.getUniqueId()
+				+ "\",\"" + shopkeeper.getType().getIdentifier() + "\",\"" + shopkeeper.getPositionString() + "\",\"" + ownerString
+				+ "\",\"" + resultItem.getType().name() + "\",\"" + ItemUtils.getDurability(resultItem) + "\",\"" + resultItem.getAmount()
+				+ "\",\"" + (usedItem1 != null ? usedItem1.getType().name() + ":" + ItemUtils.getDurability(usedItem1) : "")
+				+ "\",\"" + (requiredItem1.getAmount())
+				+ "\",\"" + (usedItem2 != null ? usedItem2.getType().name() + ":" + ItemUtils.getDurability(usedItem2) : "")
+				+ "\",\"" + (requiredItem2 != null ? requiredItem2.getAmount() : "")
+				+ "\"";
+		writer.log(now.toLocalDate(), line);
 	}
 }
@@ -0,0 +1,170 @@
+package com.nisovin.shopkeepers.tradelogging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.nisovin.shopkeepers.util.ConversionUtils;
+
+/**
+ * The index of a segment of a structured trade log file.
+ * <p>
+ * A trade log file consists of one or more segments (eg. one for each server session that logged trades on that day, and one for each larger batch of records that got flushed).
+ * Each segment consists of a sequence of trade records and ends with a footer line that contains the index of the
+ * segment's records: The file offsets of the records by shop and by trading player. The footer also stores the offset
+ * of the previous footer, so that the footers of all segments can be found by starting at the last footer of the file.
+ */
+class TradeLogIndex {
+
+	static final String FOOTER_PREFIX = "{\"index\":";
+
+	private static final String KEY_INDEX = "index";
+	private static final String KEY_START = "start";
+	private static final String KEY_PREVIOUS = "previous";
+	private static final String KEY_SHOPS = "shops";
+	private static final String KEY_PLAYERS = "players";
+
+	static class RecordKeys {
+
+		final UUID shopUUID;
+		final UUID playerUUID;
+
+		RecordKeys(UUID shopUUID, UUID playerUUID) {
+			this.shopUUID = shopUUID;
+			this.playerUUID = playerUUID;
+		}
+	}
+
+	// The file offset of the segment's first record:
+	private final long start;
+	// The file offset of the previous segment's footer, or -1:
+	private final long previousFooter;
+	private final Map<UUID, List<Long>> shopRecords = new HashMap<>();
+	private final Map<UUID, List<Long>> playerRecords = new HashMap<>();
+	private int recordCount = 0;
+
+	TradeLogIndex(long start, long previousFooter) {
+		this.start = start;
+		this.previousFooter = previousFooter;
+	}
+
+	long getStart() {
+		return start;
+	}
+
+	long getPreviousFooter() {
+		return previousFooter;
+	}
+
+	boolean isEmpty() {
+		return (recordCount == 0);
+	}
+
+	int getRecordCount() {
+		return recordCount;
+	}
+
+	void add(RecordKeys keys, long offset) {
+		shopRecords.computeIfAbsent(keys.shopUUID, key -> new ArrayList<>()).add(offset);
+		playerRecords.computeIfAbsent(keys.playerUUID, key -> new ArrayList<>()).add(offset);
+		recordCount++;
+	}
+
+	/**
+	 * Gets the offsets of the records of the specified shop, in the order in which they were written.
+	 *
+	 * @param shopUUID
+	 *            the shop's unique id
+	 * @return the record offsets, not <code>null</code>
+	 */
+	List<Long> getShopRecords(UUID shopUUID) {
+		return shopRecords.getOrDefault(shopUUID, Collections.emptyList());
+	}
+
+	/**
+	 * Gets the offsets of the records of the specified trading player, in the order in which they were written.
+	 *
+	 * @param playerUUID
+	 *            the player's unique id
+	 * @return the record offsets, not <code>null</code>
+	 */
+	List<Long> getPlayerRecords(UUID playerUUID) {
+		return playerRecords.getOrDefault(playerUUID, Collections.emptyList());
+	}
+
+	String toFooter() {
+		JsonObject indexJson = new JsonObject();
+		indexJson.addProperty(KEY_START, start);
+		indexJson.addProperty(KEY_PREVIOUS, previousFooter);
+		indexJson.add(KEY_SHOPS, toJson(shopRecords));
+		indexJson.add(KEY_PLAYERS, toJson(playerRecords));
+		JsonObject footerJson = new JsonObject();
+		footerJson.add(KEY_INDEX, indexJson);
+		String footer = footerJson.toString();
+		assert footer.startsWith(FOOTER_PREFIX);
+		return footer;
+	}
+
+	private static JsonObject toJson(Map<UUID, List<Long>> records) {
+		JsonObject recordsJson = new JsonObject();
+		for (Entry<UUID, List<Long>> entry : records.entrySet()) {
+			JsonArray offsetsJson = new JsonArray();
+			for (Long offset : entry.getValue()) {
+				offsetsJson.add(offset);
+			}
+			recordsJson.add(entry.getKey().toString(), offsetsJson);
+		}
+		return recordsJson;
+	}
+
+	static boolean isFooter(String line) {
+		return line.startsWith(FOOTER_PREFIX);
+	}
+
+	/**
+	 * Parses the index from the given footer line.
+	 *
+	 * @param footer
+	 *            the footer line
+	 * @return the index
+	 * @throws IllegalArgumentException
+	 *             if the footer is invalid
+	 */
+	static TradeLogIndex fromFooter(String footer) {
+		try {
+			JsonObject indexJson = new JsonParser().parse(footer).getAsJsonObject().getAsJsonObject(KEY_INDEX);
+			TradeLogIndex index = new TradeLogIndex(indexJson.get(KEY_START).getAsLong(), indexJson.get(KEY_PREVIOUS).getAsLong());
+			index.recordCount += fromJson(indexJson.getAsJsonObject(KEY_SHOPS), index.shopRecords);
+			fromJson(indexJson.getAsJsonObject(KEY_PLAYERS), index.playerRecords);
+			return index;
+		} catch (JsonParseException | IllegalStateException | ClassCastException | NullPointerException e) {
+			throw new IllegalArgumentException("Invalid trade log footer!", e);
+		}
+	}
+
+	// Returns the number of read offsets:
+	private static int fromJson(JsonObject recordsJson, Map<UUID, List<Long>> records) {
+		int count = 0;
+		for (Entry<String, JsonElement> entry : recordsJson.entrySet()) {
+			UUID uuid = ConversionUtils.parseUUID(entry.getKey());
+			if (uuid == null) continue; // Invalid entry
+			JsonArray offsetsJson = entry.getValue().getAsJsonArray();
+			List<Long> offsets = new ArrayList<>(offsetsJson.size());
+			for (JsonElement offsetJson : offsetsJson) {
+				offsets.add(offsetJson.getAsLong());
+			}
+			records.put(uuid, offsets);
+			count += offsets.size();
+		}
+		return count;
+	}
+}
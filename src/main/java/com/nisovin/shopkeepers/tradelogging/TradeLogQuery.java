@@ -0,0 +1,79 @@
+package com.nisovin.shopkeepers.tradelogging;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.nisovin.shopkeepers.util.Validate;
+
+/**
+ * Specifies which trades to read from the structured trade log.
+ */
+public class TradeLogQuery {
+
+	/**
+	 * Queries the trades of the specified shop.
+	 *
+	 * @param shopUUID
+	 *            the shop's unique id
+	 * @param since
+	 *            the first day to include
+	 * @return the query
+	 */
+	public static TradeLogQuery shop(UUID shopUUID, LocalDate since) {
+		Validate.notNull(shopUUID, "shopUUID is null");
+		return new TradeLogQuery(shopUUID, null, since);
+	}
+
+	/**
+	 * Queries the trades of the specified trading player.
+	 *
+	 * @param playerUUID
+	 *            the player's unique id
+	 * @param since
+	 *            the first day to include
+	 * @return the query
+	 */
+	public static TradeLogQuery player(UUID playerUUID, LocalDate since) {
+		Validate.notNull(playerUUID, "playerUUID is null");
+		return new TradeLogQuery(null, playerUUID, since);
+	}
+
+	private final UUID shopUUID; // Can be null
+	private final UUID playerUUID; // Can be null
+	private final LocalDate since;
+
+	private TradeLogQuery(UUID shopUUID, UUID playerUUID, LocalDate since) {
+		Validate.notNull(since, "since is null");
+		this.shopUUID = shopUUID;
+		this.playerUUID = playerUUID;
+		this.since = since;
+	}
+
+	public LocalDate getSince() {
+		return since;
+	}
+
+	List<Long> getIndexedRecords(TradeLogIndex index) {
+		if (shopUUID != null) {
+			return index.getShopRecords(shopUUID);
+		} else {
+			return index.getPlayerRecords(playerUUID);
+		}
+	}
+
+	boolean matches(JsonObject record) {
+		if (shopUUID != null) {
+			return matches(record, TradeLogRecord.KEY_SHOP_UUID, shopUUID);
+		} else {
+			return matches(record, TradeLogRecord.KEY_PLAYER_UUID, playerUUID);
+		}
+	}
+
+	private static boolean matches(JsonObject record, String key, UUID uuid) {
+		JsonElement value = record.get(key);
+		return (value != null && value.isJsonPrimitive() && uuid.toString().equals(value.getAsString()));
+	}
+}
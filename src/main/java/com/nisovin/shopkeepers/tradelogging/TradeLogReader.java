@@ -0,0 +1,232 @@
+package com.nisovin.shopkeepers.tradelogging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Reads the records of a structured trade log file.
+ * <p>
+ * Matching records are looked up via the indices in the footers of the file's segments. Only records that are not
+ * covered by any index (the records of the segment that is currently being written, or records left over from a server
+ * crash) are scanned linearly.
+ */
+class TradeLogReader {
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+	private static final byte[] FOOTER_PREFIX_BYTES = TradeLogIndex.FOOTER_PREFIX.getBytes(StandardCharsets.UTF_8);
+
+	private static class Footer {
+
+		private final long offset;
+		private final long end; // The offset after the footer line
+		private final TradeLogIndex index;
+
+		Footer(long offset, long end, TradeLogIndex index) {
+			this.offset = offset;
+			this.end = end;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * Finds the offset of the last valid footer of the given log file.
+	 *
+	 * @param file
+	 *            the log file
+	 * @return the footer offset, or <code>-1</code> if there is none
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static long findLastFooterOffset(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			Footer footer = new TradeLogReader(channel).findLastFooter();
+			return (footer != null) ? footer.offset : -1L;
+		}
+	}
+
+	/**
+	 * Reads the records of the given log file that match the given query, in the order in which they were written.
+	 * <p>
+	 * Only complete records are read: The file can still be written to concurrently.
+	 *
+	 * @param file
+	 *            the log file
+	 * @param query
+	 *            the query
+	 * @param consumer
+	 *            receives the matching records
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static void readRecords(Path file, TradeLogQuery query, Consumer<TradeLogRecord> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			new TradeLogReader(channel).readRecords(query, consumer);
+		}
+	}
+
+	private final FileChannel channel;
+	private final long size;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+	private long bufferStart = 0L; // The file offset of the buffered data
+	private int bufferLength = 0;
+	private long position = 0L;
+
+	private TradeLogReader(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+	}
+
+	private void readRecords(TradeLogQuery query, Consumer<TradeLogRecord> consumer) throws IOException {
+		// Collect the footers of all segments:
+		List<Footer> footers = new ArrayList<>();
+		Footer footer = this.findLastFooter();
+		while (footer != null) {
+			footers.add(footer);
+			long previousFooter = footer.index.getPreviousFooter();
+			if (previousFooter < 0L || previousFooter >= footer.offset) break;
+			footer = this.readFooter(previousFooter);
+		}
+		Collections.reverse(footers);
+
+		long scanStart = 0L;
+		for (Footer segmentFooter : footers) {
+			// Scan any records in front of the segment that are not covered by an index:
+			this.scanRecords(scanStart, segmentFooter.index.getStart(), query, consumer);
+			for (long offset : query.getIndexedRecords(segmentFooter.index)) {
+				position = offset;
+				this.readRecord(query, consumer);
+			}
+			scanStart = segmentFooter.end;
+		}
+		// Scan the records that have been written after the last footer:
+		this.scanRecords(scanStart, size, query, consumer);
+	}
+
+	private void scanRecords(long start, long end, TradeLogQuery query, Consumer<TradeLogRecord> consumer) throws IOException {
+		position = start;
+		while (position < end) {
+			if (!this.readRecord(query, consumer)) break;
+		}
+	}
+
+	// Returns false if there is no complete line at the current position:
+	private boolean readRecord(TradeLogQuery query, Consumer<TradeLogRecord> consumer) throws IOException {
+		long offset = position;
+		String line = this.readLine();
+		if (line == null) return false;
+		if (line.isEmpty() || TradeLogIndex.isFooter(line)) return true;
+		JsonObject record;
+		try {
+			record = new JsonParser().parse(line).getAsJsonObject();
+		} catch (JsonParseException | IllegalStateException e) {
+			Log.debug("Skipping invalid trade log record at offset " + offset + ": " + e.getMessage());
+			return true;
+		}
+		if (query.matches(record)) {
+			consumer.accept(new TradeLogRecord(record));
+		}
+		return true;
+	}
+
+	// Scans the file backwards for the last line that contains a valid footer.
+	// Only lines that start with the footer prefix are read and parsed.
+	private Footer findLastFooter() throws IOException {
+		ByteBuffer blockBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+		byte[] block = blockBuffer.array();
+		long blockEnd = size;
+		while (blockEnd > 0L) {
+			long blockStart = Math.max(0L, blockEnd - BUFFER_SIZE);
+			int blockLength = (int) (blockEnd - blockStart);
+			blockBuffer.clear();
+			blockBuffer.limit(blockLength);
+			while (blockBuffer.hasRemaining()) {
+				if (channel.read(blockBuffer, blockStart + blockBuffer.position()) < 0) {
+					return null; // The file got truncated
+				}
+			}
+			// Index -1 represents the start of the file, if the block starts at the beginning of the file:
+			int minIndex = (blockStart == 0L) ? -1 : 0;
+			for (int index = blockLength - 1; index >= minIndex; --index) {
+				if (index >= 0 && block[index] != '\n') continue;
+				int lineStart = index + 1;
+				if (!mightStartWithFooterPrefix(block, lineStart, blockLength)) continue;
+				Footer footer = this.readFooter(blockStart + lineStart);
+				if (footer != null) return footer;
+			}
+			blockEnd = blockStart;
+		}
+		return null;
+	}
+
+	// Also returns true if the block ends before the end of the prefix.
+	private static boolean mightStartWithFooterPrefix(byte[] block, int start, int blockLength) {
+		int length = Math.min(FOOTER_PREFIX_BYTES.length, blockLength - start);
+		for (int index = 0; index < length; ++index) {
+			if (block[start + index] != FOOTER_PREFIX_BYTES[index]) return false;
+		}
+		return true;
+	}
+
+	// Returns null if there is no valid footer at the given offset:
+	private Footer readFooter(long offset) throws IOException {
+		if (offset >= size) return null;
+		position = offset;
+		String line = this.readLine();
+		if (line == null || !TradeLogIndex.isFooter(line)) return null;
+		try {
+			return new Footer(offset, position, TradeLogIndex.fromFooter(line));
+		} catch (IllegalArgumentException e) {
+			Log.debug("Ignoring invalid trade log footer at offset " + offset + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	// Reads the line at the current position and moves the position to the start of the next line. Returns null if
+	// there is no complete line at the current position.
+	private String readLine() throws IOException {
+		lineBytes.reset();
+		while (position < size) {
+			if (position < bufferStart || position >= bufferStart + bufferLength) {
+				this.fillBuffer();
+				if (bufferLength == 0) return null; // The file got truncated
+			}
+			byte[] bytes = buffer.array();
+			int start = (int) (position - bufferStart);
+			for (int index = start; index < bufferLength; ++index) {
+				if (bytes[index] == '\n') {
+					lineBytes.write(bytes, start, index - start);
+					position = bufferStart + index + 1;
+					return new String(lineBytes.toByteArray(), StandardCharsets.UTF_8);
+				}
+			}
+			lineBytes.write(bytes, start, bufferLength - start);
+			position = bufferStart + bufferLength;
+		}
+		return null; // Missing line terminator
+	}
+
+	private void fillBuffer() throws IOException {
+		buffer.clear();
+		buffer.limit((int) Math.min(BUFFER_SIZE, size - position));
+		bufferStart = position;
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, bufferStart + buffer.position()) < 0) break;
+		}
+		bufferLength = buffer.position();
+	}
+}
@@ -0,0 +1,162 @@
+package com.nisovin.shopkeepers.tradelogging;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.nisovin.shopkeepers.util.ConversionUtils;
+
+/**
+ * A trade that has been read from the structured trade log.
+ */
+public class TradeLogRecord {
+
+	static final String KEY_TIME = "time";
+	static final String KEY_PLAYER_NAME = "player-name";
+	static final String KEY_PLAYER_UUID = "player-uuid";
+	static final String KEY_SHOP_UUID = "shop-uuid";
+	static final String KEY_SHOP_ID = "shop-id";
+	static final String KEY_SHOP_TYPE = "shop-type";
+	static final String KEY_SHOP_POSITION = "shop-position";
+	static final String KEY_OWNER_NAME = "owner-name";
+	static final String KEY_OWNER_UUID = "owner-uuid";
+	static final String KEY_RESULT_ITEM = "result-item";
+	static final String KEY_ITEM1 = "item1";
+	static final String KEY_ITEM2 = "item2";
+	static final String KEY_ITEM_AMOUNT = "amount";
+	static final String KEY_ITEM_DATA = "data";
+	private static final String KEY_ITEM_DATA_TYPE = "type";
+
+	/**
+	 * A traded item.
+	 */
+	public static class Item {
+
+		private final JsonObject json;
+
+		private Item(JsonObject json) {
+			this.json = json;
+		}
+
+		public int getAmount() {
+			return json.get(KEY_ITEM_AMOUNT).getAsInt();
+		}
+
+		/**
+		 * Gets the name of the item type.
+		 *
+		 * @return the item type name
+		 */
+		public String getType() {
+			// The item data is either only the item type, or a map of the item data:
+			JsonElement data = json.get(KEY_ITEM_DATA);
+			if (data.isJsonPrimitive()) return data.getAsString();
+			return data.getAsJsonObject().get(KEY_ITEM_DATA_TYPE).getAsString();
+		}
+
+		/**
+		 * Gets the full item data, as it has been serialized by {@link com.nisovin.shopkeepers.util.ItemData}.
+		 *
+		 * @return the item data
+		 */
+		public JsonElement getData() {
+			return json.get(KEY_ITEM_DATA);
+		}
+	}
+
+	private final JsonObject json;
+
+	TradeLogRecord(JsonObject json) {
+		this.json = json;
+	}
+
+	/**
+	 * Gets the time of the trade.
+	 *
+	 * @return the time, or <code>null</code> if invalid
+	 */
+	public LocalDateTime getTime() {
+		try {
+			return LocalDateTime.parse(json.get(KEY_TIME).getAsString());
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	public String getPlayerName() {
+		return json.get(KEY_PLAYER_NAME).getAsString();
+	}
+
+	public UUID getPlayerUUID() {
+		return ConversionUtils.parseUUID(json.get(KEY_PLAYER_UUID).getAsString());
+	}
+
+	public UUID getShopUUID() {
+		return ConversionUtils.parseUUID(json.get(KEY_SHOP_UUID).getAsString());
+	}
+
+	public int getShopId() {
+		return json.get(KEY_SHOP_ID).getAsInt();
+	}
+
+	public String getShopType() {
+		return json.get(KEY_SHOP_TYPE).getAsString();
+	}
+
+	public String getShopPosition() {
+		return json.get(KEY_SHOP_POSITION).getAsString();
+	}
+
+	/**
+	 * Gets the name of the shop owner.
+	 *
+	 * @return the owner name, or <code>null</code> for admin shops
+	 */
+	public String getOwnerName() {
+		JsonElement ownerName = json.get(KEY_OWNER_NAME);
+		return (ownerName != null && !ownerName.isJsonNull()) ? ownerName.getAsString() : null;
+	}
+
+	/**
+	 * Gets the unique id of the shop owner.
+	 *
+	 * @return the owner's unique id, or <code>null</code> for admin shops
+	 */
+	public UUID getOwnerUUID() {
+		JsonElement ownerUUID = json.get(KEY_OWNER_UUID);
+		return (ownerUUID != null) ? ConversionUtils.parseUUID(ownerUUID.getAsString()) : null;
+	}
+
+	public Item getResultItem() {
+		return this.getItem(KEY_RESULT_ITEM);
+	}
+
+	public Item getItem1() {
+		return this.getItem(KEY_ITEM1);
+	}
+
+	/**
+	 * Gets the second item that the player traded.
+	 *
+	 * @return the second item, or <code>null</code>
+	 */
+	public Item getItem2() {
+		return this.getItem(KEY_ITEM2);
+	}
+
+	private Item getItem(String key) {
+		JsonElement item = json.get(key);
+		return (item != null) ? new Item(item.getAsJsonObject()) : null;
+	}
+
+	/**
+	 * Gets the raw record data.
+	 *
+	 * @return the record data
+	 */
+	public JsonObject getJson() {
+		return json;
+	}
+}
@@ -0,0 +1,71 @@
+package com.nisovin.shopkeepers.tradelogging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import com.nisovin.shopkeepers.tradelogging.TradeLogIndex.RecordKeys;
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Writes trade records to structured trade log files and appends the index of the written records as footer once a log
+ * file gets closed.
+ * <p>
+ * In order for the records of the current log file to be indexed as well, the writer also ends the current segment
+ * with a footer whenever the written records are flushed and the segment contains a certain number of records.
+ */
+class TradeLogWriter extends AsyncLogWriter {
+
+	// The minimum number of records after which a segment gets ended when the written records are flushed:
+	private static final int SEGMENT_RECORDS = 256;
+
+	// Only accessed by the writer thread:
+	private TradeLogIndex index = null;
+
+	TradeLogWriter(File folder, String fileNamePrefix, String fileExtension) {
+		// Log files are not compressed, because they are accessed via their indices:
+		super(folder, fileNamePrefix, fileExtension, null, false);
+	}
+
+	boolean log(LocalDate date, String record, RecordKeys keys) {
+		return super.log(date, record, keys);
+	}
+
+	@Override
+	protected void onFileOpened(Path file, long position) {
+		long previousFooter = -1L;
+		if (position > 0L) {
+			try {
+				previousFooter = TradeLogReader.findLastFooterOffset(file);
+			} catch (IOException e) {
+				Log.warning("Could not read the index of trade log file '" + file.getFileName() + "'!", e);
+			}
+		}
+		index = new TradeLogIndex(position, previousFooter);
+	}
+
+	@Override
+	protected void onLineWritten(long position, Object attachment) {
+		index.add((RecordKeys) attachment, position);
+	}
+
+	@Override
+	protected String getSegmentFooter(long position) {
+		if (index == null || index.getRecordCount() < SEGMENT_RECORDS) return null;
+		String footer = index.toFooter();
+		// Start the next segment after the footer:
+		long nextSegmentStart = position + footer.getBytes(StandardCharsets.UTF_8).length + 1;
+		index = new TradeLogIndex(nextSegmentStart, position);
+		return footer;
+	}
+
+	@Override
+	protected String getFooter(long position) {
+		if (index == null || index.isEmpty()) return null;
+		String footer = index.toFooter();
+		index = null;
+		return footer;
+	}
+}
@@ -1,11 +1,14 @@
 package com.nisovin.shopkeepers.ui;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.bukkit.Bukkit;
@@ -34,6 +37,11 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 	// Player id -> UI session
 	private final Map<UUID, SKUISession> uiSessions = new HashMap<>();
 	private final Collection<SKUISession> uiSessionsView = Collections.unmodifiableCollection(uiSessions.values());
+	// Indexes of the UI sessions, kept up-to-date when sessions start and end. Empty sets get removed.
+	// Shopkeeper -> UI sessions
+	private final Map<Shopkeeper, Set<SKUISession>> uiSessionsByShopkeeper = new HashMap<>();
+	// UI type -> UI sessions
+	private final Map<UIType, Set<SKUISession>> uiSessionsByType = new HashMap<>();
 
 	public SKUIRegistry(ShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -124,6 +132,7 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 			assert uiSessions.get(player.getUniqueId()) == null;
 			SKUISession session = new SKUISession(uiHandler, player, shopkeeper);
 			uiSessions.put(player.getUniqueId(), session);
+			this.addToIndexes(session);
 			this.onSessionStart(session);
 			return true;
 		} else {
@@ -137,41 +146,87 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 		return uiSessionsView;
 	}
 
+	// Note: The returned views are live views: They look up the current sessions of the respective index entry on every
+	// access. They need to be copied before any of the sessions get ended while iterating them.
 	@Override
 	public Collection<? extends SKUISession> getUISessions(Shopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		for (SKUISession session : uiSessionsView) {
-			if (session.getShopkeeper() == shopkeeper) {
-				sessions.add(session);
-			}
-		}
-		return sessions;
+		return new IndexedSessionsView<>(uiSessionsByShopkeeper, shopkeeper, null);
 	}
 
 	@Override
 	public Collection<? extends SKUISession> getUISessions(Shopkeeper shopkeeper, UIType uiType) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
 		Validate.notNull(uiType, "uiType is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		for (SKUISession session : uiSessionsView) {
-			if (session.getShopkeeper() == shopkeeper && session.getUIType() == uiType) {
-				sessions.add(session);
-			}
-		}
-		return sessions;
+		// Shopkeepers usually only have a few sessions, so we filter them instead of maintaining another index:
+		return new IndexedSessionsView<>(uiSessionsByShopkeeper, shopkeeper, uiType);
 	}
 
 	@Override
 	public Collection<? extends UISession> getUISessions(UIType uiType) {
 		Validate.notNull(uiType, "uiType is null");
-		List<SKUISession> sessions = new ArrayList<>();
-		for (SKUISession session : uiSessionsView) {
-			if (session.getUIType() == uiType) {
-				sessions.add(session);
-			}
+		return new IndexedSessionsView<>(uiSessionsByType, uiType, null);
+	}
+
+	// An unmodifiable view on the sessions of an index entry, optionally filtered by UI type. Since empty index entries
+	// get removed, the entry is looked up on every access.
+	private static final class IndexedSessionsView<K> extends AbstractCollection<SKUISession> {
+
+		private final Map<K, Set<SKUISession>> index;
+		private final K key;
+		private final UIType uiType; // Null to not filter the sessions
+
+		IndexedSessionsView(Map<K, Set<SKUISession>> index, K key, UIType uiType) {
+			this.index = index;
+			this.key = key;
+			this.uiType = uiType;
+		}
+
+		private Set<SKUISession> getSessions() {
+			Set<SKUISession> sessions = index.get(key);
+			return (sessions != null) ? Collections.unmodifiableSet(sessions) : Collections.emptySet();
+		}
+
+		@Override
+		public Iterator<SKUISession> iterator() {
+			Set<SKUISession> sessions = this.getSessions();
+			if (uiType == null) return sessions.iterator();
+			return sessions.stream().filter(session -> session.getUIType() == uiType).iterator();
+		}
+
+		@Override
+		public int size() {
+			Set<SKUISession> sessions = this.getSessions();
+			if (uiType == null) return sessions.size();
+			return (int) sessions.stream().filter(session -> session.getUIType() == uiType).count();
+		}
+	}
+
+	private void addToIndexes(SKUISession session) {
+		assert session != null;
+		Shopkeeper shopkeeper = session.getShopkeeper(); // Can be null
+		if (shopkeeper != null) {
+			uiSessionsByShopkeeper.computeIfAbsent(shopkeeper, key -> new LinkedHashSet<>(4)).add(session);
+		}
+		uiSessionsByType.computeIfAbsent(session.getUIType(), key -> new LinkedHashSet<>()).add(session);
+	}
+
+	private void removeFromIndexes(SKUISession session) {
+		assert session != null;
+		Shopkeeper shopkeeper = session.getShopkeeper(); // Can be null
+		if (shopkeeper != null) {
+			removeFromIndex(uiSessionsByShopkeeper, shopkeeper, session);
+		}
+		removeFromIndex(uiSessionsByType, session.getUIType(), session);
+	}
+
+	private static <K> void removeFromIndex(Map<K, Set<SKUISession>> index, K key, SKUISession session) {
+		Set<SKUISession> sessions = index.get(key);
+		if (sessions == null) return;
+		sessions.remove(session);
+		if (sessions.isEmpty()) {
+			index.remove(key);
 		}
-		return sessions;
 	}
 
 	@Override
@@ -213,6 +268,7 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 		assert player != null;
 		SKUISession session = uiSessions.remove(player.getUniqueId());
 		if (session == null) return;
+		this.removeFromIndexes(session);
 
 		this.onSessionEnd(session, closeEvent);
 	}
@@ -244,12 +300,13 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 			session.abort();
 		}
 		assert uiSessions.isEmpty();
+		assert uiSessionsByShopkeeper.isEmpty() && uiSessionsByType.isEmpty();
 	}
 
 	@Override
 	public void abortUISessions(Shopkeeper shopkeeper) {
-		// Note: The returned collection is already a copy.
-		for (UISession session : this.getUISessions(shopkeeper)) {
+		// Copy to prevent concurrent modifications:
+		for (UISession session : new ArrayList<>(this.getUISessions(shopkeeper))) {
 			session.abort();
 		}
 	}
@@ -268,10 +325,8 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 
 	private void deactivateUIs(Shopkeeper shopkeeper) {
 		assert shopkeeper != null;
-		for (SKUISession session : uiSessionsView) {
-			if (session.getShopkeeper() == shopkeeper) {
-				session.deactivateUI();
-			}
+		for (SKUISession session : this.getUISessions(shopkeeper)) {
+			session.deactivateUI();
 		}
 	}
 
@@ -2,6 +2,7 @@ package com.nisovin.shopkeepers.ui.defaults;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -153,11 +154,19 @@ public abstract class AbstractEditorHandler extends UIHandler {
 	public static abstract class Button {
 
 		private static final int NO_SLOT = -1;
+		// Only the icons of the most recently used icon states are kept:
+		private static final int MAX_CACHED_ICONS = 16;
+
+		/**
+		 * An {@link #getIconState(Session) icon state} for icons that do not depend on any state.
+		 */
+		protected static final Object CONSTANT_ICON_STATE = new Object();
 
 		private final boolean placeAtEnd;
 
 		private AbstractEditorHandler editorHandler;
 		private int slot = NO_SLOT;
+		private Map<Object, ItemStack> iconCache = null; // Lazily setup
 
 		public Button() {
 			this(false);
@@ -184,13 +193,68 @@ public abstract class AbstractEditorHandler extends UIHandler {
 
 		public abstract ItemStack getIcon(Session session);
 
+		/**
+		 * Gets an object that captures all state that the icon of this button depends on in the given session.
+		 * <p>
+		 * If this returns a non-null state, the icon created by {@link #getIcon(Session)} is cached and reused for as
+		 * long as the button's state is represented by an equal object. Buttons that return the same icon regardless
+		 * of any state can use {@link #CONSTANT_ICON_STATE}. By default this returns <code>null</code>, and the icon
+		 * is freshly created every time.
+		 * <p>
+		 * The icon cache is not aware of changes to the settings or messages. This is fine, since the editor handlers
+		 * are recreated on reloads.
+		 *
+		 * @param session
+		 *            the session
+		 * @return the icon state, or <code>null</code> if the icon shall not be cached
+		 */
+		protected Object getIconState(Session session) {
+			return null;
+		}
+
+		// The returned icon may be shared and must not be modified. Inventories store copies of the items they get
+		// assigned.
+		private ItemStack getCachedIcon(Session session) {
+			Object iconState = this.getIconState(session);
+			if (iconState == null) return this.getIcon(session);
+			if (iconCache == null) {
+				iconCache = new LinkedHashMap<Object, ItemStack>(MAX_CACHED_ICONS, 0.75f, true) {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected boolean removeEldestEntry(Map.Entry<Object, ItemStack> eldest) {
+						return this.size() > MAX_CACHED_ICONS;
+					}
+				};
+			}
+			ItemStack icon = iconCache.get(iconState);
+			if (icon == null && !iconCache.containsKey(iconState)) { // Null icons are cached as well
+				icon = this.getIcon(session);
+				iconCache.put(iconState, icon);
+			}
+			return icon;
+		}
+
+		/**
+		 * Clears the cached icons of this button.
+		 * <p>
+		 * This only needs to be called if the icon depends on state that is not captured by the
+		 * {@link #getIconState(Session) icon state}.
+		 */
+		protected final void clearCachedIcons() {
+			if (iconCache != null) {
+				iconCache.clear();
+			}
+		}
+
 		// Updates the icon in all sessions.
 		// Note: Cannot deal with changes to the registered buttons (the button's slot) while the inventory is open.
 		protected final void updateIcon() {
 			if (slot != NO_SLOT && editorHandler != null) {
 				for (Session session : editorHandler.sessions.values()) {
-					session.inventory.setItem(slot, this.getIcon(session));
-					session.player.updateInventory();
+					if (editorHandler.setIcon(session, slot, this.getCachedIcon(session))) {
+						session.player.updateInventory();
+					}
 				}
 			}
 		}
@@ -284,6 +348,11 @@ public abstract class AbstractEditorHandler extends UIHandler {
 				return createPrevPageIcon(page);
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return session.currentPage;
+			}
+
 			@Override
 			protected void onClick(InventoryClickEvent clickEvent, Player player) {
 				// Previous page button:
@@ -311,6 +380,11 @@ public abstract class AbstractEditorHandler extends UIHandler {
 				return createNextPageIcon(page);
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return session.currentPage;
+			}
+
 			@Override
 			protected void onClick(InventoryClickEvent clickEvent, Player player) {
 				// Next page button:
@@ -337,6 +411,11 @@ public abstract class AbstractEditorHandler extends UIHandler {
 				return createCurrentPageIcon(page);
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return session.currentPage;
+			}
+
 			@Override
 			protected void onClick(InventoryClickEvent clickEvent, Player player) {
 				// Current page button: Does nothing.
@@ -351,6 +430,11 @@ public abstract class AbstractEditorHandler extends UIHandler {
 				return createTradeSetupIcon();
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected void onClick(InventoryClickEvent clickEvent, Player player) {
 				// Trade setup button: Does nothing.
@@ -496,6 +580,8 @@ public abstract class AbstractEditorHandler extends UIHandler {
 		private final Player player;
 		private final List<TradingRecipeDraft> recipes;
 		private final Inventory inventory;
+		// The icons that were last set to the button slots, indexed by slot:
+		private final ItemStack[] slotIcons;
 		private int currentPage = 1;
 
 		protected Session(Player player, List<TradingRecipeDraft> recipes, Inventory inventory) {
@@ -505,6 +591,7 @@ public abstract class AbstractEditorHandler extends UIHandler {
 			this.player = player;
 			this.recipes = recipes;
 			this.inventory = inventory;
+			this.slotIcons = new ItemStack[inventory.getSize()];
 		}
 
 		public final Player getPlayer() {
@@ -571,48 +658,68 @@ public abstract class AbstractEditorHandler extends UIHandler {
 		assert session != null;
 		Inventory inventory = session.inventory;
 
-		// clear trades area:
-		for (int i = TRADES_ROW_1_START; i <= TRADES_ROW_1_END; ++i) {
-			inventory.setItem(i, null);
-		}
-		for (int i = TRADES_ROW_2_START; i <= TRADES_ROW_2_END; ++i) {
-			inventory.setItem(i, null);
-		}
-		for (int i = TRADES_ROW_3_START; i <= TRADES_ROW_3_END; ++i) {
-			inventory.setItem(i, null);
-		}
-
 		// Insert trades:
 		int page = session.currentPage;
 		assert page >= 1;
 		List<TradingRecipeDraft> recipes = session.recipes;
 		int recipesPerPage = COLUMNS_PER_ROW;
 		int startIndex = (page - 1) * recipesPerPage;
-		for (int column = 0, i = startIndex; column < COLUMNS_PER_ROW && i < recipes.size(); ++column, ++i) {
+		int column = 0;
+		for (int i = startIndex; column < COLUMNS_PER_ROW && i < recipes.size(); ++column, ++i) {
 			TradingRecipeDraft recipe = recipes.get(i);
 			this.setTradeColumn(inventory, column, recipe);
 		}
+
+		// Clear the remaining trade columns (instead of clearing the whole trades area up front and then setting most
+		// of its slots again):
+		for (; column < TRADES_COLUMNS; ++column) {
+			inventory.setItem(column + RESULT_ITEM_OFFSET, null);
+			inventory.setItem(column + ITEM_1_OFFSET, null);
+			inventory.setItem(column + ITEM_2_OFFSET, null);
+		}
 	}
 
 	protected void setupTradesPageBar(Session session) {
 		assert session != null;
-		Inventory inventory = session.inventory;
-		// Clear page bar area:
-		for (int i = TRADES_PAGE_BAR_START; i <= TRADES_PAGE_BAR_END; ++i) {
-			inventory.setItem(i, null);
-		}
-
-		// Insert buttons:
+		// Insert buttons (empty slots get cleared):
 		Button[] buttons = this.getTradesPageBarButtons();
 		for (int i = 0; i < buttons.length; ++i) {
 			Button button = buttons[i];
-			if (button == null) continue;
-			ItemStack icon = button.getIcon(session);
-			if (icon == null) continue;
-			inventory.setItem(button.slot, icon);
+			ItemStack icon = null;
+			if (button != null) {
+				icon = button.getCachedIcon(session);
+			}
+			this.setIcon(session, TRADES_PAGE_BAR_START + i, icon);
 		}
 	}
 
+	/**
+	 * Sets the given icon to the specified slot of the session's inventory, unless the slot already contains the same
+	 * (cached) icon.
+	 * <p>
+	 * Only the slots of the trades page bar and the button area are expected to be set via this method. Players are
+	 * not able to modify the contents of these slots.
+	 *
+	 * @param session
+	 *            the session
+	 * @param slot
+	 *            the slot
+	 * @param icon
+	 *            the icon, can be <code>null</code> to clear the slot
+	 * @return <code>true</code> if the slot has been updated
+	 */
+	protected boolean setIcon(Session session, int slot, ItemStack icon) {
+		assert session != null;
+		ItemStack[] slotIcons = session.slotIcons;
+		if (slot < slotIcons.length) {
+			// Cached icons are reused, so an unchanged icon is the same instance:
+			if (slotIcons[slot] == icon) return false;
+			slotIcons[slot] = icon;
+		}
+		session.inventory.setItem(slot, icon);
+		return true;
+	}
+
 	// Note: This cannot deal with new button rows being required due to newly added buttons (which would require
 	// creating and freshly open a new inventory, resulting in flicker).
 	protected void updateButtons(Session session) {
@@ -630,11 +737,11 @@ public abstract class AbstractEditorHandler extends UIHandler {
 			ItemStack icon = null;
 			Button button = buttons[buttonIndex];
 			if (button != null) {
-				icon = button.getIcon(session);
+				icon = button.getCachedIcon(session);
 			}
 			// Null will clear the slot (required if this is called to refresh the buttons in an already setup
-			// inventory):
-			inventory.setItem(slot, icon);
+			// inventory). Slots whose icon did not change are skipped:
+			this.setIcon(session, slot, icon);
 		}
 	}
 
@@ -123,6 +123,11 @@ public abstract class EditorHandler extends AbstractEditorHandler implements Sho
 				return Settings.createDeleteButtonItem();
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected void onClick(InventoryClickEvent clickEvent, Player player) {
 				// Call event:
@@ -162,6 +167,11 @@ public abstract class EditorHandler extends AbstractEditorHandler implements Sho
 				return Settings.createNameButtonItem();
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected void onClick(InventoryClickEvent clickEvent, Player player) {
 				// Also triggers save:
@@ -184,6 +194,11 @@ public abstract class EditorHandler extends AbstractEditorHandler implements Sho
 				return Settings.createContainerButtonItem();
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected void onClick(InventoryClickEvent clickEvent, Player player) {
 				// Also triggers save:
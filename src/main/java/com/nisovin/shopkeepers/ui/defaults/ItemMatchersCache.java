@@ -0,0 +1,82 @@
+package com.nisovin.shopkeepers.ui.defaults;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.bukkit.inventory.Merchant;
+import org.bukkit.inventory.MerchantRecipe;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.compat.api.ItemMatcher;
+
+/**
+ * Caches the item matchers for the required items of the trading recipes that are currently displayed to players.
+ * <p>
+ * The item matchers are lazily created for each recipe and shared by all players that see the same (identical) list
+ * of trading recipes. The recipe that Minecraft uses for a trade does not necessarily match the recipe that is
+ * selected in the trading window: If the first recipe is selected, or during shift-click trades, Minecraft uses
+ * whichever recipe matches the offered items. The cached item matchers are therefore looked up by the index of the
+ * used merchant recipe, which is determined by identity among the recipes of the merchant. If the used merchant
+ * recipe cannot be found this way, its item matchers are not cached.
+ */
+final class ItemMatchersCache {
+
+	private List<TradingRecipe> recipes = null;
+	private ItemMatcher[][] itemMatchers = null;
+
+	ItemMatchersCache() {
+	}
+
+	/**
+	 * Gets the item matchers for the required items of the used merchant recipe.
+	 * <p>
+	 * If the used merchant recipe cannot be found among the recipes of the merchant, or if the displayed trading
+	 * recipes are not known, this creates new item matchers without caching them.
+	 *
+	 * @param recipes
+	 *            the trading recipes that are displayed to the player, or <code>null</code> if not known
+	 * @param merchant
+	 *            the merchant
+	 * @param selectedRecipeIndex
+	 *            the index of the recipe that is selected in the trading window
+	 * @param usedRecipe
+	 *            the merchant recipe that is used for the trade
+	 * @param itemMatchersFactory
+	 *            creates the item matchers for the used merchant recipe
+	 * @return the item matchers
+	 */
+	ItemMatcher[] get(List<TradingRecipe> recipes, Merchant merchant, int selectedRecipeIndex, MerchantRecipe usedRecipe,
+						Supplier<ItemMatcher[]> itemMatchersFactory) {
+		if (recipes == null) return itemMatchersFactory.get();
+		int recipeIndex = getRecipeIndex(merchant, selectedRecipeIndex, usedRecipe);
+		if (recipeIndex < 0 || recipeIndex >= recipes.size()) {
+			return itemMatchersFactory.get();
+		}
+		if (recipes != this.recipes) {
+			this.itemMatchers = new ItemMatcher[recipes.size()][];
+			this.recipes = recipes;
+		}
+		ItemMatcher[] recipeItemMatchers = itemMatchers[recipeIndex];
+		if (recipeItemMatchers == null) {
+			recipeItemMatchers = itemMatchersFactory.get();
+			itemMatchers[recipeIndex] = recipeItemMatchers;
+		}
+		return recipeItemMatchers;
+	}
+
+	// Returns -1 if the given merchant recipe is not one of the recipes of the merchant.
+	private static int getRecipeIndex(Merchant merchant, int selectedRecipeIndex, MerchantRecipe usedRecipe) {
+		if (usedRecipe == null) return -1;
+		int recipeCount = merchant.getRecipeCount();
+		// Usually the used recipe is the selected recipe:
+		if (selectedRecipeIndex >= 0 && selectedRecipeIndex < recipeCount && merchant.getRecipe(selectedRecipeIndex) == usedRecipe) {
+			return selectedRecipeIndex;
+		}
+		for (int index = 0; index < recipeCount; index++) {
+			if (merchant.getRecipe(index) == usedRecipe) {
+				return index;
+			}
+		}
+		return -1;
+	}
+}
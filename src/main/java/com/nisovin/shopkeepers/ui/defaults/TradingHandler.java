@@ -3,7 +3,10 @@ package com.nisovin.shopkeepers.ui.defaults;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Statistic;
@@ -26,6 +29,9 @@ import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.compat.NMSManager;
+import com.nisovin.shopkeepers.compat.api.ItemMatcher;
+import com.nisovin.shopkeepers.debug.timings.Timings;
+import com.nisovin.shopkeepers.debug.timings.TimingsRegistry;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.ui.AbstractShopkeeperUIHandler;
 import com.nisovin.shopkeepers.ui.AbstractUIType;
@@ -64,6 +70,19 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		 * The used trading recipe.
 		 */
 		public TradingRecipe tradingRecipe;
+		/**
+		 * The item inside the result slot of the merchant inventory at the time the trade got prepared, not
+		 * <code>null</code> or empty.
+		 * <p>
+		 * Do not modify this item!
+		 */
+		public ItemStack resultItem;
+		/**
+		 * The item on the player's cursor at the time the trade got prepared, can be <code>null</code> or empty.
+		 * <p>
+		 * Do not modify this item!
+		 */
+		public ItemStack cursor;
 		/**
 		 * The item offered by the player matching the first required item of the used trading recipe (not necessarily
 		 * the item in the first slot), not <code>null</code> or empty.
@@ -99,12 +118,15 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		// Separate from constructor to allow evolution without affecting sub-classes
 		private void setup(	InventoryClickEvent clickEvent, MerchantInventory merchantInventory, Player tradingPlayer,
-							TradingRecipe tradingRecipe, ItemStack offeredItem1, ItemStack offeredItem2, boolean swappedItemOrder) {
+							TradingRecipe tradingRecipe, ItemStack resultItem, ItemStack cursor, ItemStack offeredItem1,
+							ItemStack offeredItem2, boolean swappedItemOrder) {
 			this.clickEvent = clickEvent;
 			this.merchantInventory = merchantInventory;
 			this.tradingPlayer = tradingPlayer;
 			this.playerInventory = tradingPlayer.getInventory();
 			this.tradingRecipe = tradingRecipe;
+			this.resultItem = resultItem;
+			this.cursor = cursor;
 			this.offeredItem1 = offeredItem1;
 			this.offeredItem2 = offeredItem2;
 			this.swappedItemOrder = swappedItemOrder;
@@ -117,9 +139,23 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	protected static final int BUY_ITEM_2_SLOT_ID = 1;
 	protected static final int RESULT_ITEM_SLOT_ID = 2;
 
+	// Shared by all trading handlers:
+	private static final Timings TRADE_HANDLING_TIMINGS = TimingsRegistry.create("Trade handling");
+
 	// Counts the trades triggered by the last click-event:
 	protected int tradeCounter = 0;
 
+	// The trading recipes that are currently displayed to the players trading with this shopkeeper, by player uuid:
+	private final Map<UUID, List<TradingRecipe>> currentRecipes = new HashMap<>();
+	// The merchant recipes for the most recently used trading recipes. Shopkeepers return the same (unmodifiable)
+	// recipes list as long as their recipes did not change, so the merchant recipes can be shared by all players if
+	// the recipes don't depend on the player:
+	private List<TradingRecipe> cachedRecipes = null;
+	private List<MerchantRecipe> cachedMerchantRecipes = null;
+	// The item matchers for the required items of the most recently traded list of trading recipes. Like the merchant
+	// recipes, these can be shared by all players that see the same recipes:
+	private final ItemMatchersCache itemMatchersCache = new ItemMatchersCache();
+
 	public TradingHandler(AbstractUIType uiType, AbstractShopkeeper shopkeeper) {
 		super(uiType, shopkeeper);
 	}
@@ -143,7 +179,9 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		Shopkeeper shopkeeper = this.getShopkeeper();
 		String title = this.getInventoryTitle();
 		List<TradingRecipe> recipes = shopkeeper.getTradingRecipes(player);
-		return this.openTradeWindow(title, recipes, player);
+		if (!this.openTradeWindow(title, recipes, player)) return false;
+		currentRecipes.put(player.getUniqueId(), recipes);
+		return true;
 	}
 
 	protected boolean openTradeWindow(String title, List<TradingRecipe> recipes, Player player) {
@@ -167,12 +205,30 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	}
 
 	protected void setupMerchantRecipes(Merchant merchant, List<TradingRecipe> recipes) {
-		// Create list of merchant recipes:
-		List<MerchantRecipe> merchantRecipes = this.createMerchantRecipes(recipes);
-		// Set merchant's recipes:
+		// Get list of merchant recipes:
+		List<MerchantRecipe> merchantRecipes = this.getMerchantRecipes(recipes);
+		// Set merchant's recipes (copies the recipes):
 		merchant.setRecipes(merchantRecipes);
 	}
 
+	/**
+	 * Gets the merchant recipes for the given trading recipes.
+	 * <p>
+	 * The merchant recipes are cached for the most recently used list of trading recipes. They are only created anew
+	 * if the given list of trading recipes is a different list instance.
+	 * 
+	 * @param recipes
+	 *            the trading recipes
+	 * @return an unmodifiable view on the merchant recipes, not to be modified
+	 */
+	protected List<MerchantRecipe> getMerchantRecipes(List<TradingRecipe> recipes) {
+		if (recipes != cachedRecipes) {
+			cachedMerchantRecipes = Collections.unmodifiableList(this.createMerchantRecipes(recipes));
+			cachedRecipes = recipes;
+		}
+		return cachedMerchantRecipes;
+	}
+
 	protected List<MerchantRecipe> createMerchantRecipes(List<TradingRecipe> recipes) {
 		List<MerchantRecipe> merchantRecipes = new ArrayList<>();
 		for (TradingRecipe recipe : recipes) {
@@ -205,7 +261,13 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		Shopkeeper shopkeeper = this.getShopkeeper();
 		List<TradingRecipe> recipes = shopkeeper.getTradingRecipes(player);
-		List<MerchantRecipe> newMerchantRecipes = this.createMerchantRecipes(recipes);
+		// Shopkeepers can return the same (unmodifiable) recipes list if their recipes did not change:
+		if (recipes == currentRecipes.get(player.getUniqueId())) {
+			Log.debug(() -> "Trades are still up-to-date for player " + player.getName());
+			return; // Recipes did not change
+		}
+		currentRecipes.put(player.getUniqueId(), recipes);
+		List<MerchantRecipe> newMerchantRecipes = this.getMerchantRecipes(recipes);
 		if (MerchantUtils.MERCHANT_RECIPES_EQUAL_IGNORING_USES.equals(oldMerchantRecipes, newMerchantRecipes)) {
 			Log.debug(() -> "Trades are still up-to-date for player " + player.getName());
 			return; // Recipes did not change
@@ -214,6 +276,10 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		// It is not safe to reduce the number of trading recipes for the player, so we need to add dummy recipes:
 		// TODO Check if this still applies in MC 1.14
+		if (recipes.size() < oldMerchantRecipes.size()) {
+			// Copy the shared merchant recipes:
+			newMerchantRecipes = new ArrayList<>(newMerchantRecipes);
+		}
 		for (int i = recipes.size(); i < oldMerchantRecipes.size(); ++i) {
 			// TODO API doesn't expect null here (but works).. use something else?
 			MerchantRecipe merchantRecipe = new MerchantRecipe(null, 0, 0, false);
@@ -233,6 +299,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 	@Override
 	protected void onInventoryClose(Player player, InventoryCloseEvent closeEvent) {
+		currentRecipes.remove(player.getUniqueId());
 	}
 
 	// TRADE PROCESSING
@@ -310,16 +377,29 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		clickEvent.setCancelled(true);
 		ItemUtils.updateInventoryLater(player);
 
+		long startTime = System.nanoTime();
+		this.handleTradeClick(clickEvent, player);
+		TRADE_HANDLING_TIMINGS.record(System.nanoTime() - startTime);
+	}
+
+	// Handles a click on the result slot which might trigger trades.
+	private void handleTradeClick(InventoryClickEvent clickEvent, Player player) {
+		InventoryAction action = clickEvent.getAction();
+
 		// Check for a trade and prepare trade data:
 		TradeData tradeData = this.checkForTrade(clickEvent, false);
 		if (tradeData == null) {
 			// No trade available.
 			return;
 		}
+		// Use the items captured by the trade data, so that the whole click works with the same snapshot:
+		ItemStack resultItem = tradeData.resultItem;
+		ItemStack cursor = tradeData.cursor;
 		assert tradeData.tradingRecipe.getResultItem().isSimilar(resultItem);
 
 		PlayerInventory playerInventory = player.getInventory();
 		boolean isCursorEmpty = ItemUtils.isEmpty(cursor);
+		boolean updateTrades = false;
 
 		// Handle trade depending on used inventory action:
 		// TODO: In MC 1.15.1 PICKUP_ONE and PICKUP_SOME might get triggered when clicking the result slot (test again:
@@ -342,7 +422,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 					// Common apply trade:
 					this.commonApplyTrade(tradeData);
 				}
-				this.updateTrades(player);
+				updateTrades = true;
 			}
 		} else if (action == InventoryAction.DROP_ONE_SLOT || action == InventoryAction.DROP_ALL_SLOT) {
 			// Not supported for now, since this might be tricky to accurately reproduce.
@@ -370,67 +450,143 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 					// Common apply trade:
 					this.commonApplyTrade(tradeData);
 				}
-				this.updateTrades(player);
+				updateTrades = true;
 			}
 		} else if (action == InventoryAction.MOVE_TO_OTHER_INVENTORY) {
-			// Trades as often as possible (depending on offered items and inventory space) for the current result item:
-			// If the current trading recipe is no longer fulfilled, and the currently selected recipe index is 0,
-			// it will switch to the next applicable trading recipe, and continue the trading if the new result item is
-			// equal to the previous result item.
-			while (true) {
-				// Check if there is enough space in the player's inventory:
-				ItemStack[] newPlayerContents = playerInventory.getStorageContents();
-
-				// Minecraft is adding items in reverse container order (starting with hotbar slot 9),
-				// so we reverse the player contents accordingly before adding items:
-				// Changes write through to the original array.
-				List<ItemStack> listView = Arrays.asList(newPlayerContents);
-				List<ItemStack> hotbarView = listView.subList(0, 9);
-				List<ItemStack> contentsView = listView.subList(9, 36);
-				Collections.reverse(hotbarView);
-				Collections.reverse(contentsView);
+			this.handleBulkTrades(clickEvent, tradeData);
+			updateTrades = true;
+		} else {
+			// The inventory action involves the result slot, but doesn't trigger a trade usually, or isn't supported
+			// yet.
+		}
 
-				// No item copy required here:
-				if (ItemUtils.addItems(newPlayerContents, resultItem) != 0) {
-					// Not enough inventory space, abort trading:
-					break;
-				}
+		// Apply any changes that got deferred during the handling of the trades:
+		this.onTradesCompleted(player);
+		if (updateTrades) {
+			this.updateTrades(player);
+		}
+	}
 
+	// Trades as often as possible (depending on offered items and inventory space) for the current result item:
+	// If the current trading recipe is no longer fulfilled, and the currently selected recipe index is 0, it will
+	// switch to the next applicable trading recipe, and continue the trading if the new result item is equal to the
+	// previous result item.
+	// Instead of checking and applying each trade individually, we determine the max number of trades that the offered
+	// items and the available inventory space allow for up front, and then apply the changes to the player's inventory
+	// and the merchant inventory only once per used trading recipe. Every trade is still prepared and passed to the
+	// ShopkeeperTradeEvent individually, so that the trades can still be cancelled individually (eg. if the shop runs
+	// out of stock).
+	private void handleBulkTrades(InventoryClickEvent clickEvent, TradeData tradeData) {
+		PlayerInventory playerInventory = tradeData.playerInventory;
+		ItemStack resultItem = tradeData.tradingRecipe.getResultItem();
+		ItemStack[] newPlayerContents = playerInventory.getStorageContents();
+
+		// Minecraft is adding items in reverse container order (starting with hotbar slot 9),
+		// so we reverse the player contents accordingly before adding items:
+		// Changes write through to the original array.
+		List<ItemStack> listView = Arrays.asList(newPlayerContents);
+		List<ItemStack> hotbarView = listView.subList(0, 9);
+		List<ItemStack> contentsView = listView.subList(9, 36);
+		Collections.reverse(hotbarView);
+		Collections.reverse(contentsView);
+
+		boolean playerInventoryChanged = false;
+		boolean abort = false;
+		while (!abort) {
+			int maxTrades = this.getMaxTradeCount(tradeData, newPlayerContents);
+			if (maxTrades == 0) {
+				// Not enough inventory space, abort trading:
+				break;
+			}
+
+			// Trades with the current trading recipe:
+			TradeData firstTradeData = tradeData;
+			int trades = 0;
+			while (trades < maxTrades) {
+				if (trades > 0) {
+					// Setup the trade data for the next trade, based on the offered items that remain after the
+					// previous trades:
+					tradeData = this.createNextTradeData(clickEvent, tradeData);
+				}
 				if (!this.handleTrade(tradeData)) {
 					// Trade was aborted:
+					abort = true;
 					break;
 				}
 
-				// Revert previous reverse:
-				Collections.reverse(hotbarView);
-				Collections.reverse(contentsView);
+				// No item copy required here:
+				int remaining = ItemUtils.addItems(newPlayerContents, resultItem);
+				assert remaining == 0; // We checked the available inventory space beforehand
+				playerInventoryChanged = true;
 
-				// Apply player inventory changes:
-				ItemUtils.setStorageContents(playerInventory, newPlayerContents);
+				this.applyTrade(tradeData);
+				trades++;
+			}
 
-				// Common apply trade:
-				this.commonApplyTrade(tradeData);
+			if (trades > 0) {
+				// Update the offered items inside the merchant inventory once for all applied trades:
+				this.updateMerchantInventory(firstTradeData, trades);
+			}
+			if (abort) break;
 
-				// Check if we might continue trading:
-				tradeData = this.checkForTrade(clickEvent, true); // Silent
-				if (tradeData == null) {
-					// No trade available:
-					break;
-				}
-				// Compare result items:
-				ItemStack newResultItem = tradeData.tradingRecipe.getResultItem();
-				if (!resultItem.isSimilar(newResultItem)) {
-					// New result item doesn't match previous result item, abort trading (mimics Minecraft behavior):
-					break;
-				}
-				// Update result item:
-				resultItem = newResultItem;
+			// Check if we might continue trading:
+			tradeData = this.checkForTrade(clickEvent, true); // Silent
+			if (tradeData == null) {
+				// No trade available:
+				break;
 			}
-			this.updateTrades(player);
-		} else {
-			// The inventory action involves the result slot, but doesn't trigger a trade usually, or isn't supported
-			// yet.
+			// Compare result items:
+			ItemStack newResultItem = tradeData.tradingRecipe.getResultItem();
+			if (!resultItem.isSimilar(newResultItem)) {
+				// New result item doesn't match previous result item, abort trading (mimics Minecraft behavior):
+				break;
+			}
+			// Update result item:
+			resultItem = newResultItem;
 		}
+
+		if (playerInventoryChanged) {
+			// Revert previous reverse:
+			Collections.reverse(hotbarView);
+			Collections.reverse(contentsView);
+
+			// Apply player inventory changes:
+			ItemUtils.setStorageContents(playerInventory, newPlayerContents);
+		}
+	}
+
+	// Gets the max number of trades using the given trade's trading recipe that are possible with the offered items
+	// and the available space inside the given (player inventory) contents.
+	private int getMaxTradeCount(TradeData tradeData, ItemStack[] playerContents) {
+		TradingRecipe tradingRecipe = tradeData.tradingRecipe;
+		int maxTrades = (tradeData.offeredItem1.getAmount() / tradingRecipe.getItem1().getAmount());
+		ItemStack requiredItem2 = tradingRecipe.getItem2();
+		if (!ItemUtils.isEmpty(requiredItem2)) {
+			maxTrades = Math.min(maxTrades, (ItemUtils.getItemStackAmount(tradeData.offeredItem2) / requiredItem2.getAmount()));
+		}
+		if (maxTrades == 0) return 0;
+		ItemStack resultItem = tradingRecipe.getResultItem();
+		int freeCapacity = ItemUtils.getFreeCapacity(playerContents, resultItem);
+		return Math.min(maxTrades, (freeCapacity / resultItem.getAmount()));
+	}
+
+	// Sets up the trade data for a successive trade with the same trading recipe, once the previous trade got applied.
+	private TradeData createNextTradeData(InventoryClickEvent clickEvent, TradeData previousTradeData) {
+		TradingRecipe tradingRecipe = previousTradeData.tradingRecipe;
+		ItemStack offeredItem1 = ItemUtils.descreaseItemAmount(previousTradeData.offeredItem1.clone(),
+				ItemUtils.getItemStackAmount(tradingRecipe.getItem1()));
+		ItemStack offeredItem2 = ItemUtils.getNullIfEmpty(previousTradeData.offeredItem2);
+		if (offeredItem2 != null) {
+			offeredItem2 = ItemUtils.descreaseItemAmount(offeredItem2.clone(), ItemUtils.getItemStackAmount(tradingRecipe.getItem2()));
+		}
+		assert offeredItem1 != null;
+
+		TradeData tradeData = this.createTradeData();
+		tradeData.setup(clickEvent, previousTradeData.merchantInventory, previousTradeData.tradingPlayer, tradingRecipe,
+				previousTradeData.resultItem, previousTradeData.cursor, offeredItem1, offeredItem2, previousTradeData.swappedItemOrder);
+		// Custom setup by sub-classes:
+		this.setupTradeData(tradeData, clickEvent);
+		return tradeData;
 	}
 
 	private void clearResultSlotForInvalidTrade(MerchantInventory merchantInventory) {
@@ -459,7 +615,8 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		}
 
 		// Find (and validate) the recipe Minecraft is using for the trade:
-		TradingRecipe tradingRecipe = MerchantUtils.getSelectedTradingRecipe(merchantInventory);
+		MerchantRecipe merchantRecipe = merchantInventory.getSelectedRecipe();
+		TradingRecipe tradingRecipe = MerchantUtils.createTradingRecipe(merchantRecipe);
 		if (tradingRecipe == null) {
 			// This should not happen..
 			if (!silent) {
@@ -488,9 +645,14 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		// Minecraft checks both combinations (item1, item2) and (item2, item1) when determining if a trading recipe
 		// matches, so we need to determine the used item order for the currently used trading recipe:
-		if (matches(offeredItem1, offeredItem2, requiredItem1, requiredItem2)) {
+		// The item matchers prepare the required items only once for all trades of the same trading recipe.
+		ItemMatcher[] itemMatchers = itemMatchersCache.get(currentRecipes.get(player.getUniqueId()), merchantInventory.getMerchant(),
+				merchantInventory.getSelectedRecipeIndex(), merchantRecipe, () -> this.createItemMatchers(requiredItem1, requiredItem2));
+		ItemMatcher requiredItem1Matcher = itemMatchers[0];
+		ItemMatcher requiredItem2Matcher = itemMatchers[1];
+		if (matches(offeredItem1, offeredItem2, requiredItem1, requiredItem1Matcher, requiredItem2, requiredItem2Matcher)) {
 			// Order is as-is.
-		} else if (matches(offeredItem1, offeredItem2, requiredItem2, requiredItem1)) {
+		} else if (matches(offeredItem1, offeredItem2, requiredItem2, requiredItem2Matcher, requiredItem1, requiredItem1Matcher)) {
 			// Swapped order:
 			swappedItemOrder = true;
 			ItemStack temp = offeredItem1;
@@ -531,21 +693,30 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		// Setup trade data:
 		TradeData tradeData = this.createTradeData();
-		tradeData.setup(clickEvent, merchantInventory, player, tradingRecipe, offeredItem1, offeredItem2, swappedItemOrder);
+		tradeData.setup(clickEvent, merchantInventory, player, tradingRecipe, resultItem, clickEvent.getCursor(), offeredItem1,
+				offeredItem2, swappedItemOrder);
 		// Custom setup by sub-classes:
 		this.setupTradeData(tradeData, clickEvent);
 		return tradeData;
 	}
 
-	private boolean matches(ItemStack offeredItem1, ItemStack offeredItem2, ItemStack requiredItem1, ItemStack requiredItem2) {
+	private ItemMatcher[] createItemMatchers(ItemStack requiredItem1, ItemStack requiredItem2) {
+		return new ItemMatcher[] {
+				NMSManager.getProvider().createItemMatcher(requiredItem1),
+				NMSManager.getProvider().createItemMatcher(requiredItem2)
+		};
+	}
+
+	private boolean matches(ItemStack offeredItem1, ItemStack offeredItem2, ItemStack requiredItem1, ItemMatcher requiredItem1Matcher,
+							ItemStack requiredItem2, ItemMatcher requiredItem2Matcher) {
 		int offeredItem1Amount = ItemUtils.getItemStackAmount(offeredItem1);
 		int offeredItem2Amount = ItemUtils.getItemStackAmount(offeredItem2);
 		int requiredItem1Amount = ItemUtils.getItemStackAmount(requiredItem1);
 		int requiredItem2Amount = ItemUtils.getItemStackAmount(requiredItem2);
 		return (offeredItem1Amount >= requiredItem1Amount
 				&& offeredItem2Amount >= requiredItem2Amount
-				&& NMSManager.getProvider().matches(offeredItem1, requiredItem1)
-				&& NMSManager.getProvider().matches(offeredItem2, requiredItem2));
+				&& requiredItem1Matcher.matches(offeredItem1)
+				&& requiredItem2Matcher.matches(offeredItem2));
 	}
 
 	protected final void debugPreventedTrade(Player player, String reason) {
@@ -625,16 +796,25 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 	private void commonApplyTrade(TradeData tradeData) {
 		// Update merchant inventory contents:
+		this.updateMerchantInventory(tradeData, 1);
+		this.applyTrade(tradeData);
+	}
+
+	// Removes the items used by the given number of trades from the merchant inventory.
+	private void updateMerchantInventory(TradeData tradeData, int trades) {
+		assert trades > 0;
 		MerchantInventory merchantInventory = tradeData.merchantInventory;
 		merchantInventory.setItem(RESULT_ITEM_SLOT_ID, null); // Clear result slot, just in case
 
 		TradingRecipe tradingRecipe = tradeData.tradingRecipe;
-		ItemStack newOfferedItem1 = ItemUtils.descreaseItemAmount(tradeData.offeredItem1, ItemUtils.getItemStackAmount(tradingRecipe.getItem1()));
-		ItemStack newOfferedItem2 = ItemUtils.descreaseItemAmount(tradeData.offeredItem2, ItemUtils.getItemStackAmount(tradingRecipe.getItem2()));
+		ItemStack newOfferedItem1 = ItemUtils.descreaseItemAmount(tradeData.offeredItem1, trades * ItemUtils.getItemStackAmount(tradingRecipe.getItem1()));
+		ItemStack newOfferedItem2 = ItemUtils.descreaseItemAmount(tradeData.offeredItem2, trades * ItemUtils.getItemStackAmount(tradingRecipe.getItem2()));
 		// Inform the merchant inventory about the change (updates the active trading recipe and result item):
 		merchantInventory.setItem(tradeData.swappedItemOrder ? BUY_ITEM_2_SLOT_ID : BUY_ITEM_1_SLOT_ID, newOfferedItem1);
 		merchantInventory.setItem(tradeData.swappedItemOrder ? BUY_ITEM_1_SLOT_ID : BUY_ITEM_2_SLOT_ID, newOfferedItem2);
+	}
 
+	private void applyTrade(TradeData tradeData) {
 		// TODO Increase uses of corresponding MerchanRecipe?
 		// TODO Add support for exp-rewards?
 		// TODO Support modifications to the MerchantRecipe's maxUses?
@@ -649,6 +829,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		this.onTradeApplied(tradeData);
 
 		// Log trade:
+		TradingRecipe tradingRecipe = tradeData.tradingRecipe;
 		Log.debug(() -> "Trade (#" + tradeCounter + ") by " + tradeData.tradingPlayer.getName() + " with shopkeeper at "
 				+ this.getShopkeeper().getPositionString() + ": " + ItemUtils.getSimpleRecipeInfo(tradingRecipe));
 	}
@@ -715,6 +896,20 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	protected void onTradeApplied(TradeData tradeData) {
 	}
 
+	/**
+	 * This gets called after all trades triggered by a single inventory click have been handled, regardless of
+	 * whether any trades got actually applied.
+	 * <p>
+	 * Successive trades triggered by the same inventory click (eg. by shift clicks) can defer changes that are common
+	 * to these trades, such as changes to a shop container, and then apply them here at once. This gets called before
+	 * the trades get updated for the trading player.
+	 * 
+	 * @param player
+	 *            the trading player
+	 */
+	protected void onTradesCompleted(Player player) {
+	}
+
 	// Returns a value >= 0 and <= amount.
 	protected int getAmountAfterTaxes(int amount) {
 		assert amount >= 0;
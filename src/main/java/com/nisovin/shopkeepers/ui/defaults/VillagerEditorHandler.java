@@ -127,6 +127,11 @@ public final class VillagerEditorHandler extends AbstractEditorHandler {
 				return DerivedSettings.deleteVillagerButtonItem.createItemStack();
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected boolean runAction(InventoryClickEvent clickEvent, Player player) {
 				if (!villager.isValid()) return false;
@@ -144,6 +149,11 @@ public final class VillagerEditorHandler extends AbstractEditorHandler {
 				return DerivedSettings.villagerInventoryButtonItem.createItemStack();
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected boolean runAction(InventoryClickEvent clickEvent, Player player) {
 				if (!villager.isValid()) return false;
@@ -177,6 +187,11 @@ public final class VillagerEditorHandler extends AbstractEditorHandler {
 				return iconItem;
 			}
 
+			@Override
+			protected Object getIconState(Session session) {
+				return CONSTANT_ICON_STATE;
+			}
+
 			@Override
 			protected boolean runAction(InventoryClickEvent clickEvent, Player player) {
 				if (!villager.isValid()) return false;
@@ -0,0 +1,52 @@
+package com.nisovin.shopkeepers.util;
+
+/**
+ * Packs block and chunk coordinates into single <code>long</code> keys, which can for example be used with a
+ * {@link LongObjectHashMap}.
+ */
+public class BlockKeys {
+
+	private BlockKeys() {
+	}
+
+	/**
+	 * Packs the given block coordinates into a single long (26 bits for x and z, 12 bits for y), similar to Minecraft.
+	 * 
+	 * @param x
+	 *            the block's x coordinate
+	 * @param y
+	 *            the block's y coordinate
+	 * @param z
+	 *            the block's z coordinate
+	 * @return the block key
+	 */
+	public static long getBlockKey(int x, int y, int z) {
+		return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+	}
+
+	/**
+	 * Packs the given chunk coordinates into a single long.
+	 * 
+	 * @param chunkX
+	 *            the chunk's x coordinate
+	 * @param chunkZ
+	 *            the chunk's z coordinate
+	 * @return the chunk key
+	 */
+	public static long getChunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the key of the chunk that contains the block at the given coordinates.
+	 * 
+	 * @param blockX
+	 *            the block's x coordinate
+	 * @param blockZ
+	 *            the block's z coordinate
+	 * @return the chunk key
+	 */
+	public static long getBlockChunkKey(int blockX, int blockZ) {
+		return getChunkKey(blockX >> 4, blockZ >> 4);
+	}
+}
@@ -0,0 +1,122 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the number of indexed blocks inside or adjacent to each chunk, by world name and chunk key.
+ * <p>
+ * Blocks at the border of a chunk are also counted for the neighboring chunk, since they are adjacent to blocks inside
+ * that chunk. This allows quickly ruling out blocks whose chunk neither contains nor is adjacent to any indexed blocks,
+ * before performing more expensive checks.
+ * <p>
+ * This is not thread-safe.
+ */
+public class ChunkIndex {
+
+	private static final class ChunkEntry {
+		private int blockCount = 0;
+	}
+
+	private final Map<String, LongObjectHashMap<ChunkEntry>> chunks = new HashMap<>();
+
+	public ChunkIndex() {
+	}
+
+	public void addBlock(String worldName, int blockX, int blockZ) {
+		this.updateChunks(worldName, blockX, blockZ, 1);
+	}
+
+	public void removeBlock(String worldName, int blockX, int blockZ) {
+		this.updateChunks(worldName, blockX, blockZ, -1);
+	}
+
+	public void clear() {
+		chunks.clear();
+	}
+
+	// Updates the block counts of the chunks containing the given block and its adjacent blocks:
+	private void updateChunks(String worldName, int blockX, int blockZ, int delta) {
+		LongObjectHashMap<ChunkEntry> worldChunks = chunks.get(worldName);
+		if (worldChunks == null) {
+			if (delta < 0) return;
+			worldChunks = new LongObjectHashMap<>();
+			chunks.put(worldName, worldChunks);
+		}
+		int chunkX = (blockX >> 4);
+		int chunkZ = (blockZ >> 4);
+		this.updateChunk(worldChunks, chunkX, chunkZ, delta);
+		// Adjacent blocks in neighboring chunks:
+		int adjacentChunkX = ((blockX & 15) == 0) ? chunkX - 1 : (((blockX & 15) == 15) ? chunkX + 1 : chunkX);
+		if (adjacentChunkX != chunkX) {
+			this.updateChunk(worldChunks, adjacentChunkX, chunkZ, delta);
+		}
+		int adjacentChunkZ = ((blockZ & 15) == 0) ? chunkZ - 1 : (((blockZ & 15) == 15) ? chunkZ + 1 : chunkZ);
+		if (adjacentChunkZ != chunkZ) {
+			this.updateChunk(worldChunks, chunkX, adjacentChunkZ, delta);
+		}
+		if (worldChunks.isEmpty()) {
+			chunks.remove(worldName);
+		}
+	}
+
+	private void updateChunk(LongObjectHashMap<ChunkEntry> worldChunks, int chunkX, int chunkZ, int delta) {
+		long chunkKey = BlockKeys.getChunkKey(chunkX, chunkZ);
+		ChunkEntry chunkEntry = worldChunks.get(chunkKey);
+		if (chunkEntry == null) {
+			if (delta < 0) return;
+			chunkEntry = new ChunkEntry();
+			worldChunks.put(chunkKey, chunkEntry);
+		}
+		chunkEntry.blockCount += delta;
+		if (chunkEntry.blockCount <= 0) {
+			worldChunks.remove(chunkKey);
+		}
+	}
+
+	/**
+	 * Checks if the chunk of the block at the specified coordinates contains, or is adjacent to, any indexed blocks.
+	 * 
+	 * @param worldName
+	 *            the world name
+	 * @param blockX
+	 *            the block's x coordinate
+	 * @param blockZ
+	 *            the block's z coordinate
+	 * @return <code>true</code> if the block's chunk contains or is adjacent to indexed blocks
+	 */
+	public boolean containsBlockChunk(String worldName, int blockX, int blockZ) {
+		LongObjectHashMap<ChunkEntry> worldChunks = chunks.get(worldName);
+		if (worldChunks == null) return false;
+		return worldChunks.containsKey(BlockKeys.getBlockChunkKey(blockX, blockZ));
+	}
+
+	/**
+	 * Checks if any of the chunks inside the specified chunk bounds (inclusive) contain, or are adjacent to, any
+	 * indexed blocks.
+	 * 
+	 * @param worldName
+	 *            the world name
+	 * @param minChunkX
+	 *            the minimum chunk x coordinate
+	 * @param minChunkZ
+	 *            the minimum chunk z coordinate
+	 * @param maxChunkX
+	 *            the maximum chunk x coordinate
+	 * @param maxChunkZ
+	 *            the maximum chunk z coordinate
+	 * @return <code>true</code> if any of the chunks contain or are adjacent to indexed blocks
+	 */
+	public boolean intersects(String worldName, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+		LongObjectHashMap<ChunkEntry> worldChunks = chunks.get(worldName);
+		if (worldChunks == null) return false;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; ++chunkX) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; ++chunkZ) {
+				if (worldChunks.containsKey(BlockKeys.getChunkKey(chunkX, chunkZ))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,61 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.bukkit.block.Block;
+
+/**
+ * Removes protected blocks from the block lists of explosions.
+ * <p>
+ * Explosions can affect thousands of blocks (eg. with TNT cannons), which are usually nowhere near any protected
+ * blocks. This first checks the chunk bounds of the affected blocks against a {@link ChunkIndex} of the protected
+ * blocks, and skips the per-block checks if there are no protected blocks in range. Otherwise the protected blocks are
+ * removed in a single pass over the block list.
+ */
+public class ExplosionFilter {
+
+	private ExplosionFilter() {
+	}
+
+	/**
+	 * Removes the protected blocks from the given block list.
+	 * <p>
+	 * The given predicate is only invoked for blocks whose chunk contains or is adjacent to blocks of the given chunk
+	 * index.
+	 * 
+	 * @param blockList
+	 *            the modifiable block list of the explosion, all blocks are expected to be located in the same world
+	 * @param chunkIndex
+	 *            the chunk index of the protected blocks
+	 * @param isProtected
+	 *            checks if a block is protected
+	 */
+	public static void removeProtectedBlocks(List<Block> blockList, ChunkIndex chunkIndex, Predicate<Block> isProtected) {
+		if (blockList.isEmpty()) return;
+		String worldName = blockList.get(0).getWorld().getName();
+
+		// Determine the chunk bounds of the affected blocks:
+		int minBlockX = Integer.MAX_VALUE;
+		int minBlockZ = Integer.MAX_VALUE;
+		int maxBlockX = Integer.MIN_VALUE;
+		int maxBlockZ = Integer.MIN_VALUE;
+		for (Block block : blockList) {
+			int blockX = block.getX();
+			int blockZ = block.getZ();
+			if (blockX < minBlockX) minBlockX = blockX;
+			if (blockX > maxBlockX) maxBlockX = blockX;
+			if (blockZ < minBlockZ) minBlockZ = blockZ;
+			if (blockZ > maxBlockZ) maxBlockZ = blockZ;
+		}
+		if (!chunkIndex.intersects(worldName, minBlockX >> 4, minBlockZ >> 4, maxBlockX >> 4, maxBlockZ >> 4)) {
+			// There are no protected blocks in range:
+			return;
+		}
+
+		// Note: Unlike removing the blocks one by one via an iterator, this only shifts the remaining elements once.
+		blockList.removeIf(block -> {
+			return chunkIndex.containsBlockChunk(worldName, block.getX(), block.getZ()) && isProtected.test(block);
+		});
+	}
+}
@@ -0,0 +1,87 @@
+package com.nisovin.shopkeepers.util;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Collects changes to the contents of an {@link Inventory} and then applies only the changed slots to the inventory.
+ * <p>
+ * The changes are made to a working copy of the inventory contents. Slots are considered changed if the working copy
+ * references a different item stack than the inventory contents at the time the transaction was created (or last
+ * committed). Any changes to the working copy are therefore expected to replace the affected item stacks with
+ * modified copies (like {@link ItemUtils#addItems(ItemStack[], ItemStack)} and
+ * {@link ItemUtils#removeItems(ItemStack[], ItemStack)} do), instead of modifying them in place. Modifying the item
+ * stacks in place is not supported: Since the item stacks are retrieved via {@link Inventory#getContents()}, they might
+ * be directly backed by the inventory.
+ * <p>
+ * Unlike {@link Inventory#setContents(ItemStack[])}, this only updates the slots that actually changed, and does not
+ * require comparing the contents of the unchanged slots.
+ */
+public class InventoryTransaction {
+
+	private final Inventory inventory;
+	// The item stacks currently in the inventory:
+	private final ItemStack[] committedContents;
+	// The working copy:
+	private final ItemStack[] contents;
+
+	/**
+	 * Creates a new {@link InventoryTransaction}.
+	 *
+	 * @param inventory
+	 *            the inventory, not <code>null</code>
+	 */
+	public InventoryTransaction(Inventory inventory) {
+		Validate.notNull(inventory, "inventory is null");
+		this.inventory = inventory;
+		this.committedContents = inventory.getContents();
+		this.contents = committedContents.clone();
+	}
+
+	public Inventory getInventory() {
+		return inventory;
+	}
+
+	/**
+	 * Gets the working copy of the inventory contents.
+	 * <p>
+	 * Changes to the returned array are applied to the inventory once this transaction gets {@link #commit()
+	 * committed}.
+	 *
+	 * @return the working copy of the inventory contents
+	 */
+	public ItemStack[] getContents() {
+		return contents;
+	}
+
+	/**
+	 * Replaces the working copy of the inventory contents with the given contents.
+	 *
+	 * @param newContents
+	 *            the new contents, of the same length as the inventory contents
+	 */
+	public void setContents(ItemStack[] newContents) {
+		Validate.notNull(newContents, "newContents is null");
+		Validate.isTrue(newContents.length == contents.length, "newContents is of different length than the inventory contents");
+		System.arraycopy(newContents, 0, contents, 0, contents.length);
+	}
+
+	/**
+	 * Applies the changed slots to the inventory.
+	 * <p>
+	 * The transaction can continue to be used afterwards.
+	 *
+	 * @return the number of changed slots
+	 */
+	public int commit() {
+		int changedSlots = 0;
+		for (int slot = 0; slot < contents.length; ++slot) {
+			ItemStack item = contents[slot];
+			if (item == committedContents[slot]) continue; // Unchanged
+			inventory.setItem(slot, item);
+			committedContents[slot] = item;
+			changedSlots++;
+		}
+		return changedSlots;
+	}
+}
@@ -46,6 +46,8 @@ public class ItemData implements Cloneable {
 	private static final String META_TYPE_KEY = "meta-type";
 	private static final String DISPLAY_NAME_KEY = "display-name";
 	private static final String LORE_KEY = "lore";
+	private static final String ENCHANTS_KEY = "enchants";
+	private static final String CUSTOM_MODEL_DATA_KEY = "custom-model-data";
 
 	// Special case: Omitting 'blockMaterial' for empty TILE_ENTITY item meta.
 	private static final String TILE_ENTITY_BLOCK_MATERIAL_KEY = "blockMaterial";
@@ -147,6 +149,15 @@ public class ItemData implements Cloneable {
 	private final ItemStack dataItem;
 	// Cache serialized item meta data, to avoid doing it again for every comparison:
 	private Map<String, Object> serializedData = null; // Gets lazily initialized (only when actually needed)
+	// Derived from the serialized data, used to quickly reject items without having to serialize their item meta:
+	private Class<?> dataMetaClass = null; // Null if there is no data
+	private boolean requiresDisplayName = false;
+	private boolean requiresLore = false;
+	private boolean requiresEnchants = false;
+	private boolean requiresCustomModelData = false;
+	// Whether items without item meta match the data. Lazily determined for each mode of list matching:
+	private Boolean matchesItemsWithoutMeta = null;
+	private Boolean matchesItemsWithoutMetaPartialLists = null;
 
 	public ItemData(Material type) {
 		this(new ItemStack(type));
@@ -183,6 +194,12 @@ public class ItemData implements Cloneable {
 			if (serializedData == null) {
 				// Ensure that the field is not null after initialization:
 				serializedData = Collections.emptyMap();
+			} else {
+				dataMetaClass = itemMeta.getClass();
+				requiresDisplayName = serializedData.containsKey(DISPLAY_NAME_KEY);
+				requiresLore = serializedData.containsKey(LORE_KEY);
+				requiresEnchants = serializedData.containsKey(ENCHANTS_KEY);
+				requiresCustomModelData = serializedData.containsKey(CUSTOM_MODEL_DATA_KEY);
 			}
 		}
 		assert serializedData != null;
@@ -219,7 +236,39 @@ public class ItemData implements Cloneable {
 
 	public boolean matches(ItemStack item, boolean matchPartialLists) {
 		// Same type and matching data:
-		return ItemUtils.matchesData(item, this.getType(), this.getSerializedData(), matchPartialLists);
+		if (item == null) return false;
+		if (item.getType() != this.getType()) return false;
+		Map<String, Object> data = this.getSerializedData();
+		if (data.isEmpty()) return true;
+
+		// All items of the same type without item meta serialize to the same data:
+		if (!item.hasItemMeta()) {
+			return this.matchesItemsWithoutMeta(matchPartialLists);
+		}
+
+		// Quickly reject items whose item meta is of a different type, or lacks data that we require, before we
+		// serialize their item meta:
+		ItemMeta itemMeta = item.getItemMeta();
+		if (itemMeta.getClass() != dataMetaClass) return false;
+		if (requiresDisplayName && !itemMeta.hasDisplayName()) return false;
+		if (requiresLore && !itemMeta.hasLore()) return false;
+		if (requiresEnchants && !itemMeta.hasEnchants()) return false;
+		if (requiresCustomModelData && !itemMeta.hasCustomModelData()) return false;
+		return ItemUtils.matchesData(itemMeta.serialize(), data, matchPartialLists);
+	}
+
+	private boolean matchesItemsWithoutMeta(boolean matchPartialLists) {
+		Boolean result = (matchPartialLists ? matchesItemsWithoutMetaPartialLists : matchesItemsWithoutMeta);
+		if (result == null) {
+			ItemMeta emptyItemMeta = new ItemStack(this.getType()).getItemMeta(); // Can be null (eg. for air)
+			result = ItemUtils.matchesData(emptyItemMeta, this.getSerializedData(), matchPartialLists);
+			if (matchPartialLists) {
+				matchesItemsWithoutMetaPartialLists = result;
+			} else {
+				matchesItemsWithoutMeta = result;
+			}
+		}
+		return result;
 	}
 
 	public boolean matches(ItemData itemData) {
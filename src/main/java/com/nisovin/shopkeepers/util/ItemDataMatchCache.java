@@ -0,0 +1,39 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Caches the results of matching item stacks against some {@link ItemData} during a single scan of some inventory
+ * contents, which might check the same item stacks multiple times.
+ * <p>
+ * The results are cached per item stack instance. Since any modifications of the item stacks are not detected, the
+ * cache is only meant to be used for the duration of a single scan and should be discarded afterwards.
+ */
+public class ItemDataMatchCache {
+
+	private final ItemData itemData; // Can be null
+	private final Map<ItemStack, Boolean> results = new IdentityHashMap<>();
+
+	/**
+	 * Creates a new {@link ItemDataMatchCache}.
+	 * 
+	 * @param itemData
+	 *            the item data, or <code>null</code> to not match any items
+	 */
+	public ItemDataMatchCache(ItemData itemData) {
+		this.itemData = itemData;
+	}
+
+	public boolean matches(ItemStack item) {
+		if (itemData == null || item == null) return false;
+		Boolean result = results.get(item);
+		if (result == null) {
+			result = itemData.matches(item);
+			results.put(item, result);
+		}
+		return result;
+	}
+}
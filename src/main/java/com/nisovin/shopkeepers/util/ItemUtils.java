@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Color;
@@ -535,14 +536,21 @@ public final class ItemUtils {
 	}
 
 	public static int convertItems(ItemStack[] contents, Predicate<ItemStack> filter) {
+		return convertItems(contents, filter, ItemUtils::convertItem);
+	}
+
+	// The converter is expected to return an item that is similar to the given item if the item does not require any
+	// conversion.
+	public static int convertItems(ItemStack[] contents, Predicate<ItemStack> filter, UnaryOperator<ItemStack> converter) {
 		Validate.notNull(contents, "contents is null");
+		Validate.notNull(converter, "converter is null");
 		if (filter == null) filter = (item) -> true;
 		int convertedStacks = 0;
 		for (int slot = 0; slot < contents.length; slot++) {
 			ItemStack slotItem = contents[slot];
 			if (isEmpty(slotItem)) continue;
 			if (!filter.test(slotItem)) continue;
-			ItemStack convertedItem = convertItem(slotItem);
+			ItemStack convertedItem = converter.apply(slotItem);
 			if (!slotItem.isSimilar(convertedItem)) {
 				contents[slot] = convertedItem;
 				convertedStacks += 1;
@@ -552,15 +560,20 @@ public final class ItemUtils {
 	}
 
 	public static int convertItems(Inventory inventory, Predicate<ItemStack> filter, boolean updateViewers) {
+		return convertItems(inventory, filter, ItemUtils::convertItem, updateViewers);
+	}
+
+	public static int convertItems(Inventory inventory, Predicate<ItemStack> filter, UnaryOperator<ItemStack> converter, boolean updateViewers) {
 		Validate.notNull(inventory, "inventory is null");
+		Validate.notNull(converter, "converter is null");
 		if (filter == null) filter = (item) -> true;
 
 		// Convert inventory contents (includes armor and off hand slots for player inventories):
-		ItemStack[] contents = inventory.getContents();
-		int convertedStacks = convertItems(contents, filter);
+		InventoryTransaction transaction = new InventoryTransaction(inventory);
+		int convertedStacks = convertItems(transaction.getContents(), filter, converter);
 		if (convertedStacks > 0) {
-			// Apply changes back to the inventory:
-			setContents(inventory, contents);
+			// Apply changes back to the inventory (only updates the converted slots):
+			transaction.commit();
 		}
 
 		if (inventory instanceof PlayerInventory) {
@@ -568,7 +581,7 @@ public final class ItemUtils {
 			Player player = (Player) ((PlayerInventory) inventory).getHolder();
 			ItemStack cursor = player.getItemOnCursor();
 			if (!ItemUtils.isEmpty(cursor) && filter.test(cursor)) {
-				ItemStack convertedCursor = ItemUtils.convertItem(cursor);
+				ItemStack convertedCursor = converter.apply(cursor);
 				if (!cursor.isSimilar(convertedCursor)) {
 					convertedStacks += 1;
 				}
@@ -799,6 +812,36 @@ public final class ItemUtils {
 		return amount;
 	}
 
+	/**
+	 * Gets the amount of items similar to the given {@link ItemStack} that can be added to the given contents.
+	 * <p>
+	 * This takes the same slots into account as {@link #addItems(ItemStack[], ItemStack)}: Similar partial item stacks
+	 * can be filled up to the item's max stack size, and empty slots can hold a full stack each.
+	 * 
+	 * @param contents
+	 *            the contents
+	 * @param item
+	 *            the item
+	 * @return the amount of items that can be added
+	 */
+	public static int getFreeCapacity(ItemStack[] contents, ItemStack item) {
+		Validate.notNull(contents);
+		Validate.notNull(item);
+		int maxStackSize = item.getMaxStackSize();
+		int capacity = 0;
+		for (ItemStack slotItem : contents) {
+			if (isEmpty(slotItem)) {
+				capacity += maxStackSize;
+			} else {
+				int slotAmount = slotItem.getAmount();
+				if (slotAmount < maxStackSize && slotItem.isSimilar(item)) {
+					capacity += (maxStackSize - slotAmount);
+				}
+			}
+		}
+		return capacity;
+	}
+
 	/**
 	 * Removes the given {@link ItemStack} from the given contents.
 	 * 
@@ -0,0 +1,163 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map with primitive <code>long</code> keys, which avoids boxing the keys.
+ * <p>
+ * This uses open addressing with linear probing. <code>null</code> values are not supported: Empty slots are
+ * represented by <code>null</code> values.
+ * <p>
+ * This is not thread-safe.
+ *
+ * @param <V>
+ *            the type of values
+ */
+public class LongObjectHashMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16; // Has to be a power of two
+	private static final float LOAD_FACTOR = 0.5F;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size = 0;
+	private int resizeThreshold;
+
+	public LongObjectHashMap() {
+		this.allocate(DEFAULT_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		assert Integer.bitCount(capacity) == 1;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private int getIndex(long key) {
+		// Spread the bits of the key (finalizer of MurmurHash3):
+		long hash = key;
+		hash ^= (hash >>> 33);
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= (hash >>> 33);
+		return (int) hash & mask;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	public boolean containsKey(long key) {
+		return (this.get(key) != null);
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int index = this.getIndex(key);
+		Object value;
+		while ((value = values[index]) != null) {
+			if (keys[index] == key) return (V) value;
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Maps the given value to the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return the previous value, or <code>null</code> if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		Validate.notNull(value, "value is null");
+		int index = this.getIndex(key);
+		Object currentValue;
+		while ((currentValue = values[index]) != null) {
+			if (keys[index] == key) {
+				values[index] = value;
+				return (V) currentValue;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++size > resizeThreshold) {
+			this.resize(values.length * 2);
+		}
+		return null;
+	}
+
+	private void resize(int newCapacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		this.allocate(newCapacity);
+		for (int oldIndex = 0; oldIndex < oldValues.length; ++oldIndex) {
+			Object value = oldValues[oldIndex];
+			if (value == null) continue;
+			long key = oldKeys[oldIndex];
+			int index = this.getIndex(key);
+			while (values[index] != null) {
+				index = (index + 1) & mask;
+			}
+			keys[index] = key;
+			values[index] = value;
+		}
+	}
+
+	/**
+	 * Removes the mapping for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the removed value, or <code>null</code> if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int index = this.getIndex(key);
+		Object value;
+		while ((value = values[index]) != null) {
+			if (keys[index] == key) {
+				this.removeAt(index);
+				return (V) value;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	// Shifts back any following entries of the same probe sequence, so that lookups don't stop early at the freed slot:
+	private void removeAt(int index) {
+		size--;
+		int freeIndex = index;
+		int nextIndex = (freeIndex + 1) & mask;
+		Object nextValue;
+		while ((nextValue = values[nextIndex]) != null) {
+			long nextKey = keys[nextIndex];
+			int desiredIndex = this.getIndex(nextKey);
+			// Move the entry if its desired slot is not located cyclically in (freeIndex, nextIndex]:
+			if (((nextIndex - desiredIndex) & mask) >= ((nextIndex - freeIndex) & mask)) {
+				keys[freeIndex] = nextKey;
+				values[freeIndex] = nextValue;
+				freeIndex = nextIndex;
+			}
+			nextIndex = (nextIndex + 1) & mask;
+		}
+		values[freeIndex] = null;
+	}
+
+	public void clear() {
+		if (size == 0) return;
+		Arrays.fill(values, null);
+		size = 0;
+	}
+}
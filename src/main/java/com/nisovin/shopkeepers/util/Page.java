@@ -0,0 +1,98 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of entries of a list.
+ * <p>
+ * The page is a view on a range of the underlying list. If the underlying list supports random access (eg. the
+ * ordered views provided by the shopkeeper registry), creating a page does not depend on the total number of entries.
+ * Pages are meant to be used right away, before the underlying list gets modified.
+ *
+ * @param <T>
+ *            the type of the entries
+ */
+public final class Page<T> {
+
+	/**
+	 * Gets the specified page of the given entries.
+	 * <p>
+	 * The page number is trimmed to the range of available pages. There is always at least one (possibly empty) page.
+	 *
+	 * @param <T>
+	 *            the type of the entries
+	 * @param entries
+	 *            the entries
+	 * @param page
+	 *            the page number, starting at <code>1</code>
+	 * @param entriesPerPage
+	 *            the number of entries per page
+	 * @return the page
+	 */
+	public static <T> Page<T> of(List<? extends T> entries, int page, int entriesPerPage) {
+		Validate.notNull(entries, "entries is null");
+		Validate.isTrue(entriesPerPage > 0, "entriesPerPage has to be positive");
+		int totalCount = entries.size();
+		int maxPage = Math.max(1, (totalCount + entriesPerPage - 1) / entriesPerPage);
+		int trimmedPage = MathUtils.trim(page, 1, maxPage);
+		int startIndex = (trimmedPage - 1) * entriesPerPage;
+		int endIndex = Math.min(startIndex + entriesPerPage, totalCount);
+		List<? extends T> pageEntries = entries.subList(startIndex, endIndex);
+		return new Page<>(trimmedPage, maxPage, totalCount, startIndex, Collections.unmodifiableList(pageEntries));
+	}
+
+	private final int page;
+	private final int maxPage;
+	private final int totalCount;
+	private final int startIndex;
+	private final List<T> entries;
+
+	private Page(int page, int maxPage, int totalCount, int startIndex, List<T> entries) {
+		this.page = page;
+		this.maxPage = maxPage;
+		this.totalCount = totalCount;
+		this.startIndex = startIndex;
+		this.entries = entries;
+	}
+
+	/**
+	 * Gets the page number.
+	 *
+	 * @return the page number, starting at <code>1</code>
+	 */
+	public int getPage() {
+		return page;
+	}
+
+	public int getMaxPage() {
+		return maxPage;
+	}
+
+	/**
+	 * Gets the total number of entries across all pages.
+	 *
+	 * @return the total number of entries
+	 */
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Gets the index of the first entry of this page within the underlying list.
+	 *
+	 * @return the start index
+	 */
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	/**
+	 * Gets the entries of this page.
+	 *
+	 * @return an unmodifiable view on the entries of this page
+	 */
+	public List<T> getEntries() {
+		return entries;
+	}
+}
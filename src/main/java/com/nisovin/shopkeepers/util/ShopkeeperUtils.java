@@ -23,6 +23,7 @@ import com.nisovin.shopkeepers.Messages;
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersAPI;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
 import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.container.ShopContainers;
@@ -248,38 +249,40 @@ public class ShopkeeperUtils {
 		Map<UUID, String> matchingShopOwners = new LinkedHashMap<>();
 
 		// Search for shops owned by the specified player:
-		List<PlayerShopkeeper> shops = new ArrayList<>();
-		for (Shopkeeper shopkeeper : ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers()) {
-			if (shopkeeper instanceof PlayerShopkeeper) {
-				PlayerShopkeeper playerShop = (PlayerShopkeeper) shopkeeper;
+		ShopkeeperRegistry shopkeeperRegistry = ShopkeepersAPI.getShopkeeperRegistry();
+		List<PlayerShopkeeper> shops;
+		if (targetPlayerUUID != null) {
+			// Lookup the shops via the owner index:
+			shops = new ArrayList<>(shopkeeperRegistry.getPlayerShopkeepersByOwner(targetPlayerUUID));
+			if (!shops.isEmpty()) {
+				// The input target player name may be missing or differ in case.
+				// Keep track of the owner's actual name:
+				targetPlayerName = shops.get(shops.size() - 1).getOwnerName();
+			}
+		} else {
+			assert targetPlayerName != null;
+			shops = new ArrayList<>();
+			for (PlayerShopkeeper playerShop : shopkeeperRegistry.getAllPlayerShopkeepers()) {
 				UUID shopOwnerUUID = playerShop.getOwnerUUID(); // Not null
 				String shopOwnerName = playerShop.getOwnerName(); // Not null
-				if (targetPlayerUUID != null) {
-					// We search for shops with matching owner uuid:
-					if (targetPlayerUUID.equals(shopOwnerUUID)) {
-						shops.add(playerShop);
-
-						// The input target player name may be missing or differ in case.
-						// Keep track of the owner's actual name:
-						targetPlayerName = shopOwnerName;
-					}
-				} else {
-					assert targetPlayerName != null;
-					// Check for matching name:
-					if (shopOwnerName.equalsIgnoreCase(targetPlayerName)) {
-						// Note: If there exist multiple players which match the given name, the result will include the
-						// shops of all of them.
-						shops.add(playerShop);
-
-						// The input target player name may differ in case.
-						// Keep track of the owner's actual name:
-						targetPlayerName = shopOwnerName;
-
-						// Keep track of players with matching name:
-						matchingShopOwners.putIfAbsent(shopOwnerUUID, shopOwnerName);
-					}
+				// Check for matching name:
+				if (shopOwnerName.equalsIgnoreCase(targetPlayerName)) {
+					// Note: If there exist multiple players which match the given name, the result will include the
+					// shops of all of them.
+					shops.add(playerShop);
+
+					// The input target player name may differ in case.
+					// Keep track of the owner's actual name:
+					targetPlayerName = shopOwnerName;
+
+					// Keep track of players with matching name:
+					matchingShopOwners.putIfAbsent(shopOwnerUUID, shopOwnerName);
 				}
 			}
+			if (matchingShopOwners.size() == 1) {
+				// The name is not ambiguous. Keep track of the owner's uuid:
+				targetPlayerUUID = matchingShopOwners.keySet().iterator().next();
+			}
 		}
 		return new OwnedPlayerShopsResult(targetPlayerUUID, targetPlayerName, matchingShopOwners, shops);
 	}
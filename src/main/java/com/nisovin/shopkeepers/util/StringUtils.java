@@ -199,8 +199,9 @@ public class StringUtils {
 		return result.toString();
 	}
 
-	private static final ArgumentsReplacer ARGUMENTS_REPLACER = new ArgumentsReplacer(); // Singleton for reuse
-	private static final Map<String, Object> TEMP_ARGUMENTS_MAP = new HashMap<>();
+	// Reused per thread, so that arguments can also be replaced by other threads than the main thread:
+	private static final ThreadLocal<ArgumentsReplacer> ARGUMENTS_REPLACER = ThreadLocal.withInitial(ArgumentsReplacer::new);
+	private static final ThreadLocal<Map<String, Object>> TEMP_ARGUMENTS_MAP = ThreadLocal.withInitial(HashMap::new);
 
 	// Arguments format: [key1, value1, key2, value2, ...]
 	// The keys are expected to be of type String.
@@ -218,12 +219,13 @@ public class StringUtils {
 	}
 
 	public static String replaceArguments(String source, Object... argumentPairs) {
-		assert TEMP_ARGUMENTS_MAP.isEmpty();
+		Map<String, Object> tempArgumentsMap = TEMP_ARGUMENTS_MAP.get();
+		assert tempArgumentsMap.isEmpty();
 		try {
-			addArgumentsToMap(TEMP_ARGUMENTS_MAP, argumentPairs);
-			return replaceArguments(source, TEMP_ARGUMENTS_MAP);
+			addArgumentsToMap(tempArgumentsMap, argumentPairs);
+			return replaceArguments(source, tempArgumentsMap);
 		} finally {
-			TEMP_ARGUMENTS_MAP.clear(); // Reset
+			tempArgumentsMap.clear(); // Reset
 		}
 	}
 
@@ -231,16 +233,17 @@ public class StringUtils {
 	// Uses the String representation of the given arguments.
 	// If an argument is a Supplier, it gets invoked to obtain the actual argument.
 	public static String replaceArguments(String source, Map<String, Object> arguments) {
-		return ARGUMENTS_REPLACER.replaceArguments(source, arguments); // Checks arguments
+		return ARGUMENTS_REPLACER.get().replaceArguments(source, arguments); // Checks arguments
 	}
 
 	public static List<String> replaceArguments(Collection<String> messages, Object... argumentPairs) {
-		assert TEMP_ARGUMENTS_MAP.isEmpty();
+		Map<String, Object> tempArgumentsMap = TEMP_ARGUMENTS_MAP.get();
+		assert tempArgumentsMap.isEmpty();
 		try {
-			addArgumentsToMap(TEMP_ARGUMENTS_MAP, argumentPairs);
-			return replaceArguments(messages, TEMP_ARGUMENTS_MAP);
+			addArgumentsToMap(tempArgumentsMap, argumentPairs);
+			return replaceArguments(messages, tempArgumentsMap);
 		} finally {
-			TEMP_ARGUMENTS_MAP.clear(); // Reset
+			tempArgumentsMap.clear(); // Reset
 		}
 	}
 
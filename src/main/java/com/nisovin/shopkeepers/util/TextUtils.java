@@ -18,6 +18,7 @@ import org.bukkit.entity.Player;
 
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.spigot.text.SpigotText;
+import com.nisovin.shopkeepers.text.MessageTemplate;
 import com.nisovin.shopkeepers.text.Text;
 
 /**
@@ -242,6 +243,12 @@ public class TextUtils {
 	public static void sendMessage(CommandSender recipient, Text message, Map<String, Object> arguments) {
 		Validate.notNull(recipient, "Recipient is null!");
 		Validate.notNull(message, "Message is null!");
+		// Prefer the registered template of the message, if there is one:
+		MessageTemplate template = MessageTemplate.getRegisteredTemplate(message);
+		if (template != null) {
+			sendMessage(recipient, template, arguments);
+			return;
+		}
 		// Assign arguments and then send:
 		message.setPlaceholderArguments(arguments);
 		sendMessage(recipient, message);
@@ -250,8 +257,27 @@ public class TextUtils {
 	public static void sendMessage(CommandSender recipient, Text message, Object... argumentPairs) {
 		Validate.notNull(recipient, "Recipient is null!");
 		Validate.notNull(message, "Message is null!");
+		// Prefer the registered template of the message, if there is one:
+		MessageTemplate template = MessageTemplate.getRegisteredTemplate(message);
+		if (template != null) {
+			sendMessage(recipient, template, argumentPairs);
+			return;
+		}
 		// Assign arguments and then send:
 		message.setPlaceholderArguments(argumentPairs);
 		sendMessage(recipient, message);
 	}
+
+	// Unlike sending Texts with arguments, sending message templates does not modify any shared state. This can
+	// therefore also be used from other threads than the main thread, if the recipient supports that.
+
+	public static void sendMessage(CommandSender recipient, MessageTemplate template, Map<String, Object> arguments) {
+		Validate.notNull(template, "Template is null!");
+		SpigotText.sendMessage(recipient, template, template.resolveArguments(arguments));
+	}
+
+	public static void sendMessage(CommandSender recipient, MessageTemplate template, Object... argumentPairs) {
+		Validate.notNull(template, "Template is null!");
+		SpigotText.sendMessage(recipient, template, template.resolveArguments(argumentPairs));
+	}
 }
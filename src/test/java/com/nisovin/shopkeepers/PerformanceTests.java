@@ -5,17 +5,23 @@ import java.lang.management.ThreadMXBean;
 import java.util.List;
 
 import org.bukkit.Material;
+import org.bukkit.craftbukkit.v1_14_R1.inventory.CraftInventory;
 import org.bukkit.craftbukkit.v1_14_R1.inventory.CraftItemStack;
 import org.bukkit.inventory.ItemStack;
 import org.junit.Test;
 
 import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.text.MessageTemplate;
+import com.nisovin.shopkeepers.text.Text;
 import com.nisovin.shopkeepers.util.ItemData;
 import com.nisovin.shopkeepers.util.ItemDataTest;
 import com.nisovin.shopkeepers.util.ItemUtils;
 
 import net.minecraft.server.v1_14_R1.GameProfileSerializer;
+import net.minecraft.server.v1_14_R1.IInventory;
 import net.minecraft.server.v1_14_R1.NBTTagCompound;
+import net.minecraft.server.v1_14_R1.TileEntity;
+import net.minecraft.server.v1_14_R1.TileEntityChest;
 
 public class PerformanceTests extends AbstractBukkitTest {
 
@@ -137,4 +143,54 @@ public class PerformanceTests extends AbstractBukkitTest {
 			GameProfileSerializer.a(CraftItemStack.asNMSCopy(craftItemStack).getTag(), CraftItemStack.asNMSCopy(craftItemStack).getTag(), false);
 		});
 	}
+
+	@Test
+	public void testContainerInventoryPerformance() {
+		System.out.println("Testing container inventory access performance:");
+		int warmupCount = 1000;
+		int testCount = 100000;
+		TileEntityChest chest = new TileEntityChest();
+		net.minecraft.server.v1_14_R1.ItemStack nmsItem = CraftItemStack.asNMSCopy(ItemDataTest.createItemStackFull());
+		for (int slot = 0; slot < chest.getSize(); ++slot) {
+			chest.setItem(slot, nmsItem.cloneItemStack());
+		}
+
+		// Mimics the tile entity snapshot that gets created for the BlockState of the container:
+		testPerformance("  ", "inventory via BlockState snapshot", warmupCount, testCount, () -> {
+			TileEntity snapshot = TileEntity.create(chest.save(new NBTTagCompound()));
+			new CraftInventory((IInventory) snapshot);
+		});
+
+		testPerformance("  ", "inventory via tile entity", warmupCount, testCount, () -> {
+			new CraftInventory(chest);
+		});
+	}
+
+	@Test
+	public void testMessageTemplatePerformance() {
+		System.out.println("Testing message template performance:");
+		int warmupCount = 10000;
+		int testCount = 1000000;
+		Text message = Text.parse("  &e{shopId}) &7{shopName}&r&8at &7({location})&8, type: &7{shopType}&8, object: &7{objectType}");
+		MessageTemplate template = MessageTemplate.compile(message);
+		Object[] arguments = {
+				"shopId", 42,
+				"shopName", "Some shop ",
+				"location", "world,100,64,-200",
+				"shopType", "admin",
+				"objectType", "villager"
+		};
+
+		testPerformance("  ", "Text#setPlaceholderArguments + toPlainText", warmupCount, testCount, () -> {
+			message.setPlaceholderArguments(arguments).toPlainText();
+		});
+
+		testPerformance("  ", "MessageTemplate#toPlainText", warmupCount, testCount, () -> {
+			template.toPlainText(template.resolveArguments(arguments));
+		});
+
+		testPerformance("  ", "MessageTemplate#bind + toPlainText", warmupCount, testCount, () -> {
+			template.bind(template.resolveArguments(arguments)).toPlainText();
+		});
+	}
 }
@@ -0,0 +1,107 @@
+package com.nisovin.shopkeepers.ui.defaults;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Merchant;
+import org.bukkit.inventory.MerchantRecipe;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.compat.api.ItemMatcher;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class ItemMatchersCacheTests extends AbstractBukkitTest {
+
+	private static class TestMerchant implements Merchant {
+
+		private final List<MerchantRecipe> recipes = new ArrayList<>();
+
+		@Override
+		public List<MerchantRecipe> getRecipes() {
+			return new ArrayList<>(recipes);
+		}
+
+		@Override
+		public void setRecipes(List<MerchantRecipe> recipes) {
+			this.recipes.clear();
+			this.recipes.addAll(recipes);
+		}
+
+		@Override
+		public MerchantRecipe getRecipe(int i) {
+			return recipes.get(i);
+		}
+
+		@Override
+		public void setRecipe(int i, MerchantRecipe recipe) {
+			recipes.set(i, recipe);
+		}
+
+		@Override
+		public int getRecipeCount() {
+			return recipes.size();
+		}
+
+		@Override
+		public boolean isTrading() {
+			return false;
+		}
+
+		@Override
+		public HumanEntity getTrader() {
+			return null;
+		}
+	}
+
+	private static MerchantRecipe createRecipe(Material resultType) {
+		MerchantRecipe recipe = new MerchantRecipe(new ItemStack(resultType), Integer.MAX_VALUE);
+		recipe.addIngredient(new ItemStack(Material.EMERALD));
+		return recipe;
+	}
+
+	private static ItemMatcher[] createItemMatchers() {
+		return new ItemMatcher[] { (provided) -> true, (provided) -> true };
+	}
+
+	@Test
+	public void testAutoSelectedRecipe() {
+		MerchantRecipe recipe1 = createRecipe(Material.STONE);
+		MerchantRecipe recipe2 = createRecipe(Material.DIRT);
+		TestMerchant merchant = new TestMerchant();
+		merchant.setRecipes(Arrays.asList(recipe1, recipe2));
+		// Only the number and identity of the displayed trading recipes are relevant here:
+		List<TradingRecipe> recipes = Arrays.asList(null, null);
+		ItemMatchersCache cache = new ItemMatchersCache();
+
+		// The first recipe is selected, but Minecraft uses the second recipe:
+		ItemMatcher[] recipe2Matchers = cache.get(recipes, merchant, 0, recipe2, ItemMatchersCacheTests::createItemMatchers);
+		// The matchers of the second recipe are not used for the first recipe:
+		ItemMatcher[] recipe1Matchers = cache.get(recipes, merchant, 0, recipe1, ItemMatchersCacheTests::createItemMatchers);
+		Assert.assertNotSame(recipe2Matchers, recipe1Matchers);
+
+		// The matchers are cached for the used recipes, regardless of the selected recipe:
+		Assert.assertSame(recipe2Matchers, cache.get(recipes, merchant, 1, recipe2, ItemMatchersCacheTests::createItemMatchers));
+		Assert.assertSame(recipe2Matchers, cache.get(recipes, merchant, 0, recipe2, ItemMatchersCacheTests::createItemMatchers));
+		Assert.assertSame(recipe1Matchers, cache.get(recipes, merchant, 0, recipe1, ItemMatchersCacheTests::createItemMatchers));
+	}
+
+	@Test
+	public void testUnknownRecipe() {
+		MerchantRecipe recipe1 = createRecipe(Material.STONE);
+		MerchantRecipe unknownRecipe = createRecipe(Material.STONE);
+		TestMerchant merchant = new TestMerchant();
+		merchant.setRecipes(Arrays.asList(recipe1));
+		List<TradingRecipe> recipes = Arrays.asList((TradingRecipe) null);
+		ItemMatchersCache cache = new ItemMatchersCache();
+
+		// Recipes that cannot be found among the merchant's recipes are not cached:
+		ItemMatcher[] matchers = cache.get(recipes, merchant, 0, unknownRecipe, ItemMatchersCacheTests::createItemMatchers);
+		Assert.assertNotSame(matchers, cache.get(recipes, merchant, 0, unknownRecipe, ItemMatchersCacheTests::createItemMatchers));
+	}
+}
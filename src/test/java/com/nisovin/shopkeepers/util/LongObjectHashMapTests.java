@@ -0,0 +1,53 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongObjectHashMapTests {
+
+	@Test
+	public void testBasicOperations() {
+		LongObjectHashMap<String> map = new LongObjectHashMap<>();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(0L, "zero"));
+		Assert.assertNull(map.put(-1L, "minus one"));
+		Assert.assertEquals("zero", map.put(0L, "zero2"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("zero2", map.get(0L));
+		Assert.assertEquals("minus one", map.get(-1L));
+		Assert.assertNull(map.get(1L));
+		Assert.assertEquals("zero2", map.remove(0L));
+		Assert.assertNull(map.remove(0L));
+		Assert.assertFalse(map.containsKey(0L));
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(-1L));
+	}
+
+	@Test
+	public void testMatchesHashMap() {
+		// Randomized operations on a small key range, to cover collisions, resizing, and removals:
+		Random random = new Random(1L);
+		LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+		Map<Long, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; ++i) {
+			long key = random.nextInt(1000) - 500;
+			switch (random.nextInt(3)) {
+			case 0:
+				Assert.assertEquals(expected.put(key, i), map.put(key, i));
+				break;
+			case 1:
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+				break;
+			default:
+				Assert.assertEquals(expected.get(key), map.get(key));
+				break;
+			}
+			Assert.assertEquals(expected.size(), map.size());
+		}
+	}
+}
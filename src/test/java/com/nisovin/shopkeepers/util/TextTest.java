@@ -8,12 +8,14 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.Set;
+import java.util.UUID;
 
 import org.bukkit.configuration.Configuration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.junit.Test;
 
 import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.text.MessageTemplate;
 import com.nisovin.shopkeepers.text.Text;
 
 public class TextTest extends AbstractBukkitTest {
@@ -43,4 +45,34 @@ public class TextTest extends AbstractBukkitTest {
 		System.out.println("Tested config messages: " + tested + " / " + configKeys.size() + " (total config entries)");
 		assertTrue("The test didn't actually test anything!", tested > 0);
 	}
+
+	// Tests that message templates produce the same plain text as assigning the arguments to the Text
+	@Test
+	public void testMessageTemplates() throws IOException {
+		Configuration config;
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		try (Reader reader = new BufferedReader(new InputStreamReader(classLoader.getResourceAsStream("lang/language-en-default.yml")))) {
+			config = YamlConfiguration.loadConfiguration(reader);
+		}
+
+		Text playerText = TextUtils.getPlayerText("Player", UUID.randomUUID());
+		Object[] arguments = { "shopsCount", 5, "page", 1, "player", playerText, "argument", "&cinput", "shopName", "" };
+		int tested = 0;
+		for (String key : config.getKeys(false)) {
+			Object value = config.get(key);
+			if (value.getClass() != String.class) continue;
+
+			tested++;
+			Text text = Text.parse(TextUtils.colorize((String) value));
+			MessageTemplate template = MessageTemplate.compile(text);
+			String expected = text.setPlaceholderArguments(arguments).toPlainText();
+			assertEquals("Template plain text does not match for: " + key, expected, template.toPlainText(template.resolveArguments(arguments)));
+			assertEquals("Bound template plain text does not match for: " + key, expected, template.bind(template.resolveArguments(arguments)).toPlainText());
+		}
+		assertTrue("The test didn't actually test anything!", tested > 0);
+
+		// Missing arguments are rendered as their placeholder keys:
+		MessageTemplate template = MessageTemplate.compile(Text.parse("&a{first} and {second}"));
+		assertEquals("\u00A7afirst and {second}", template.toPlainText(template.resolveArguments("first", "first")));
+	}
 }